@@ -1,72 +1,357 @@
 package engine;
 
 import engine.utils.Cell;
+import engine.utils.CellListener;
 import engine.utils.CellType;
+import engine.utils.Constants;
+import engine.utils.FloodFill;
+import engine.utils.GameSeed;
 import engine.utils.GameStage;
+import engine.utils.MinePlacer;
+import engine.utils.PackedBoard;
 import engine.utils.Tuple;
 
-import java.util.Random;
+import java.awt.*;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.random.RandomGenerator;
 
 public class Minesweeper {
-    private final Cell[][] matrix;
-    private static final Random random = new Random();
-    private int uncoverCount = 0;
+    private final PackedBoard board;
+    private final FloodFill floodFill;
+    private final RandomGenerator random;
+    // The seed of the random generator, null if the generator was given from outside
+    private final Long seed;
+    private boolean safeOpening = false;
+    private GameSeed gameSeed = null;
+    private boolean generated = false;
     private final int mines;
+    // Running counters, kept up to date by every change to the board,
+    // so the game stage and the remaining mines can be read without scanning it
+    private int placedMines = 0;
+    private int coveredSafeCells;
+    private int flaggedCells = 0;
+    private int flaggedMines = 0;
+    private int uncoveredMines = 0;
+    // The mines opened by the last uncover, chord or redo, or covered again by the last undo
+    private int lastMinesOpened = 0;
+    private final List<CellListener> cellListeners = new ArrayList<>();
+    private UndoHistory history = new UndoHistory(Constants.defaultUndoLimit);
+    // The cells changed by the last undo or redo, null if the last change was a fill
+    private Rectangle lastUndoRegion = null;
 
+    /**
+     * Constructs a new game with a random seed.
+     *
+     * @param width  The width of the minefield.
+     * @param height The height of the minefield.
+     * @param mines  The number of mines.
+     */
     public Minesweeper(int width, int height, int mines) {
-        matrix = new Cell[width][height];
-        // Initialize the matrix and uncovered arrays
-        for (int x = 0; x < width; x++) {
-            for (int y = 0; y < height; y++) {
-                matrix[x][y] = new Cell(CellType.EMPTY);
-            }
-        }
-        // The array doesn't get generated here but when the first cell is uncovered instead
+        this(width, height, mines, ThreadLocalRandom.current().nextLong());
+    }
+
+    /**
+     * Constructs a new game whose board is generated from the given seed.
+     * The same seed and the same first click always build the same board.
+     *
+     * @param width  The width of the minefield.
+     * @param height The height of the minefield.
+     * @param mines  The number of mines.
+     * @param seed   The seed of the random generator used to place the mines.
+     */
+    public Minesweeper(int width, int height, int mines, long seed) {
+        this(width, height, mines, new SplittableRandom(seed), seed);
+    }
+
+    /**
+     * Constructs a new game.
+     *
+     * @param width  The width of the minefield.
+     * @param height The height of the minefield.
+     * @param mines  The number of mines.
+     * @param random The random generator used to place the mines.
+     */
+    public Minesweeper(int width, int height, int mines, RandomGenerator random) {
+        this(width, height, mines, random, null);
+    }
+
+    private Minesweeper(int width, int height, int mines, RandomGenerator random, Long seed) {
+        this.random = random;
+        this.seed = seed;
+        // Every cell starts empty, covered and not flagged
+        board = new PackedBoard(width, height);
+        floodFill = new FloodFill(board);
+        coveredSafeCells = board.size();
+        // The mines don't get generated here but when the first cell is uncovered instead
         this.mines = mines;
     }
 
     /**
-     * Populates the minefield with the mines.
+     * Populates the minefield with the mines, keeping the first clicked cell safe.
+     * Takes O(mines) time however dense the board is.
+     *
+     * @param firstX The x-coordinate of the first clicked cell.
+     * @param firstY The y-coordinate of the first clicked cell.
+     */
+    private void placeMines(int firstX, int firstY){
+        new MinePlacer(random, safeOpening).place(board, mines, firstX, firstY, index -> setMine(index, true));
+    }
+
+    /**
+     * Builds the board that the given seed and first click generate.
+     *
+     * <p>The board is generated but no cell is uncovered, call {@link #uncover(int, int)} on the first click to
+     * start playing it. The same arguments always build the same board.</p>
+     *
+     * @param width  The width of the minefield.
+     * @param height The height of the minefield.
+     * @param mines  The number of mines.
+     * @param seed   The seed of the random generator used to place the mines.
+     * @param firstX The x-coordinate of the first clicked cell.
+     * @param firstY The y-coordinate of the first clicked cell.
+     * @return The generated game.
+     */
+    public static Minesweeper generate(int width, int height, int mines, long seed, int firstX, int firstY) {
+        Minesweeper minesweeper = new Minesweeper(width, height, mines, seed);
+        minesweeper.generate(firstX, firstY);
+        return minesweeper;
+    }
+
+    /**
+     * Builds the board that a game seed generates, for example to replay a game from the leaderboard.
+     *
+     * @param width    The width of the minefield.
+     * @param height   The height of the minefield.
+     * @param mines    The number of mines.
+     * @param gameSeed The game seed of the board.
+     * @return The generated game.
+     */
+    public static Minesweeper generate(int width, int height, int mines, GameSeed gameSeed) {
+        Minesweeper minesweeper = new Minesweeper(width, height, mines, gameSeed.seed());
+        minesweeper.setSafeOpening(gameSeed.safeOpening());
+        minesweeper.generate(gameSeed.firstX(), gameSeed.firstY());
+        return minesweeper;
+    }
+
+    /**
+     * Places the mines and the numbers, keeping the first clicked cell safe.
+     * Does nothing if the board has already been generated.
+     *
+     * @param firstX The x-coordinate of the first clicked cell.
+     * @param firstY The y-coordinate of the first clicked cell.
      */
-    private void placeMines(){
-        for (int i = 0; i < mines; i++) {
-            int randomX, randomY;
+    public void generate(int firstX, int firstY) {
+        if (generated || !board.isInside(firstX, firstY)) {
+            return;
+        }
+        // Place mines randomly on the board, the clicked cell is never picked
+        placeMines(firstX, firstY);
+        // Place numbers
+        placeNumbers();
+        generated = true;
+        if (seed != null) {
+            gameSeed = new GameSeed(seed, firstX, firstY, safeOpening);
+        }
+    }
 
-            do {
-                randomX = random.nextInt(0, this.getFieldWidth());
-                randomY = random.nextInt(0, this.getFieldHeight());
+    /**
+     * Returns the number of mines on the board, the same count the player is shown.
+     *
+     * @return The number of mines, 0 before the board is generated.
+     */
+    public int getMineCount() {
+        return placedMines;
+    }
 
-            } while (matrix[randomX][randomY].type == CellType.MINE);
+    /**
+     * @return true if the mines have been placed.
+     */
+    public boolean isGenerated() {
+        return generated;
+    }
+
+    /**
+     * Returns the game seed that regenerates this board with {@link #generate(int, int, int, GameSeed)}.
+     *
+     * @return The game seed, or null if the board isn't generated yet or the random generator wasn't seeded.
+     */
+    public GameSeed getGameSeed() {
+        return gameSeed;
+    }
 
-            matrix[randomX][randomY] = new Cell(CellType.MINE);
+    /**
+     * Sets whether the 3x3 zone around the first click is kept free of mines, so the first click always opens a region.
+     * Only has effect before the first cell is uncovered.
+     *
+     * @param safeOpening true to keep the zone around the first click free of mines.
+     */
+    public void setSafeOpening(boolean safeOpening) {
+        this.safeOpening = safeOpening;
+    }
+
+    /**
+     * Places or removes a mine on a covered cell, keeping the counters up to date.
+     *
+     * @param index The index of the cell.
+     * @param mine  true to place a mine, false to remove it.
+     */
+    private void setMine(int index, boolean mine) {
+        if (board.has(index, PackedBoard.MINE) == mine) {
+            return;
+        }
+        board.set(index, PackedBoard.MINE, mine);
+        int delta = mine ? 1 : -1;
+        placedMines += delta;
+        coveredSafeCells -= delta;
+        if (board.has(index, PackedBoard.FLAGGED)) {
+            flaggedMines += delta;
         }
     }
 
     /**
-     * Populates the minefield with the numbers.
+     * Flags the cells flagged on another board of the same size and takes over its undo history, for a board
+     * generated in place of one the player already flagged, like the no-guess boards built on the first click.
+     * No cell may be uncovered on either board, so the history only holds flags.
+     *
+     * @param other The board whose flags are copied.
      */
-    private void placeNumbers(){
+    public void copyFlags(Minesweeper other) {
+        if (other.flaggedCells > 0) {
+            for (int index = 0; index < board.size(); index++) {
+                if (other.board.has(index, PackedBoard.FLAGGED)) {
+                    highlightCell(board.xOf(index), board.yOf(index));
+                }
+            }
+        }
+        history = other.history;
+    }
+
+    /**
+     * Returns the number of bytes {@link #writeState(ByteBuffer)} writes.
+     *
+     * @return The size of the state of the game.
+     */
+    public int getStateSize() {
+        // Size and mines, the 2 seeds, the first click and 3 flags, then the 3 bitsets
+        return 3 * Integer.BYTES + 2 * Long.BYTES + 2 * Integer.BYTES + 3 + 3 * board.bitsetBytes();
+    }
+
+    /**
+     * Writes the state of the game: its size, its seed and which cells are mines, uncovered and flagged.
+     * The numbers and the counters aren't written, they're computed again by {@link #readState(ByteBuffer)}.
+     *
+     * @param buffer The buffer to write {@link #getStateSize()} bytes to.
+     */
+    public void writeState(ByteBuffer buffer) {
+        buffer.putInt(getFieldWidth());
+        buffer.putInt(getFieldHeight());
+        buffer.putInt(mines);
+        buffer.put((byte) (seed != null ? 1 : 0));
+        buffer.putLong(seed != null ? seed : 0);
+        buffer.put((byte) (generated ? 1 : 0));
+        buffer.put((byte) (safeOpening ? 1 : 0));
+        buffer.putLong(gameSeed != null ? gameSeed.seed() : 0);
+        buffer.putInt(gameSeed != null ? gameSeed.firstX() : -1);
+        buffer.putInt(gameSeed != null ? gameSeed.firstY() : -1);
+        board.writeBits(PackedBoard.MINE, buffer);
+        board.writeBits(PackedBoard.UNCOVERED, buffer);
+        board.writeBits(PackedBoard.FLAGGED, buffer);
+    }
+
+    /**
+     * Rebuilds a game written by {@link #writeState(ByteBuffer)}, in the same state it was saved in.
+     *
+     * @param buffer The buffer to read the state from.
+     * @return The restored game.
+     * @throws IllegalArgumentException if the size of the board is invalid.
+     */
+    public static Minesweeper readState(ByteBuffer buffer) {
+        int width = buffer.getInt();
+        int height = buffer.getInt();
+        int mines = buffer.getInt();
+        if (width <= 0 || height <= 0 || width > Constants.maxCustomGridSize || height > Constants.maxCustomGridSize || mines < 0) {
+            throw new IllegalArgumentException("Invalid board size " + width + "x" + height + " with " + mines + " mines");
+        }
+        boolean seeded = buffer.get() != 0;
+        long seed = buffer.getLong();
+        Minesweeper minesweeper = seeded ? new Minesweeper(width, height, mines, seed)
+                : new Minesweeper(width, height, mines, new SplittableRandom());
+        minesweeper.generated = buffer.get() != 0;
+        minesweeper.safeOpening = buffer.get() != 0;
+        long boardSeed = buffer.getLong();
+        int firstX = buffer.getInt();
+        int firstY = buffer.getInt();
+        if (seeded && minesweeper.generated) {
+            minesweeper.gameSeed = new GameSeed(boardSeed, firstX, firstY, minesweeper.safeOpening);
+        }
+        PackedBoard board = minesweeper.board;
+        board.readBits(PackedBoard.MINE, buffer);
+        board.readBits(PackedBoard.UNCOVERED, buffer);
+        board.readBits(PackedBoard.FLAGGED, buffer);
+        minesweeper.placeNumbers();
+        minesweeper.recount();
+        return minesweeper;
+    }
+
+    /**
+     * Computes the counters and the flagged neighbours again from the cells, after they've been read.
+     */
+    private void recount() {
+        placedMines = 0;
+        flaggedCells = 0;
+        flaggedMines = 0;
+        uncoveredMines = 0;
+        coveredSafeCells = 0;
         for (int x = 0; x < getFieldWidth(); x++) {
-            for (int y = 0; y < getFieldHeight(); y++) {
-                int adjacentMines = getNumbersOfMines(x, y);
-                if (adjacentMines != 0 && !isMine(x, y)){
-                    matrix[x][y] = new Cell(CellType.NUMBER);
-                    matrix[x][y].setAdjacentMines(adjacentMines);
+            // The cells of a column are next to each other in the board
+            int start = board.index(x, 0);
+            for (int index = start; index < start + getFieldHeight(); index++) {
+                boolean mine = board.has(index, PackedBoard.MINE);
+                boolean uncovered = board.has(index, PackedBoard.UNCOVERED);
+                boolean flagged = board.has(index, PackedBoard.FLAGGED);
+                if (mine) {
+                    placedMines++;
+                } else if (!uncovered) {
+                    coveredSafeCells++;
+                }
+                if (flagged) {
+                    flaggedCells++;
+                    if (mine) {
+                        flaggedMines++;
+                    }
+                }
+                if (mine && uncovered) {
+                    uncoveredMines++;
+                }
+                if (flagged || (mine && uncovered)) {
+                    board.addToFlaggedNeighbours(index, 1);
                 }
             }
         }
     }
+
+    /**
+     * Populates the minefield with the numbers.
+     * The counts are computed in a single pass over the board, every mine adds one to its neighbours.
+     */
+    private void placeNumbers(){
+        board.computeAdjacentMines();
+    }
     /**
      * @return The width of the minefield.
      */
     public int getFieldWidth(){
-        return matrix.length;
+        return board.getWidth();
     }
     /**
      * @return The height of the minefield.
      */
     public int getFieldHeight(){
-        return matrix[0].length;
+        return board.getHeight();
     }
 
     /**
@@ -80,7 +365,7 @@ public class Minesweeper {
         for (int x = 0; x < getFieldWidth(); x++) {
             for (int y = 0; y < getFieldHeight(); y++) {
                 if (isUncovered(x, y)) {
-                    res.append(matrix[x][y].getChar());
+                    res.append(getCell(x, y).getChar());
                 } else {
                     res.append(Cell.getCharFor(CellType.HIDDEN));
                 }
@@ -103,7 +388,8 @@ public class Minesweeper {
      * The second element of the tuple is another tuple containing the score obtained from uncovering the cell and a boolean
      * indicating whether the game has ended.
      * The score is the total score obtained from uncovering the specified cell and any adjacent cells.
-     * The game is considered ended if all non-mine cells are uncovered.</p>
+     * The game is considered ended if all non-mine cells are uncovered.
+     * Empty regions are opened with an iterative flood fill, the opened cells can be read from {@link #getLastFill()}.</p>
      *
      * <p>If the specified cell is flagged, the method returns a tuple with the first element as null, indicating that
      * the cell was not uncovered. The score and game-ended status are set to 0 and false, respectively.</p>
@@ -116,163 +402,354 @@ public class Minesweeper {
         if (isFlagged(x, y)){
             return new Tuple<>(null, new Tuple<>(0, false));
         }
-        boolean wasUncovered;
-        CellType cellValue = CellType.NOT_SET;
+        if (!board.isInside(x, y)){
+            // Ignore if the coordinates are out of bounds
+            return new Tuple<>(CellType.NOT_SET, new Tuple<>(0, false));
+        }
+        // The first time the player uncovers a tile must always be a safe tile
+        generate(x, y);
+        // Every opened cell is worth 1 point, empty cells also open the region around them
+        int score = floodFill.fill(x, y);
+        CellType cellValue = board.getType(board.index(x, y));
+        lastMinesOpened = countOpened(board.index(x, y), score) ? 1 : 0;
+        notifyFill();
+        boolean gameEnded = getGameStage() == GameStage.WON;
+        recordFill(cellValue, score, gameEnded);
+
+        return new Tuple<>(cellValue, new Tuple<>(score, gameEnded));
+    }
+
+    /**
+     * Chords a number: uncovers at once every covered and unflagged neighbour of an uncovered number
+     * that already has as many flags around it as its value.
+     *
+     * <p>The regions opened from every neighbour are merged in a single fill, so {@link #getLastFill()} holds all the
+     * opened cells and one changed region, and the game stage is checked once for the whole chord. A wrong flag
+     * means a neighbour is a mine, which is uncovered with the others.</p>
+     *
+     * <p>If the cell can't be chorded, nothing changes and the first element of the tuple is null, like for a flagged
+     * cell in {@link #uncover(int, int)}.</p>
+     *
+     * @param x The x-coordinate of the number.
+     * @param y The y-coordinate of the number.
+     * @return A tuple containing {@link CellType#MINE} if a mine was uncovered or the type of the chorded cell otherwise,
+     *         the number of opened cells, and a flag indicating whether the game has ended. The opened cells include
+     *         the mines, see {@link #getLastMinesOpened()} for the safe ones.
+     */
+    public Tuple<CellType, Tuple<Integer, Boolean>> chord(int x, int y) {
+        int number = getVisibleNumber(x, y);
+        if (number <= 0 || getNumbersOfFlaggedCells(x, y) != number) {
+            return new Tuple<>(null, new Tuple<>(0, false));
+        }
+        int center = board.index(x, y);
+        CellType cellValue = board.getType(center);
         int score = 0;
-        boolean gameEnded = true;
-
-        try {
-            // The first time the player uncovers a tile must always be a safe tile
-            if (uncoverCount == 0){
-                // Place mines randomly on the matrix
-                placeMines();
-                // Force the mined cell to be safe
-                matrix[x][y] = new Cell(CellType.EMPTY);
-                // Place numbers
-                placeNumbers();
-            }
-            uncoverCount++;
-            wasUncovered = matrix[x][y].isUncovered();
-            matrix[x][y].setUncovered(true);
-            cellValue = matrix[x][y].type;
-            // If the cell wasn't already uncovered
-            if (!wasUncovered){
-                score++;
-
-                if (cellValue == CellType.EMPTY) {
-                    // Check and uncover adjacent cells recursively
-                    score += uncoverAdjacent(x - 1, y);
-                    score += uncoverAdjacent(x + 1, y);
-                    score += uncoverAdjacent(x, y - 1);
-                    score += uncoverAdjacent(x, y + 1);
-                }
+        lastMinesOpened = 0;
+        floodFill.reset();
+        for (int offset : board.getNeighbourOffsets()) {
+            int index = center + offset;
+            // The board padding is uncovered, so the cells outside of it are skipped here
+            if (board.has(index, PackedBoard.UNCOVERED) || board.has(index, PackedBoard.FLAGGED)) {
+                continue;
             }
-            if (getGameStage() != GameStage.WON){
-                gameEnded = false;
+            int opened = floodFill.extend(board.xOf(index), board.yOf(index));
+            if (countOpened(index, opened)) {
+                cellValue = CellType.MINE;
+                lastMinesOpened++;
             }
-
-        } catch (ArrayIndexOutOfBoundsException ignore) {
-            // Ignore if the coordinates are out of bounds
+            score += opened;
         }
+        notifyFill();
+        boolean gameEnded = getGameStage() == GameStage.WON;
+        recordFill(cellValue, score, gameEnded);
 
         return new Tuple<>(cellValue, new Tuple<>(score, gameEnded));
     }
 
-    public GameStage getGameStage() {
-        // Check if all cells are uncovered except mines
-        for (int x = 0; x < matrix.length; x++) {
-            for (int y = 0; y < matrix[0].length; y++) {
-                if (!isUncovered(x, y) && !isMine(x, y)) {
-                    return GameStage.IN_PROGRESS;
+    /**
+     * Records the cells opened by the last fill as a move that can be undone.
+     */
+    private void recordFill(CellType cellValue, int score, boolean gameEnded) {
+        lastUndoRegion = null;
+        // Nothing is copied when undo is disabled, like for the boards played without a player
+        if (score > 0 && history.getLimit() > 0) {
+            int[] opened = new int[floodFill.getOpenedCount()];
+            for (int i = 0; i < opened.length; i++) {
+                opened[i] = floodFill.getOpened(i);
+            }
+            history.push(new UndoHistory.Move(opened, -1, cellValue, score, gameEnded));
+        }
+    }
+
+    /**
+     * Undoes the last move: the cells it opened are covered again, or the flag it toggled is toggled back.
+     * Takes a time proportional to the number of cells the move changed, the flood fills aren't run again.
+     *
+     * @return The result the move returned, as {@link #uncover(int, int)} returns it with a null type for a flag,
+     *         or null if there's nothing to undo.
+     */
+    public Tuple<CellType, Tuple<Integer, Boolean>> undo() {
+        UndoHistory.Move move = history.popUndo();
+        if (move == null) {
+            return null;
+        }
+        lastMinesOpened = 0;
+        if (move.opened() == null) {
+            toggleFlag(move.flagged());
+        } else {
+            for (int index : move.opened()) {
+                board.set(index, PackedBoard.UNCOVERED, false);
+                if (board.has(index, PackedBoard.MINE)) {
+                    uncoveredMines--;
+                    lastMinesOpened++;
+                    board.addToFlaggedNeighbours(index, -1);
+                    notifyAround(index);
+                } else {
+                    coveredSafeCells++;
+                    notifyCell(index);
                 }
             }
         }
+        lastUndoRegion = regionOf(move);
+        return new Tuple<>(move.type(), new Tuple<>(move.score(), move.ended()));
+    }
 
-        // Check if all mines are flagged
-        for (int x = 0; x < matrix.length; x++) {
-            for (int y = 0; y < matrix[0].length; y++) {
-                if (isMine(x, y) && !isFlagged(x, y) && !isUncovered(x, y)) {
-                    return GameStage.MINES_NOT_FLAGGED;
+    /**
+     * Redoes the last undone move, opening the same cells or toggling the same flag again.
+     *
+     * @return The result the move returned, as {@link #uncover(int, int)} returns it with a null type for a flag,
+     *         or null if there's nothing to redo.
+     */
+    public Tuple<CellType, Tuple<Integer, Boolean>> redo() {
+        UndoHistory.Move move = history.popRedo();
+        if (move == null) {
+            return null;
+        }
+        lastMinesOpened = 0;
+        if (move.opened() == null) {
+            toggleFlag(move.flagged());
+        } else {
+            for (int index : move.opened()) {
+                board.set(index, PackedBoard.UNCOVERED, true);
+                if (board.has(index, PackedBoard.MINE)) {
+                    uncoveredMines++;
+                    lastMinesOpened++;
+                    board.addToFlaggedNeighbours(index, 1);
+                    notifyAround(index);
+                } else {
+                    coveredSafeCells--;
+                    notifyCell(index);
                 }
             }
         }
+        lastUndoRegion = regionOf(move);
+        return new Tuple<>(move.type(), new Tuple<>(move.score(), move.ended()));
+    }
 
-        // The Game has been won
-        return GameStage.WON;
+    /**
+     * Toggles a flag without recording it, for undo and redo.
+     */
+    private void toggleFlag(int index) {
+        if (board.has(index, PackedBoard.FLAGGED)) {
+            unhighlightCell(board.xOf(index), board.yOf(index));
+        } else {
+            highlightCell(board.xOf(index), board.yOf(index));
+        }
+    }
+
+    /**
+     * @return The smallest rectangle containing every cell the move changed.
+     */
+    private Rectangle regionOf(UndoHistory.Move move) {
+        if (move.opened() == null) {
+            return new Rectangle(board.xOf(move.flagged()), board.yOf(move.flagged()), 1, 1);
+        }
+        int minX = Integer.MAX_VALUE, minY = Integer.MAX_VALUE;
+        int maxX = Integer.MIN_VALUE, maxY = Integer.MIN_VALUE;
+        for (int index : move.opened()) {
+            minX = Math.min(minX, board.xOf(index));
+            minY = Math.min(minY, board.yOf(index));
+            maxX = Math.max(maxX, board.xOf(index));
+            maxY = Math.max(maxY, board.yOf(index));
+        }
+        return new Rectangle(minX, minY, maxX - minX + 1, maxY - minY + 1);
     }
 
     /**
-     * Uncovers the adjacent cells around the specified coordinates if they are not already uncovered.
+     * Returns the region of the board changed by the last uncover, chord, undo or redo,
+     * for example to tell the hint engine which numbers to look at again.
      *
-     * <p>This method uncovers the adjacent cells around the specified coordinates in the Minesweeper game
-     * if they are not already uncovered and not containing a mine. The method returns the score obtained
-     * from uncovering the specified cell. If the coordinates are out of bounds or the cell contains a mine,
-     * the method returns 0.</p>
+     * @return The smallest rectangle containing the changed cells.
+     */
+    public Rectangle getLastChangedRegion() {
+        return lastUndoRegion != null ? lastUndoRegion : floodFill.getChangedRegion();
+    }
+
+    /**
+     * Returns the number of mines the last uncover, chord or redo opened, or the last undo covered again.
+     * The cells a move opened minus its mines are the safe cells it opened, so a chord that steps on a mine still
+     * tells how many safe cells it opened around it.
      *
-     * @param x The x-coordinate of the cell around which adjacent cells should be uncovered.
-     * @param y The y-coordinate of the cell around which adjacent cells should be uncovered.
-     * @return The score obtained from uncovering the specified cell and its adjacent cells.
+     * @return The number of mines, 0 after a flag.
      */
-    private int uncoverAdjacent(int x, int y) {
-        try {
-            if (!matrix[x][y].isUncovered() && matrix[x][y].type != CellType.MINE) {
-                return uncover(x, y).second().first();
-            }
-        } catch (ArrayIndexOutOfBoundsException ignore) {}
-        return 0;
+    public int getLastMinesOpened() {
+        return lastMinesOpened;
     }
 
     /**
-     * Checks if the cell at the specified coordinates contains a mine.
+     * Returns the moves that can be undone and redone, to change how many moves are kept or to copy them.
+     * A limit of 0 disables undo, the moves are then not recorded at all.
      *
-     * <p>This method checks whether the cell at the specified coordinates in the Minesweeper game
-     * contains a mine. If the coordinates are out of bounds, the method returns false.</p>
+     * @return The undo history of the game.
+     */
+    public UndoHistory getUndoHistory() {
+        return history;
+    }
+
+    /**
+     * Replaces the moves that can be undone and redone, for example with a copy taken when the board was saved.
+     * The history must come from this board, in the same state.
      *
-     * @param x The x-coordinate of the cell to be checked for a mine.
-     * @param y The y-coordinate of the cell to be checked for a mine.
-     * @return {@code true} if the cell contains a mine, {@code false} otherwise.
+     * @param history The new undo history.
      */
-    private boolean isMine(int x, int y) {
-        try {
-            return matrix[x][y].type == CellType.MINE;
-        } catch (ArrayIndexOutOfBoundsException ignore) {
-            // Ignore if the coordinates are out of bounds
+    public void setUndoHistory(UndoHistory history) {
+        this.history = history;
+    }
+
+    /**
+     * Updates the counters after a fill started from a cell.
+     *
+     * @param start  The index of the cell the fill started from.
+     * @param opened The number of cells the fill opened.
+     * @return true if the starting cell was a mine, the fill only opens a mine when it's the cell it starts from.
+     */
+    private boolean countOpened(int start, int opened) {
+        if (opened > 0 && board.has(start, PackedBoard.MINE)) {
+            uncoveredMines++;
+            // Uncovered mines count as flagged for the numbers around them
+            board.addToFlaggedNeighbours(start, 1);
+            coveredSafeCells -= opened - 1;
+            notifyAround(start);
+            return true;
         }
+        coveredSafeCells -= opened;
         return false;
     }
 
     /**
-     * Gets the number of mines in neighboring cells around the specified coordinates.
-     *
-     * <p>This method calculates and returns the number of mines in the neighboring cells
-     * around the specified coordinates in the Minesweeper game. If the coordinates are
-     * out of bounds, the method returns 0.
-     * Checks in all the 8 directions.</p>
+     * Notifies every cell opened by the last fill.
+     */
+    private void notifyFill() {
+        if (!cellListeners.isEmpty()) {
+            for (int i = 0; i < floodFill.getOpenedCount(); i++) {
+                notifyCell(floodFill.getOpened(i));
+            }
+        }
+    }
+
+    /**
+     * Registers a listener called for every cell that changes, so a view can repaint only those cells.
+     * Listeners are called on the thread that changed the board.
      *
-     * @param x The x-coordinate of the cell for which the number of neighboring mines is calculated.
-     * @param y The y-coordinate of the cell for which the number of neighboring mines is calculated.
-     * @return The number of mines in neighboring cells.
+     * @param listener The listener to add.
      */
-    private int getNumbersOfMines(int x, int y) {
-        int num = 0;
+    public void addCellListener(CellListener listener) {
+        cellListeners.add(listener);
+    }
 
-        // loop the 8 adjacent cells
-        for (int i = x - 1; i <= x + 1; i++) {
-            for (int j = y - 1; j <= y + 1; j++) {
-                if ((i != x || j != y) && isMine(i, j)) {
-                    num++;
-                }
+    /**
+     * @param listener The listener to remove.
+     */
+    public void removeCellListener(CellListener listener) {
+        cellListeners.remove(listener);
+    }
+
+    private void notifyCell(int index) {
+        for (CellListener listener : cellListeners) {
+            listener.cellChanged(board.xOf(index), board.yOf(index));
+        }
+    }
+
+    /**
+     * Notifies the cell and its neighbours, whose count of flags around them changed with it.
+     */
+    private void notifyAround(int index) {
+        if (cellListeners.isEmpty()) {
+            return;
+        }
+        notifyCell(index);
+        for (int offset : board.getNeighbourOffsets()) {
+            if (board.isInside(board.xOf(index + offset), board.yOf(index + offset))) {
+                notifyCell(index + offset);
             }
         }
+    }
 
-        return num;
+    /**
+     * Returns the flood fill used by the last call to {@link #uncover(int, int)} or {@link #chord(int, int)}.
+     * It tells how many cells were opened, which ones and the region of the board that changed.
+     *
+     * @return The flood fill of the last uncover.
+     */
+    public FloodFill getLastFill() {
+        return floodFill;
     }
 
     /**
-     * Gets the number of mines in neighboring cells around the specified coordinates.
+     * Returns the current stage of the game.
      *
-     * <p>This method calculates and returns the number of mines in the neighboring cells
+     * <p>The stage is computed from the running counters, so it takes constant time whatever the size of the board.</p>
+     *
+     * @return The current stage of the game.
+     */
+    public GameStage getGameStage() {
+        // Check if all cells are uncovered except mines
+        if (coveredSafeCells > 0) {
+            return GameStage.IN_PROGRESS;
+        }
+
+        // Check if all mines are flagged, mines that have been uncovered don't need a flag
+        if (placedMines - uncoveredMines - flaggedMines > 0) {
+            return GameStage.MINES_NOT_FLAGGED;
+        }
+
+        // The Game has been won
+        return GameStage.WON;
+    }
+
+    /**
+     * Checks if the cell at the specified coordinates contains a mine.
+     *
+     * <p>This method checks whether the cell at the specified coordinates in the Minesweeper game
+     * contains a mine. If the coordinates are out of bounds, the method returns false.</p>
+     *
+     * @param x The x-coordinate of the cell to be checked for a mine.
+     * @param y The y-coordinate of the cell to be checked for a mine.
+     * @return {@code true} if the cell contains a mine, {@code false} otherwise.
+     */
+    private boolean isMine(int x, int y) {
+        // Out of bounds coordinates are never mines
+        return board.isInside(x, y) && board.has(board.index(x, y), PackedBoard.MINE);
+    }
+
+    /**
+     * Gets the number of flagged cells around the specified coordinates.
+     *
+     * <p>This method returns the number of neighboring cells that are flagged or are uncovered mines
      * around the specified coordinates in the Minesweeper game. If the coordinates are
      * out of bounds, the method returns 0.
-     * Checks in all the 8 directions.</p>
+     * Checks in all the 8 directions.
+     * The count is kept up to date when flags are toggled, so this doesn't scan the neighbours.</p>
      *
-     * @param x The x-coordinate of the cell for which the number of neighboring mines is calculated.
-     * @param y The y-coordinate of the cell for which the number of neighboring mines is calculated.
-     * @return The number of mines in neighboring cells.
+     * @param x The x-coordinate of the cell for which the number of neighboring flags is calculated.
+     * @param y The y-coordinate of the cell for which the number of neighboring flags is calculated.
+     * @return The number of flagged cells around the specified coordinates.
      */
     public int getNumbersOfFlaggedCells(int x, int y) {
-        int num = 0;
-
-        // loop the 8 adjacent cells
-        for (int i = x - 1; i <= x + 1; i++) {
-            for (int j = y - 1; j <= y + 1; j++) {
-                if ((i != x || j != y) && (isFlagged(i, j) || (isMine(i, j) && isUncovered(i, j)))) {
-                    num++;
-                }
-            }
+        if (!board.isInside(x, y)) {
+            return 0;
         }
-
-        return num;
+        return board.getFlaggedNeighbours(board.index(x, y));
     }
 
     /**
@@ -286,12 +763,8 @@ public class Minesweeper {
      * @return {@code true} if the cell is highlighted, {@code false} otherwise.
      */
     public boolean isFlagged(int x, int y) {
-        try {
-            return matrix[x][y].isFlagged();
-        } catch (ArrayIndexOutOfBoundsException ignore) {
-            // Ignore if the coordinates are out of bounds
-            return false;
-        }
+        // Out of bounds coordinates are never flagged
+        return board.isInside(x, y) && board.has(board.index(x, y), PackedBoard.FLAGGED);
     }
 
     /**
@@ -304,10 +777,16 @@ public class Minesweeper {
      * @param y The y-coordinate of the cell to be highlighted.
      */
     private void highlightCell(int x, int y) {
-        try {
-            matrix[x][y].setFlagged(true);
-        } catch (ArrayIndexOutOfBoundsException ignore) {
-            // Ignore if the coordinates are out of bounds
+        // Ignore if the coordinates are out of bounds or the cell is already flagged
+        if (board.isInside(x, y) && !isFlagged(x, y)) {
+            int index = board.index(x, y);
+            board.set(index, PackedBoard.FLAGGED, true);
+            board.addToFlaggedNeighbours(index, 1);
+            flaggedCells++;
+            if (board.has(index, PackedBoard.MINE)) {
+                flaggedMines++;
+            }
+            notifyAround(index);
         }
     }
 
@@ -321,10 +800,16 @@ public class Minesweeper {
      * @param y The y-coordinate of the cell to be unhighlighted.
      */
     private void unhighlightCell(int x, int y) {
-        try {
-            matrix[x][y].setFlagged(false);
-        } catch (ArrayIndexOutOfBoundsException ignore) {
-            // Ignore if the coordinates are out of bounds
+        // Ignore if the coordinates are out of bounds or the cell isn't flagged
+        if (isFlagged(x, y)) {
+            int index = board.index(x, y);
+            board.set(index, PackedBoard.FLAGGED, false);
+            board.addToFlaggedNeighbours(index, -1);
+            flaggedCells--;
+            if (board.has(index, PackedBoard.MINE)) {
+                flaggedMines--;
+            }
+            notifyAround(index);
         }
     }
 
@@ -351,6 +836,9 @@ public class Minesweeper {
         } else {
             highlightCell(x, y);
         }
+        if (board.isInside(x, y) && history.getLimit() > 0) {
+            history.push(new UndoHistory.Move(null, board.index(x, y), null, 0, false));
+        }
     }
 
     /**
@@ -365,22 +853,38 @@ public class Minesweeper {
      * @return {@code true} if the cell is uncovered or if the coordinates are out of bounds, {@code false} otherwise.
      */
     public boolean isUncovered(int x, int y) {
-        try {
-            return matrix[x][y].isUncovered();
-        } catch (ArrayIndexOutOfBoundsException ignore) {
-            // Return true for out-of-bounds coordinates, considering uncovered cells as already uncovered
-            return true;
-        }
+        // Return true for out-of-bounds coordinates, considering uncovered cells as already uncovered
+        return !board.isInside(x, y) || board.has(board.index(x, y), PackedBoard.UNCOVERED);
     }
 
 
 
 
+    /**
+     * Returns the number the player sees on a cell, without building a {@link Cell} view.
+     * Used by the solver to read the board quickly.
+     *
+     * @param x The x-coordinate of the cell.
+     * @param y The y-coordinate of the cell.
+     * @return The number of adjacent mines (0 for empty cells) if the cell is uncovered and isn't a mine, -1 otherwise.
+     */
+    public int getVisibleNumber(int x, int y) {
+        if (!board.isInside(x, y)) {
+            return -1;
+        }
+        int index = board.index(x, y);
+        if (!board.has(index, PackedBoard.UNCOVERED) || board.has(index, PackedBoard.MINE)) {
+            return -1;
+        }
+        return board.getAdjacentMines(index);
+    }
+
     /**
      * Retrieves the character representation of the cell at the specified coordinates.
      *
      * <p>This method returns the character representation of the cell at the specified (x, y) coordinates.
-     * If the coordinates are out of bounds, it returns the NOT_SET character from the CellType enum.</p>
+     * If the coordinates are out of bounds, it returns the NOT_SET character from the CellType enum.
+     * The returned cell is a view built from the packed board, changing it doesn't change the minefield.</p>
      *
      * @param x The x-coordinate of the cell.
      * @param y The y-coordinate of the cell.
@@ -388,17 +892,18 @@ public class Minesweeper {
      *         if the coordinates are out of bounds.
      */
     public Cell getCell(int x, int y, boolean force) {
-        try {
-            if (matrix[x][y].isUncovered() || force){
-                return matrix[x][y];
-            }
-            else {
-                return new Cell(CellType.HIDDEN);
-            }
-        } catch (ArrayIndexOutOfBoundsException ignore) {
+        if (!board.isInside(x, y)){
             // Return other value, because it will be ignored
             return new Cell(CellType.NOT_SET);
         }
+        int index = board.index(x, y);
+        if (board.has(index, PackedBoard.UNCOVERED) || force){
+            return new Cell(board.getType(index), board.getAdjacentMines(index),
+                    board.has(index, PackedBoard.UNCOVERED), board.has(index, PackedBoard.FLAGGED));
+        }
+        else {
+            return new Cell(CellType.HIDDEN);
+        }
     }
 
     public Cell getCell(int x, int y){
@@ -408,28 +913,26 @@ public class Minesweeper {
     /**
      * Retrieves the count of remaining mines in the Minesweeper grid.
      *
-     * <p>This method iterates through the Minesweeper grid and counts the number of remaining mines.
-     * It takes into account any flagged (highlighted) mines and subtracts them from the total count.</p>
+     * <p>This method returns the number of mines on the grid minus the number of flagged (highlighted) cells.
+     * Both are running counters, so it takes constant time whatever the size of the board.</p>
      *
      * @return The count of remaining mines in the Minesweeper grid.
      */
     public int getRemainingMines() {
-        int mines = 0;
-
-        // Count mines in the matrix:
-        // For each mine in the field add 1
-        // For each flagged mine in the field subtract 1
-        for (Cell[] line : matrix) {
-            for (Cell cell : line) {
-                if (cell.type == CellType.MINE) {
-                    mines++;
-                }
-                if (cell.isFlagged()){
-                    mines--;
-                }
-            }
-        }
+        return placedMines - flaggedCells;
+    }
+
+    /**
+     * @return The number of cells that are still covered, flagged or not.
+     */
+    public int getCoveredCellCount() {
+        return coveredSafeCells + placedMines - uncoveredMines;
+    }
 
-        return mines;
+    /**
+     * @return The number of mines the player has stepped on.
+     */
+    public int getUncoveredMineCount() {
+        return uncoveredMines;
     }
 }
\ No newline at end of file
@@ -15,6 +15,7 @@ import com.googlecode.lanterna.gui2.Window;
 import com.googlecode.lanterna.screen.Screen;
 import com.googlecode.lanterna.screen.TerminalScreen;
 import com.googlecode.lanterna.terminal.Terminal;
+import engine.gui.FrameScheduler;
 import engine.gui.impl.MainMenuGUI;
 import engine.music.MusicManager;
 import engine.music.MusicPlayer;
@@ -46,6 +47,7 @@ public class UIManager {
     public static IGameTheme selectedTheme = new DefaultGameTheme();
     private final Terminal terminal;
     private final Screen screen;
+    private final FrameScheduler scheduler;
     private final MultiWindowTextGUI gui;
     private final Panel mainPanel;
     private final TextGraphics textGraphics;
@@ -62,9 +64,9 @@ public class UIManager {
         terminal.addResizeListener(terminalResizeEventHandler);
 
         screen = new TerminalScreen(terminal);
+        scheduler = new FrameScheduler(screen);
 
         textGraphics = screen.newTextGraphics();
-        leaderboard = new Leaderboard(screen, textGraphics);
         Panel guiBackground = new Panel();
         guiBackground.setTheme(getWindowTheme());
         gui = new MultiWindowTextGUI(screen, new DefaultWindowManager(), guiBackground);
@@ -87,6 +89,7 @@ public class UIManager {
         terminal.enterPrivateMode();
         // Load the options
         options = Options.readOptionsFromFile();
+        leaderboard = new Leaderboard(screen, textGraphics, options.getApiUrl());
         // Set up music
         musicPlayer = MusicManager.getMusicPlayer();
         try{
@@ -106,6 +109,13 @@ public class UIManager {
         return screen;
     }
 
+    /**
+     * @return The scheduler shared by the GUI loops.
+     */
+    public FrameScheduler getScheduler() {
+        return scheduler;
+    }
+
     public MultiWindowTextGUI getGui() {
         return gui;
     }
@@ -394,6 +404,19 @@ public class UIManager {
      * @return              True if the "Continue" button was pressed, false otherwise.
      */
     public boolean showGameEndPopup(String message, GameInstance gameInstance, boolean showContinueButton, int subtractScore) {
+        return showGameEndPopup(message, () -> gameInstance.setPlayAgain(true), showContinueButton, subtractScore);
+    }
+
+    /**
+     * Shows the popup at the end of a game, with a "Play Again" and an "Exit" button.
+     *
+     * @param message            The message of the popup.
+     * @param onPlayAgain        Called when "Play Again" or "Continue" is pressed.
+     * @param showContinueButton true to let the player continue the game.
+     * @param subtractScore      The score lost by continuing, shown on the button.
+     * @return true if "Continue" was pressed.
+     */
+    public boolean showGameEndPopup(String message, Runnable onPlayAgain, boolean showContinueButton, int subtractScore) {
         boolean[] continuePressed = new boolean[] {false};
         MenuPopupWindow window = new MenuPopupWindow(mainPanel);
         window.setTheme(getWindowTheme());
@@ -401,7 +424,7 @@ public class UIManager {
         Panel buttonsPanel = new Panel(new LinearLayout(Direction.HORIZONTAL));
 
         Button playAgainButton = new Button("Play Again", () -> {
-            gameInstance.setPlayAgain(true);
+            onPlayAgain.run();
             window.close();
         });
         playAgainButton.setTheme(getConfirmButtonTheme());
@@ -409,7 +432,7 @@ public class UIManager {
 
         if (showContinueButton){
             Button continueButton = new Button(String.format("Continue [%s score]", subtractScore), () -> {
-                gameInstance.setPlayAgain(true);
+                onPlayAgain.run();
                 continuePressed[0] = true;
                 window.close();
             });
@@ -434,6 +457,38 @@ public class UIManager {
         return continuePressed[0];
     }
 
+    /**
+     * Asks if the saved game should be resumed, before a new game starts.
+     *
+     * @return true to resume the saved game, false to start a new one.
+     */
+    public boolean askResumeSavedGame() {
+        boolean[] resume = new boolean[] {false};
+        MenuPopupWindow window = new MenuPopupWindow(mainPanel);
+        window.setTheme(getWindowTheme());
+        Panel panel = new Panel();
+        Panel buttonsPanel = new Panel(new LinearLayout(Direction.HORIZONTAL));
+
+        Button resumeButton = new Button("Resume", () -> {
+            resume[0] = true;
+            window.close();
+        });
+        resumeButton.setTheme(getConfirmButtonTheme());
+        buttonsPanel.addComponent(resumeButton);
+
+        Button newGameButton = new Button("New game", window::close);
+        newGameButton.setTheme(getCancelButtonTheme());
+        buttonsPanel.addComponent(newGameButton);
+
+        panel.addComponent(new Label("You have a saved game.\nDo you want to resume it?"));
+        panel.addComponent(buttonsPanel);
+
+        window.setComponent(panel);
+        centerWindow(window);
+        gui.addWindowAndWait(window);
+        return resume[0];
+    }
+
     public void showContinuePopup(String message) {
         MenuPopupWindow window = new MenuPopupWindow(mainPanel);
         window.setTheme(getWindowTheme());
@@ -492,6 +547,15 @@ public class UIManager {
         CheckBoxList<String> grayNearbyCells = new CheckBoxList<>();
         grayNearbyCells.addItem("Gray out nearby cells", options.isGrayOutNearbyCells());
         container.addComponent(grayNearbyCells);
+        // Scroll margin of big boards
+        Panel scrollMarginOptions = new Panel(new LinearLayout(Direction.HORIZONTAL));
+        scrollMarginOptions.addComponent(new Label("Scroll margin:"));
+        TextBox scrollMarginTextBox = new TextBox(String.valueOf(options.getScrollMargin()));
+        // Match numbers from 0 to 20
+        scrollMarginTextBox.setValidationPattern(Pattern.compile("^1?[0-9]?$|^20$"));
+        scrollMarginTextBox.setPreferredSize(new TerminalSize(4, 1));
+        scrollMarginOptions.addComponent(scrollMarginTextBox);
+        container.addComponent(scrollMarginOptions);
 
         // Font options
         container.addComponent(new EmptySpace(new TerminalSize(1, 1))); // Add some space
@@ -611,6 +675,11 @@ public class UIManager {
         // After the gui is closed
         // Update options values
         options.setGrayOutNearbyCells(grayNearbyCells.isChecked(0));
+        try {
+            options.setScrollMargin(Integer.parseInt(scrollMarginTextBox.getText()));
+        } catch (NumberFormatException ignore) {
+            // Keep the previous margin
+        }
         // Get the current font from options
         Font currentFont = options.getJsonFont().getFont();
 
@@ -790,7 +859,7 @@ public class UIManager {
         container.addComponent(new Label("Select the game difficulty:"));
         for (MinesweeperDifficulty difficulty : MinesweeperDifficulty.values()){
             String name = difficulty.name();
-            String camelCase = Utils.toCamelCase(name);
+            String camelCase = Utils.toCamelCase(name.replace('_', '-'));
             Button button = new Button(camelCase, () -> {
                 selectedDifficulty[0] = difficulty;
                 window.close();
@@ -800,6 +869,8 @@ public class UIManager {
                 case EASY -> button.setTheme(new SimpleTheme(TextColor.ANSI.GREEN, getThemeBackgroundColor(), SGR.BOLD));
                 case MEDIUM -> button.setTheme(new SimpleTheme(new TextColor.RGB(255, 115, 0), getThemeBackgroundColor(), SGR.BOLD));
                 case HARD -> button.setTheme(new SimpleTheme(new TextColor.RGB(180, 0, 0), getThemeBackgroundColor(), SGR.BOLD));
+                case NO_GUESS -> button.setTheme(new SimpleTheme(new TextColor.RGB(0, 150, 255), getThemeBackgroundColor(), SGR.BOLD));
+                case ENDLESS -> button.setTheme(new SimpleTheme(new TextColor.RGB(170, 80, 255), getThemeBackgroundColor(), SGR.BOLD));
                 case CUSTOM -> button.setTheme(new SimpleTheme(new TextColor.RGB(200, 200, 200), getThemeBackgroundColor(), SGR.BOLD));
             }
             button.setPreferredSize(new TerminalSize(27, 1));
@@ -915,8 +986,8 @@ public class UIManager {
         TextBox gridSizeX = new TextBox("");
         TextBox gridSizeY = new TextBox("");
         // Make size inputs smaller
-        gridSizeX.setPreferredSize(new TerminalSize(3, 1));
-        gridSizeY.setPreferredSize(new TerminalSize(3, 1));
+        gridSizeX.setPreferredSize(new TerminalSize(5, 1));
+        gridSizeY.setPreferredSize(new TerminalSize(5, 1));
         mines.setValidationPattern(Pattern.compile("\\d+"));
         gridSizeX.setValidationPattern(Pattern.compile("\\d+"));
         gridSizeY.setValidationPattern(Pattern.compile("\\d+"));
@@ -932,9 +1003,9 @@ public class UIManager {
                             result[1] = Integer.parseInt(gridSizeX.getText());
                             result[2] = Integer.parseInt(gridSizeY.getText());
                             // Do all checks to verify that user input is valid values
-                            if (result[1]*2+4 > terminal.getTerminalSize().getColumns() || result[2]+5 > terminal.getTerminalSize().getRows()){
-                                // Check if the terminal window is big enough to create a game of that size
-                                showInvalidLevelDataPopup("The terminal is too small to create a game with the specified size.\nPlease resize your terminal.");
+                            if (result[1] > Constants.maxCustomGridSize || result[2] > Constants.maxCustomGridSize){
+                                // Boards bigger than the terminal scroll, but they must fit in memory
+                                showInvalidLevelDataPopup("The grid is too big.\nThe width and the height must be at most " + Constants.maxCustomGridSize + ".");
                             }
                             else if (result[1] * result[2] < result[0]){
                                 // Check that the gridWidth * gridHeight > mines
@@ -0,0 +1,132 @@
+package engine;
+
+import engine.utils.CellType;
+
+import java.util.ArrayDeque;
+
+/**
+ * The moves of a {@link Minesweeper} that can be undone and redone.
+ *
+ * <p>A move is kept as the change it made, not as a copy of the board: the cells its flood fills opened, or the
+ * cell it flagged. Undoing or redoing a move only touches those cells. The moves never change once recorded,
+ * so {@link #copy()} shares them between the copies instead of duplicating them.</p>
+ *
+ * <p>Only the last {@link #getLimit()} moves are kept, the oldest ones are forgotten. The opened cells of the kept
+ * moves are all different, so the history never holds more cells than the board.</p>
+ */
+public class UndoHistory {
+    /**
+     * A recorded move.
+     *
+     * @param opened  The indices of the cells the move uncovered, null for a flag.
+     * @param flagged The index of the cell whose flag was toggled, -1 for an uncover or a chord.
+     * @param type    The type returned by the uncover or the chord, null for a flag.
+     * @param score   The number of cells the move opened.
+     * @param ended   true if the move won the game.
+     */
+    record Move(int[] opened, int flagged, CellType type, int score, boolean ended) {
+    }
+
+    private final ArrayDeque<Move> undo;
+    private final ArrayDeque<Move> redo;
+    private int limit;
+
+    /**
+     * @param limit The number of moves that can be undone.
+     */
+    public UndoHistory(int limit) {
+        this(new ArrayDeque<>(), new ArrayDeque<>(), limit);
+    }
+
+    private UndoHistory(ArrayDeque<Move> undo, ArrayDeque<Move> redo, int limit) {
+        this.undo = undo;
+        this.redo = redo;
+        this.limit = Math.max(0, limit);
+    }
+
+    /**
+     * Records a new move. The undone moves can't be redone anymore.
+     */
+    void push(Move move) {
+        redo.clear();
+        if (limit == 0) {
+            return;
+        }
+        undo.addLast(move);
+        while (undo.size() > limit) {
+            undo.removeFirst();
+        }
+    }
+
+    /**
+     * @return The last move, now waiting to be redone, or null if there's nothing to undo.
+     */
+    Move popUndo() {
+        Move move = undo.pollLast();
+        if (move != null) {
+            redo.addLast(move);
+        }
+        return move;
+    }
+
+    /**
+     * @return The last undone move, now waiting to be undone again, or null if there's nothing to redo.
+     */
+    Move popRedo() {
+        Move move = redo.pollLast();
+        if (move != null) {
+            undo.addLast(move);
+        }
+        return move;
+    }
+
+    /**
+     * @return true if there's a move to undo.
+     */
+    public boolean canUndo() {
+        return !undo.isEmpty();
+    }
+
+    /**
+     * @return true if there's an undone move to redo.
+     */
+    public boolean canRedo() {
+        return !redo.isEmpty();
+    }
+
+    /**
+     * Forgets every move.
+     */
+    public void clear() {
+        undo.clear();
+        redo.clear();
+    }
+
+    /**
+     * @return The number of moves that can be undone.
+     */
+    public int getLimit() {
+        return limit;
+    }
+
+    /**
+     * Sets the number of moves that can be undone, forgetting the oldest moves above it.
+     *
+     * @param limit The number of moves that can be undone, 0 to disable undo.
+     */
+    public void setLimit(int limit) {
+        this.limit = Math.max(0, limit);
+        while (undo.size() > this.limit) {
+            undo.removeFirst();
+        }
+    }
+
+    /**
+     * Copies the history, the moves themselves are shared.
+     *
+     * @return An independent history with the same moves.
+     */
+    public UndoHistory copy() {
+        return new UndoHistory(new ArrayDeque<>(undo), new ArrayDeque<>(redo), limit);
+    }
+}
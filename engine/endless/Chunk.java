@@ -0,0 +1,142 @@
+package engine.endless;
+
+import engine.utils.CellType;
+import engine.utils.PackedBoard;
+
+/**
+ * A square piece of an endless minefield.
+ *
+ * <p>Every cell is a byte with the same bits as a {@link PackedBoard}: the number of adjacent mines in the lower
+ * bits, then the mine, uncovered and flagged state. Cells are stored column by column. Only the uncovered and
+ * flagged bits come from the player, the mines and the numbers are generated again from the world seed whenever
+ * the chunk is loaded, so the state saved to disk is 2 bits per cell.</p>
+ */
+public class Chunk {
+    /** The width and height of a chunk, in cells. */
+    public static final int SIZE = 64;
+    /** The size of the saved state of a chunk, in bytes. */
+    public static final int STATE_BYTES = SIZE * SIZE / 4;
+
+    private final int chunkX;
+    private final int chunkY;
+    private final byte[] cells = new byte[SIZE * SIZE];
+    // true if the player changed the chunk since it was last saved
+    private boolean dirty = false;
+
+    /**
+     * @param chunkX The x-coordinate of the chunk, in chunks.
+     * @param chunkY The y-coordinate of the chunk, in chunks.
+     */
+    Chunk(int chunkX, int chunkY) {
+        this.chunkX = chunkX;
+        this.chunkY = chunkY;
+    }
+
+    /**
+     * @param localX The x-coordinate of the cell inside the chunk.
+     * @param localY The y-coordinate of the cell inside the chunk.
+     * @return The index of the cell.
+     */
+    static int index(int localX, int localY) {
+        return localX * SIZE + localY;
+    }
+
+    public int getChunkX() {
+        return chunkX;
+    }
+
+    public int getChunkY() {
+        return chunkY;
+    }
+
+    /**
+     * @param index The index of the cell.
+     * @param bit   One of {@link PackedBoard#MINE}, {@link PackedBoard#UNCOVERED} or {@link PackedBoard#FLAGGED}.
+     * @return true if the bit is set.
+     */
+    boolean has(int index, int bit) {
+        return (cells[index] & bit) != 0;
+    }
+
+    /**
+     * Sets or clears a bit changed by the player, marking the chunk to be saved.
+     *
+     * @param index The index of the cell.
+     * @param bit   {@link PackedBoard#UNCOVERED} or {@link PackedBoard#FLAGGED}.
+     * @param value true to set the bit, false to clear it.
+     */
+    void set(int index, int bit, boolean value) {
+        if (has(index, bit) == value) {
+            return;
+        }
+        if (value) {
+            cells[index] |= (byte) bit;
+        } else {
+            cells[index] &= (byte) ~bit;
+        }
+        dirty = true;
+    }
+
+    /**
+     * Sets the generated part of a cell, its mine and number, without marking the chunk to be saved.
+     */
+    void setGenerated(int index, boolean mine, int adjacentMines) {
+        cells[index] = (byte) ((cells[index] & ~(PackedBoard.MINE | PackedBoard.NUMBER_MASK))
+                | (mine ? PackedBoard.MINE : 0) | adjacentMines);
+    }
+
+    /**
+     * @param index The index of the cell.
+     * @return The number of mines adjacent to the cell, across the chunk borders.
+     */
+    int getAdjacentMines(int index) {
+        return cells[index] & PackedBoard.NUMBER_MASK;
+    }
+
+    /**
+     * @param index The index of the cell.
+     * @return {@link CellType#MINE}, {@link CellType#NUMBER} or {@link CellType#EMPTY}.
+     */
+    CellType getType(int index) {
+        if (has(index, PackedBoard.MINE)) {
+            return CellType.MINE;
+        }
+        return getAdjacentMines(index) != 0 ? CellType.NUMBER : CellType.EMPTY;
+    }
+
+    boolean isDirty() {
+        return dirty;
+    }
+
+    void setDirty(boolean dirty) {
+        this.dirty = dirty;
+    }
+
+    /**
+     * Packs the uncovered and flagged bits of every cell, 4 cells per byte.
+     *
+     * @return The state of the chunk, {@link #STATE_BYTES} long.
+     */
+    byte[] packState() {
+        byte[] state = new byte[STATE_BYTES];
+        for (int i = 0; i < cells.length; i++) {
+            int bits = (has(i, PackedBoard.UNCOVERED) ? 1 : 0) | (has(i, PackedBoard.FLAGGED) ? 2 : 0);
+            state[i >> 2] |= (byte) (bits << ((i & 3) * 2));
+        }
+        return state;
+    }
+
+    /**
+     * Restores the uncovered and flagged bits packed by {@link #packState()}. The chunk is left clean.
+     *
+     * @param state The packed state.
+     */
+    void unpackState(byte[] state) {
+        for (int i = 0; i < cells.length; i++) {
+            int bits = state[i >> 2] >> ((i & 3) * 2);
+            set(i, PackedBoard.UNCOVERED, (bits & 1) != 0);
+            set(i, PackedBoard.FLAGGED, (bits & 2) != 0);
+        }
+        dirty = false;
+    }
+}
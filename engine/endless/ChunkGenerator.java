@@ -0,0 +1,102 @@
+package engine.endless;
+
+import java.util.SplittableRandom;
+
+/**
+ * Places the mines of an endless minefield, one chunk at a time.
+ *
+ * <p>The mines of a chunk only depend on a hash of the world seed and the chunk coordinates, so any chunk can be
+ * generated alone, in any order, and always comes out the same. The numbers on the edges of a chunk need the mines
+ * of the chunks around it, which are generated too but not kept.</p>
+ *
+ * <p>The 3x3 cells around the origin never hold a mine, so the game can always start there.</p>
+ */
+public class ChunkGenerator {
+    /** The number of mines in every chunk, about the density of the hard difficulty. */
+    public static final int MINES_PER_CHUNK = 640;
+
+    private final long worldSeed;
+
+    /**
+     * @param worldSeed The seed of the world.
+     */
+    public ChunkGenerator(long worldSeed) {
+        this.worldSeed = worldSeed;
+    }
+
+    /**
+     * Generates a chunk with its mines and numbers, every cell covered.
+     *
+     * @param chunkX The x-coordinate of the chunk, in chunks.
+     * @param chunkY The y-coordinate of the chunk, in chunks.
+     * @return The generated chunk.
+     */
+    public Chunk generate(int chunkX, int chunkY) {
+        // The mines of the chunk and of its 8 neighbours, indexed by [dx + 1][dy + 1]
+        long[][][] mines = new long[3][3][];
+        for (int dx = -1; dx <= 1; dx++) {
+            for (int dy = -1; dy <= 1; dy++) {
+                mines[dx + 1][dy + 1] = placeMines(chunkX + dx, chunkY + dy);
+            }
+        }
+        Chunk chunk = new Chunk(chunkX, chunkY);
+        for (int x = 0; x < Chunk.SIZE; x++) {
+            for (int y = 0; y < Chunk.SIZE; y++) {
+                int adjacent = 0;
+                for (int dx = -1; dx <= 1; dx++) {
+                    for (int dy = -1; dy <= 1; dy++) {
+                        if ((dx != 0 || dy != 0) && isMine(mines, x + dx, y + dy)) {
+                            adjacent++;
+                        }
+                    }
+                }
+                chunk.setGenerated(Chunk.index(x, y), isMine(mines, x, y), adjacent);
+            }
+        }
+        return chunk;
+    }
+
+    /**
+     * Checks a cell relative to the center chunk, which can be up to one cell outside of it.
+     */
+    private static boolean isMine(long[][][] mines, int x, int y) {
+        int chunkX = Math.floorDiv(x, Chunk.SIZE);
+        int chunkY = Math.floorDiv(y, Chunk.SIZE);
+        long[] columns = mines[chunkX + 1][chunkY + 1];
+        return (columns[Math.floorMod(x, Chunk.SIZE)] & (1L << Math.floorMod(y, Chunk.SIZE))) != 0;
+    }
+
+    /**
+     * Places the mines of a chunk.
+     *
+     * @return One long per column of the chunk, where bit y is set if the cell holds a mine.
+     */
+    private long[] placeMines(int chunkX, int chunkY) {
+        long[] columns = new long[Chunk.SIZE];
+        SplittableRandom random = new SplittableRandom(chunkSeed(chunkX, chunkY));
+        int placed = 0;
+        while (placed < MINES_PER_CHUNK) {
+            int x = random.nextInt(Chunk.SIZE);
+            int y = random.nextInt(Chunk.SIZE);
+            long worldX = (long) chunkX * Chunk.SIZE + x;
+            long worldY = (long) chunkY * Chunk.SIZE + y;
+            if ((columns[x] & (1L << y)) != 0 || (Math.abs(worldX) <= 1 && Math.abs(worldY) <= 1)) {
+                continue;
+            }
+            columns[x] |= 1L << y;
+            placed++;
+        }
+        return columns;
+    }
+
+    /**
+     * Mixes the world seed with the chunk coordinates, with the SplitMix64 finalizer so neighbouring chunks
+     * get unrelated seeds.
+     */
+    private long chunkSeed(int chunkX, int chunkY) {
+        long z = worldSeed + (((long) chunkX << 32) ^ (chunkY & 0xFFFFFFFFL)) * 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
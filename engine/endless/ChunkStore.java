@@ -0,0 +1,105 @@
+package engine.endless;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Comparator;
+import java.util.stream.Stream;
+
+/**
+ * Keeps the chunks of an endless world that don't fit in memory on disk.
+ *
+ * <p>Chunks are grouped in region files of 32x32 chunks. Every chunk has a fixed slot of {@link Chunk#STATE_BYTES}
+ * bytes in its region, so a chunk is saved or loaded with a single positional write or read. Slots that were never
+ * written read as zeros, a chunk nobody touched.</p>
+ */
+public class ChunkStore {
+    /** The width and height of a region file, in chunks. */
+    public static final int REGION_SIZE = 32;
+
+    private final Path directory;
+
+    /**
+     * @param directory The directory of the region files, created when the first chunk is saved.
+     */
+    public ChunkStore(Path directory) {
+        this.directory = directory;
+    }
+
+    /**
+     * Writes the state of a chunk to its slot.
+     *
+     * @param chunk The chunk to save.
+     * @throws IOException if the region file can't be written.
+     */
+    public void save(Chunk chunk) throws IOException {
+        Files.createDirectories(directory);
+        try (FileChannel channel = FileChannel.open(regionFile(chunk), StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+            ByteBuffer buffer = ByteBuffer.wrap(chunk.packState());
+            long position = slotOffset(chunk);
+            while (buffer.hasRemaining()) {
+                position += channel.write(buffer, position);
+            }
+        }
+        chunk.setDirty(false);
+    }
+
+    /**
+     * Reads the state of a chunk from its slot, if it was ever saved.
+     *
+     * @param chunk The chunk to fill, freshly generated.
+     * @return true if a saved state was found.
+     * @throws IOException if the region file can't be read.
+     */
+    public boolean load(Chunk chunk) throws IOException {
+        Path file = regionFile(chunk);
+        if (!Files.exists(file)) {
+            return false;
+        }
+        byte[] state = new byte[Chunk.STATE_BYTES];
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer buffer = ByteBuffer.wrap(state);
+            long position = slotOffset(chunk);
+            while (buffer.hasRemaining()) {
+                int read = channel.read(buffer, position);
+                if (read < 0) {
+                    // The rest of the slot is past the end of the file, so it's zeros
+                    break;
+                }
+                position += read;
+            }
+        }
+        chunk.unpackState(state);
+        return true;
+    }
+
+    /**
+     * Deletes every region file of the world.
+     *
+     * @throws IOException if a file can't be deleted.
+     */
+    public void delete() throws IOException {
+        if (!Files.exists(directory)) {
+            return;
+        }
+        try (Stream<Path> files = Files.walk(directory)) {
+            // Children before their directory
+            for (Path file : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(file);
+            }
+        }
+    }
+
+    private Path regionFile(Chunk chunk) {
+        return directory.resolve("r." + Math.floorDiv(chunk.getChunkX(), REGION_SIZE)
+                + "." + Math.floorDiv(chunk.getChunkY(), REGION_SIZE) + ".dat");
+    }
+
+    private static long slotOffset(Chunk chunk) {
+        int slot = Math.floorMod(chunk.getChunkX(), REGION_SIZE) * REGION_SIZE + Math.floorMod(chunk.getChunkY(), REGION_SIZE);
+        return (long) slot * Chunk.STATE_BYTES;
+    }
+}
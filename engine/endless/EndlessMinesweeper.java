@@ -0,0 +1,365 @@
+package engine.endless;
+
+import engine.utils.Cell;
+import engine.utils.CellListener;
+import engine.utils.CellType;
+import engine.utils.PackedBoard;
+import engine.utils.Tuple;
+import engine.utils.Utils;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A minefield without borders, split in chunks generated the first time they're looked at.
+ *
+ * <p>It plays like {@link engine.Minesweeper}: the same flood fill in 4 directions, uncovered mines count as
+ * flagged for the numbers around them and {@link #uncover(int, int)} returns the same result. Cells can have any
+ * coordinates, negative ones included. The game is never won, the score is the number of opened cells.</p>
+ *
+ * <p>Only the most recently used chunks are kept in memory. The others are written to a {@link ChunkStore} when
+ * they're evicted, and read back when they're needed again, so memory stays bounded however far the player
+ * explores. Chunks nobody changed are never written, they're just generated again.</p>
+ */
+public class EndlessMinesweeper {
+    /** The number of chunks kept in memory by default, 4 KB each. */
+    public static final int DEFAULT_LOADED_CHUNKS = 256;
+    // Left, right, up and down
+    private static final int[][] DIRECTIONS = {{-1, 0}, {1, 0}, {0, -1}, {0, 1}};
+
+    private final long worldSeed;
+    private final ChunkGenerator generator;
+    private final ChunkStore store;
+    private final Map<Long, Chunk> loaded;
+    private final List<CellListener> cellListeners = new ArrayList<>();
+    // The cells waiting to be expanded by the flood fill, packed with pack(x, y)
+    private long[] queue = new long[64];
+    private int openedCells = 0;
+    private int flaggedCells = 0;
+    private int uncoveredMines = 0;
+
+    /**
+     * @param worldSeed       The seed the chunks are generated from.
+     * @param storeDirectory  The directory the evicted chunks are written to.
+     * @param maxLoadedChunks The number of chunks kept in memory.
+     */
+    public EndlessMinesweeper(long worldSeed, Path storeDirectory, int maxLoadedChunks) {
+        this.worldSeed = worldSeed;
+        this.generator = new ChunkGenerator(worldSeed);
+        this.store = new ChunkStore(storeDirectory);
+        // In access order, the eldest entry is the least recently used chunk
+        this.loaded = new LinkedHashMap<>(maxLoadedChunks * 2, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, Chunk> eldest) {
+                if (size() <= maxLoadedChunks) {
+                    return false;
+                }
+                evict(eldest.getValue());
+                return true;
+            }
+        };
+    }
+
+    /**
+     * Returns the chunk holding a cell, generating it or reading it back from the store if it isn't loaded.
+     */
+    private Chunk chunkAt(int x, int y) {
+        int chunkX = Math.floorDiv(x, Chunk.SIZE);
+        int chunkY = Math.floorDiv(y, Chunk.SIZE);
+        long key = ((long) chunkX << 32) | (chunkY & 0xFFFFFFFFL);
+        Chunk chunk = loaded.get(key);
+        if (chunk == null) {
+            chunk = generator.generate(chunkX, chunkY);
+            try {
+                store.load(chunk);
+            } catch (IOException e) {
+                Utils.Debug(Utils.exceptionToString(e));
+            }
+            loaded.put(key, chunk);
+        }
+        return chunk;
+    }
+
+    private void evict(Chunk chunk) {
+        if (!chunk.isDirty()) {
+            return;
+        }
+        try {
+            store.save(chunk);
+        } catch (IOException e) {
+            // The changes of the player in this chunk are lost, the game goes on
+            Utils.Debug(Utils.exceptionToString(e));
+        }
+    }
+
+    private static int local(int x, int y) {
+        return Chunk.index(Math.floorMod(x, Chunk.SIZE), Math.floorMod(y, Chunk.SIZE));
+    }
+
+    private boolean has(int x, int y, int bit) {
+        return chunkAt(x, y).has(local(x, y), bit);
+    }
+
+    private void set(int x, int y, int bit, boolean value) {
+        chunkAt(x, y).set(local(x, y), bit, value);
+    }
+
+    /**
+     * Uncovers a cell and, if it's empty, the region around it.
+     *
+     * @param x The x-coordinate of the cell.
+     * @param y The y-coordinate of the cell.
+     * @return The type of the cell and a tuple of the number of opened cells and false, the game never ends.
+     *         The type is null if the cell is flagged.
+     * @see engine.Minesweeper#uncover(int, int)
+     */
+    public Tuple<CellType, Tuple<Integer, Boolean>> uncover(int x, int y) {
+        if (isFlagged(x, y)) {
+            return new Tuple<>(null, new Tuple<>(0, false));
+        }
+        CellType cellValue = chunkAt(x, y).getType(local(x, y));
+        if (isUncovered(x, y)) {
+            return new Tuple<>(cellValue, new Tuple<>(0, false));
+        }
+        if (cellValue == CellType.MINE) {
+            set(x, y, PackedBoard.UNCOVERED, true);
+            uncoveredMines++;
+            // Uncovered mines count as flagged for the numbers around them
+            notifyAround(x, y);
+            return new Tuple<>(cellValue, new Tuple<>(1, false));
+        }
+        int opened = fill(x, y);
+        openedCells += opened;
+        return new Tuple<>(cellValue, new Tuple<>(opened, false));
+    }
+
+    /**
+     * Chords a number: uncovers every covered and unflagged neighbour of an uncovered number that already has as
+     * many flags around it as its value.
+     *
+     * @param x The x-coordinate of the number.
+     * @param y The y-coordinate of the number.
+     * @return {@link CellType#MINE} if a mine was uncovered or the type of the chorded cell otherwise, and a tuple of
+     *         the number of opened cells and false. The type is null if the cell can't be chorded.
+     * @see engine.Minesweeper#chord(int, int)
+     */
+    public Tuple<CellType, Tuple<Integer, Boolean>> chord(int x, int y) {
+        int number = getVisibleNumber(x, y);
+        if (number <= 0 || getNumbersOfFlaggedCells(x, y) != number) {
+            return new Tuple<>(null, new Tuple<>(0, false));
+        }
+        CellType cellValue = chunkAt(x, y).getType(local(x, y));
+        int opened = 0;
+        for (int i = x - 1; i <= x + 1; i++) {
+            for (int j = y - 1; j <= y + 1; j++) {
+                if (!isUncovered(i, j) && !isFlagged(i, j)) {
+                    Tuple<CellType, Tuple<Integer, Boolean>> result = uncover(i, j);
+                    opened += result.second().first();
+                    if (result.first() == CellType.MINE) {
+                        cellValue = CellType.MINE;
+                    }
+                }
+            }
+        }
+        return new Tuple<>(cellValue, new Tuple<>(opened, false));
+    }
+
+    /**
+     * Opens a safe cell and the empty region around it, spreading in the 4 directions from empty cells.
+     *
+     * @return The number of opened cells.
+     */
+    private int fill(int x, int y) {
+        int count = 0;
+        set(x, y, PackedBoard.UNCOVERED, true);
+        queue[count++] = pack(x, y);
+        for (int head = 0; head < count; head++) {
+            int cellX = (int) (queue[head] >> 32);
+            int cellY = (int) queue[head];
+            notifyCell(cellX, cellY);
+            if (getVisibleNumber(cellX, cellY) != 0) {
+                // Only empty cells spread to their neighbours
+                continue;
+            }
+            for (int[] direction : DIRECTIONS) {
+                int nextX = cellX + direction[0];
+                int nextY = cellY + direction[1];
+                if (!has(nextX, nextY, PackedBoard.UNCOVERED) && !has(nextX, nextY, PackedBoard.MINE)
+                        && !has(nextX, nextY, PackedBoard.FLAGGED)) {
+                    set(nextX, nextY, PackedBoard.UNCOVERED, true);
+                    if (count == queue.length) {
+                        queue = Arrays.copyOf(queue, queue.length * 2);
+                    }
+                    queue[count++] = pack(nextX, nextY);
+                }
+            }
+        }
+        return count;
+    }
+
+    private static long pack(int x, int y) {
+        return ((long) x << 32) | (y & 0xFFFFFFFFL);
+    }
+
+    /**
+     * Puts or removes a flag on a covered cell.
+     *
+     * @param x The x-coordinate of the cell.
+     * @param y The y-coordinate of the cell.
+     */
+    public void toggleHighlightCell(int x, int y) {
+        if (isUncovered(x, y)) {
+            return;
+        }
+        boolean flagged = !isFlagged(x, y);
+        set(x, y, PackedBoard.FLAGGED, flagged);
+        flaggedCells += flagged ? 1 : -1;
+        notifyAround(x, y);
+    }
+
+    /**
+     * @param x The x-coordinate of the cell.
+     * @param y The y-coordinate of the cell.
+     * @return true if the cell is uncovered.
+     */
+    public boolean isUncovered(int x, int y) {
+        return has(x, y, PackedBoard.UNCOVERED);
+    }
+
+    /**
+     * @param x The x-coordinate of the cell.
+     * @param y The y-coordinate of the cell.
+     * @return true if the cell is flagged.
+     */
+    public boolean isFlagged(int x, int y) {
+        return has(x, y, PackedBoard.FLAGGED);
+    }
+
+    /**
+     * @param x The x-coordinate of the cell.
+     * @param y The y-coordinate of the cell.
+     * @return The number of adjacent mines if the cell is uncovered and isn't a mine, -1 otherwise.
+     */
+    public int getVisibleNumber(int x, int y) {
+        Chunk chunk = chunkAt(x, y);
+        int index = local(x, y);
+        if (!chunk.has(index, PackedBoard.UNCOVERED) || chunk.has(index, PackedBoard.MINE)) {
+            return -1;
+        }
+        return chunk.getAdjacentMines(index);
+    }
+
+    /**
+     * Counts the neighbours of a cell that are flagged or are uncovered mines.
+     *
+     * @param x The x-coordinate of the cell.
+     * @param y The y-coordinate of the cell.
+     * @return The number of flagged neighbours.
+     */
+    public int getNumbersOfFlaggedCells(int x, int y) {
+        int count = 0;
+        for (int i = x - 1; i <= x + 1; i++) {
+            for (int j = y - 1; j <= y + 1; j++) {
+                if ((i != x || j != y) && (isFlagged(i, j) || (isUncovered(i, j) && has(i, j, PackedBoard.MINE)))) {
+                    count++;
+                }
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Returns a view of a cell for the skins, hidden if the cell is covered.
+     *
+     * @param x     The x-coordinate of the cell.
+     * @param y     The y-coordinate of the cell.
+     * @param force true to see what a covered cell holds.
+     * @return The view of the cell.
+     */
+    public Cell getCell(int x, int y, boolean force) {
+        Chunk chunk = chunkAt(x, y);
+        int index = local(x, y);
+        if (chunk.has(index, PackedBoard.UNCOVERED) || force) {
+            return new Cell(chunk.getType(index), chunk.getAdjacentMines(index),
+                    chunk.has(index, PackedBoard.UNCOVERED), chunk.has(index, PackedBoard.FLAGGED));
+        }
+        return new Cell(CellType.HIDDEN);
+    }
+
+    public Cell getCell(int x, int y) {
+        return getCell(x, y, false);
+    }
+
+    /**
+     * @param listener Called for every cell that changes, on the thread that changed it.
+     */
+    public void addCellListener(CellListener listener) {
+        cellListeners.add(listener);
+    }
+
+    private void notifyCell(int x, int y) {
+        for (CellListener listener : cellListeners) {
+            listener.cellChanged(x, y);
+        }
+    }
+
+    /**
+     * Notifies the cell and its neighbours, whose count of flags around them changed with it.
+     */
+    private void notifyAround(int x, int y) {
+        for (int i = x - 1; i <= x + 1; i++) {
+            for (int j = y - 1; j <= y + 1; j++) {
+                notifyCell(i, j);
+            }
+        }
+    }
+
+    /**
+     * @return The number of safe cells opened, the score of the game.
+     */
+    public int getOpenedCells() {
+        return openedCells;
+    }
+
+    /**
+     * @return The number of flagged cells.
+     */
+    public int getFlaggedCells() {
+        return flaggedCells;
+    }
+
+    /**
+     * @return The number of mines the player has stepped on.
+     */
+    public int getUncoveredMineCount() {
+        return uncoveredMines;
+    }
+
+    /**
+     * @return The number of chunks in memory, never more than the limit given to the constructor.
+     */
+    public int getLoadedChunkCount() {
+        return loaded.size();
+    }
+
+    public long getWorldSeed() {
+        return worldSeed;
+    }
+
+    /**
+     * Forgets the world: the chunks in memory are dropped and the ones on disk are deleted.
+     */
+    public void close() {
+        loaded.clear();
+        try {
+            store.delete();
+        } catch (IOException e) {
+            Utils.Debug(Utils.exceptionToString(e));
+        }
+    }
+}
@@ -18,6 +18,8 @@ public class AbstractTerminalGUI implements ITerminalGUI {
     protected Screen screen;
     protected TextGraphics textGraphics;
     protected UIManager uiManager;
+    // Set by the GUIs with a loop, which then resize and draw from their own thread, see applyResize()
+    protected FrameScheduler scheduler;
     private TerminalResizeEventHandler terminalResizeEventHandler;
     protected boolean resizePaused = false;
 
@@ -49,9 +51,16 @@ public class AbstractTerminalGUI implements ITerminalGUI {
     }
 
     /**
-     * Resize method called in a separate thread to handle terminal resizing.
+     * Handles a resize of the terminal. The GUIs with a loop are only woken up, the resize is done by their loop
+     * in {@link #applyResize()}. The others are resized and drawn in a separate thread.
      */
     private void resize() {
+        if (scheduler != null) {
+            if (!resizePaused) {
+                scheduler.requestResize();
+            }
+            return;
+        }
         new Thread(() -> {
             try {
                 if (!resizePaused) {
@@ -79,6 +88,19 @@ public class AbstractTerminalGUI implements ITerminalGUI {
         }).start();
     }
 
+    /**
+     * Resizes the screen and calls {@link #onResize()} if the terminal has been resized since the last call.
+     * Called by the GUI loops before drawing a frame, from the loop thread.
+     */
+    protected void applyResize() {
+        if (!scheduler.takeResize()) {
+            return;
+        }
+        screen.clear();
+        screen.doResizeIfNecessary();
+        onResize();
+    }
+
     @Override
     public void onResize() {
         // Gets called when the window gets resized
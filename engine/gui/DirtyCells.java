@@ -0,0 +1,75 @@
+package engine.gui;
+
+import engine.utils.CellListener;
+
+import java.util.BitSet;
+
+/**
+ * Collects the cells of a minefield that changed since the last frame, so only those get repainted.
+ *
+ * <p>It listens to the minefield as a {@link CellListener}. A full repaint can be requested when the
+ * whole screen needs to be drawn again, for example after a resize or when a popup closes.
+ * The game loop and the resize thread both draw, so every method is synchronized.</p>
+ */
+public class DirtyCells implements CellListener {
+    private final int width;
+    private final int height;
+    // Dirty cells, indexed by x * height + y
+    private final BitSet dirty;
+    private boolean fullRepaint = true;
+
+    /**
+     * @param width  The width of the minefield.
+     * @param height The height of the minefield.
+     */
+    public DirtyCells(int width, int height) {
+        this.width = width;
+        this.height = height;
+        this.dirty = new BitSet(width * height);
+    }
+
+    @Override
+    public synchronized void cellChanged(int x, int y) {
+        if (x >= 0 && y >= 0 && x < width && y < height) {
+            dirty.set(x * height + y);
+        }
+    }
+
+    /**
+     * Requests that the next frame repaints everything.
+     */
+    public synchronized void requestFullRepaint() {
+        fullRepaint = true;
+    }
+
+    /**
+     * Checks whether the next frame must repaint everything, and clears the request.
+     * The dirty cells are cleared too, as a full repaint draws them anyway.
+     *
+     * @return true if everything must be repainted.
+     */
+    public synchronized boolean takeFullRepaint() {
+        boolean full = fullRepaint;
+        fullRepaint = false;
+        if (full) {
+            dirty.clear();
+        }
+        return full;
+    }
+
+    /**
+     * Hands every dirty cell to the painter and clears them.
+     *
+     * @param painter Called with the coordinates of every dirty cell.
+     * @return The number of cells handed to the painter.
+     */
+    public synchronized int drain(CellListener painter) {
+        int count = 0;
+        for (int i = dirty.nextSetBit(0); i >= 0; i = dirty.nextSetBit(i + 1)) {
+            painter.cellChanged(i / height, i % height);
+            count++;
+        }
+        dirty.clear();
+        return count;
+    }
+}
@@ -0,0 +1,193 @@
+package engine.gui;
+
+import com.googlecode.lanterna.input.KeyStroke;
+import com.googlecode.lanterna.screen.Screen;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Drives the loops of the GUIs, which sleep until there's something to do.
+ *
+ * <p>A GUI loop calls {@link #waitForEvent()}, which returns as soon as a key is pressed, a timer ticks, a frame
+ * is requested or the terminal is resized, and blocks otherwise. A resize is only recorded, the loop resizes the
+ * screen itself before its next frame, so nothing changes under a frame being drawn. Keys are read by a single input thread into a bounded
+ * queue, so keys typed while a frame is drawn are kept in order instead of overwriting each other; when the queue is
+ * full the input thread waits, leaving the keys in the terminal buffer.</p>
+ *
+ * <p>The input thread must be stopped while a popup is shown, as the popup reads the keys itself.
+ * A single scheduler is shared by all the GUIs, only one of them is in its loop at a time.</p>
+ */
+public class FrameScheduler {
+    /** Maximum number of keys waiting to be handled. */
+    public static final int KEY_QUEUE_CAPACITY = 64;
+    private static final long STOP_TIMEOUT_MILLIS = 100;
+
+    private final Screen screen;
+    private final ArrayDeque<KeyStroke> keys = new ArrayDeque<>();
+    private final ScheduledExecutorService ticker = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "Frame ticker");
+        // Never keep the program alive
+        thread.setDaemon(true);
+        return thread;
+    });
+    private ScheduledFuture<?> tick;
+    private boolean frameRequested = false;
+    private boolean resizeRequested = false;
+    // Incremented every time the input is stopped, so a reader that outlived its stop drops what it reads
+    private int generation = 0;
+    private Thread inputThread;
+
+    /**
+     * @param screen The screen the keys are read from.
+     */
+    public FrameScheduler(Screen screen) {
+        this.screen = screen;
+    }
+
+    /**
+     * Starts reading keys into the queue. Does nothing if the input thread is already running.
+     */
+    public synchronized void startInput() {
+        if (inputThread != null) {
+            return;
+        }
+        keys.clear();
+        int readerGeneration = generation;
+        inputThread = new Thread(() -> readKeys(readerGeneration), "Input reader");
+        inputThread.setDaemon(true);
+        inputThread.start();
+    }
+
+    /**
+     * Stops reading keys and waits for the input thread to finish. The keys that weren't handled are dropped.
+     *
+     * <p>Some terminals can't interrupt a blocking read; the thread is then left waiting for its last key,
+     * which is dropped, after a short wait.</p>
+     */
+    public void stopInput() {
+        Thread thread;
+        synchronized (this) {
+            thread = inputThread;
+            inputThread = null;
+            generation++;
+            keys.clear();
+            // Wake the input thread if it's waiting for room in the queue
+            notifyAll();
+        }
+        if (thread == null) {
+            return;
+        }
+        thread.interrupt();
+        try {
+            thread.join(STOP_TIMEOUT_MILLIS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void readKeys(int readerGeneration) {
+        while (isCurrent(readerGeneration)) {
+            try {
+                KeyStroke key = screen.readInput();
+                if (key != null) {
+                    offer(key, readerGeneration);
+                }
+            } catch (IOException ignore) {
+            } catch (InterruptedException e) {
+                return;
+            } catch (RuntimeException e) {
+                // Some terminals wrap the interrupt of stopInput() in a runtime exception
+                if (isCurrent(readerGeneration)) {
+                    throw e;
+                }
+                return;
+            }
+        }
+    }
+
+    private synchronized boolean isCurrent(int readerGeneration) {
+        return generation == readerGeneration;
+    }
+
+    private synchronized void offer(KeyStroke key, int readerGeneration) throws InterruptedException {
+        while (generation == readerGeneration && keys.size() >= KEY_QUEUE_CAPACITY) {
+            wait();
+        }
+        if (generation == readerGeneration) {
+            keys.add(key);
+            notifyAll();
+        }
+    }
+
+    /**
+     * Makes the loop wake up at a fixed rate, or stops the ticks.
+     *
+     * @param millis       The interval between two ticks, 0 to stop ticking.
+     * @param initialDelay The delay before the first tick, to align the ticks with a clock.
+     */
+    public synchronized void setTickInterval(long millis, long initialDelay) {
+        if (tick != null) {
+            tick.cancel(false);
+            tick = null;
+        }
+        if (millis > 0) {
+            tick = ticker.scheduleAtFixedRate(this::requestFrame, initialDelay, millis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Stops the ticks.
+     */
+    public void stopTicks() {
+        setTickInterval(0, 0);
+    }
+
+    /**
+     * Wakes the loop to draw a frame, several requests before the loop wakes make a single frame.
+     */
+    public synchronized void requestFrame() {
+        frameRequested = true;
+        notifyAll();
+    }
+
+    /**
+     * Wakes the loop after the terminal has been resized, several resizes before the loop wakes make a single one.
+     * The loop applies it with {@link #takeResize()}.
+     */
+    public synchronized void requestResize() {
+        resizeRequested = true;
+        requestFrame();
+    }
+
+    /**
+     * @return true if the terminal has been resized since the last call.
+     */
+    public synchronized boolean takeResize() {
+        boolean resized = resizeRequested;
+        resizeRequested = false;
+        return resized;
+    }
+
+    /**
+     * Sleeps until a key is pressed, a timer ticks or a frame is requested.
+     *
+     * @return The next key to handle, or null if the loop only needs to draw a frame.
+     * @throws InterruptedException if the thread is interrupted while waiting.
+     */
+    public synchronized KeyStroke waitForEvent() throws InterruptedException {
+        while (keys.isEmpty() && !frameRequested) {
+            wait();
+        }
+        // Every event is followed by a frame, so a pending request is handled too
+        frameRequested = false;
+        KeyStroke key = keys.poll();
+        // Wake the input thread if it's waiting for room in the queue
+        notifyAll();
+        return key;
+    }
+}
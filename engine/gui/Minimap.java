@@ -0,0 +1,127 @@
+package engine.gui;
+
+import engine.Minesweeper;
+import engine.utils.CellListener;
+
+import java.awt.*;
+import java.util.BitSet;
+
+/**
+ * A small map of a board bigger than the screen, showing how much of it is uncovered and where the visible window is.
+ *
+ * <p>The board is split in a fixed grid of blocks, one character each. The map listens to the minefield as a
+ * {@link CellListener} and keeps the number of uncovered cells of every block up to date, so drawing it never
+ * looks at the board itself.</p>
+ */
+public class Minimap implements CellListener {
+    /** The width of the map, in characters. */
+    public static final int WIDTH = 16;
+    /** The height of the map, in characters. */
+    public static final int HEIGHT = 8;
+    // From no uncovered cells to every cell of the block uncovered
+    private static final char[] SHADES = {' ', '\u2591', '\u2592', '\u2593', '\u2588'};
+
+    private final Minesweeper minesweeper;
+    private final int columns;
+    private final int rows;
+    private final int blockWidth;
+    private final int blockHeight;
+    // Uncovered cells of every block, indexed by column * rows + row
+    private final int[] uncovered;
+    // Cells counted as uncovered, indexed by x * height + y
+    private final BitSet counted;
+
+    /**
+     * @param minesweeper The minefield shown by the map.
+     */
+    public Minimap(Minesweeper minesweeper) {
+        this.minesweeper = minesweeper;
+        int width = minesweeper.getFieldWidth();
+        int height = minesweeper.getFieldHeight();
+        blockWidth = (width + WIDTH - 1) / WIDTH;
+        blockHeight = (height + HEIGHT - 1) / HEIGHT;
+        // Small sides don't use every column or row
+        columns = (width + blockWidth - 1) / blockWidth;
+        rows = (height + blockHeight - 1) / blockHeight;
+        uncovered = new int[columns * rows];
+        counted = new BitSet(width * height);
+        // A board can already be partly uncovered, only done once
+        for (int x = 0; x < width; x++) {
+            for (int y = 0; y < height; y++) {
+                cellChanged(x, y);
+            }
+        }
+    }
+
+    @Override
+    public synchronized void cellChanged(int x, int y) {
+        int width = minesweeper.getFieldWidth();
+        int height = minesweeper.getFieldHeight();
+        if (x < 0 || y < 0 || x >= width || y >= height) {
+            return;
+        }
+        int index = x * height + y;
+        boolean isUncovered = minesweeper.isUncovered(x, y);
+        if (isUncovered != counted.get(index)) {
+            counted.set(index, isUncovered);
+            uncovered[(x / blockWidth) * rows + y / blockHeight] += isUncovered ? 1 : -1;
+        }
+    }
+
+    /**
+     * @return The number of characters the map takes horizontally.
+     */
+    public int getColumns() {
+        return columns;
+    }
+
+    /**
+     * @return The number of characters the map takes vertically.
+     */
+    public int getRows() {
+        return rows;
+    }
+
+    /**
+     * Gets the character of a block, shaded by how much of it is uncovered.
+     *
+     * @param column The column of the block.
+     * @param row    The row of the block.
+     * @return The character of the block.
+     */
+    public synchronized char getShade(int column, int row) {
+        int cells = blockSize(column, blockWidth, minesweeper.getFieldWidth())
+                * blockSize(row, blockHeight, minesweeper.getFieldHeight());
+        int count = uncovered[column * rows + row];
+        if (count == 0 || cells == 0) {
+            return SHADES[0];
+        }
+        // Any uncovered cell shows, only a fully uncovered block is solid
+        return SHADES[Math.max(1, Math.min(SHADES.length - 1, count * (SHADES.length - 1) / cells))];
+    }
+
+    /**
+     * Checks whether a block overlaps some cells.
+     *
+     * @param column The column of the block.
+     * @param row    The row of the block.
+     * @param cells  The cells, in board coordinates.
+     * @return true if at least one cell of the block is part of the cells.
+     */
+    public boolean overlaps(int column, int row, Rectangle cells) {
+        return new Rectangle(column * blockWidth, row * blockHeight, blockWidth, blockHeight).intersects(cells);
+    }
+
+    /**
+     * @param x The x-coordinate of a cell.
+     * @param y The y-coordinate of a cell.
+     * @return The column and the row of the block containing the cell.
+     */
+    public Point getBlock(int x, int y) {
+        return new Point(x / blockWidth, y / blockHeight);
+    }
+
+    private static int blockSize(int block, int blockLength, int fieldLength) {
+        return Math.max(0, Math.min(blockLength, fieldLength - block * blockLength));
+    }
+}
@@ -20,8 +20,8 @@ public class AboutGUI extends AbstractTerminalGUI implements ITerminalGUI {
     private final long startTime = System.currentTimeMillis();
     private final boolean[] rgbEnabled = new boolean[]{true};
     private static final String GUI_TITLE = "About";
-    private static final int SMALL_SLEEP = 30;
-    private static final int LONG_SLEEP = 200;
+    // RGB needs a higher frame-rate; a static text is only drawn again on input or resize
+    private static final int RGB_FRAME_MILLIS = 30;
 
     /**
      * Constructor for the AboutGUI.
@@ -33,49 +33,58 @@ public class AboutGUI extends AbstractTerminalGUI implements ITerminalGUI {
         this.screen = uiManager.getScreen();
         this.textGraphics = uiManager.getTextGraphics();
         this.uiManager = uiManager;
+        this.scheduler = uiManager.getScheduler();
     }
 
     @Override
     public void show() throws IOException {
         super.show();
-        boolean[] running = new boolean[]{true};
+        boolean running = true;
 
         screen.clear();
         Utils.hideCursor(0, 0, textGraphics);
 
-        // Background thread for handling user input during the display
-        new Thread(() -> {
-            while (running[0]) {
-                KeyStroke choice = null;
-                try {
-                    choice = screen.readInput();
-                } catch (IOException ignored) {}
-
-                if (choice != null) {
-                    // Terminate the loop on EOF or Escape key press
-                    if (choice.getKeyType() == KeyType.EOF || choice.getKeyType() == KeyType.Escape) {
-                        running[0] = false;
-                    } else if (choice.getKeyType() == KeyType.Tab) {
-                        // Toggle RGB mode on Tab key press
-                        rgbEnabled[0] = !rgbEnabled[0];
-                    }
-                }
+        scheduler.startInput();
+        updateFrameRate();
+        while (running) {
+            // Draw the GUI, at the new size if the terminal was resized
+            applyResize();
+            draw();
+            KeyStroke choice;
+            try {
+                choice = scheduler.waitForEvent();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
             }
-        }).start();
 
-        while (running[0]) {
-            // Draw the GUI
-            draw();
-            // RGB needs a higher frame-rate; a static text doesn't need lots of updates
-            if (rgbEnabled[0]){
-                Utils.waitFor(SMALL_SLEEP);
-            } else {
-                Utils.waitFor(LONG_SLEEP);
+            if (choice != null) {
+                // Terminate the loop on EOF or Escape key press
+                if (choice.getKeyType() == KeyType.EOF || choice.getKeyType() == KeyType.Escape) {
+                    running = false;
+                } else if (choice.getKeyType() == KeyType.Tab) {
+                    // Toggle RGB mode on Tab key press
+                    rgbEnabled[0] = !rgbEnabled[0];
+                    updateFrameRate();
+                }
             }
         }
+        scheduler.stopTicks();
+        scheduler.stopInput();
         onClose();
     }
 
+    /**
+     * Animates the text while RGB is enabled, otherwise only draws on input or resize.
+     */
+    private void updateFrameRate() {
+        if (rgbEnabled[0]) {
+            scheduler.setTickInterval(RGB_FRAME_MILLIS, 0);
+        } else {
+            scheduler.stopTicks();
+        }
+    }
+
     @Override
     public void onClose() {
         super.onClose();
@@ -0,0 +1,260 @@
+package engine.gui.impl;
+
+import com.googlecode.lanterna.TerminalPosition;
+import com.googlecode.lanterna.TerminalSize;
+import com.googlecode.lanterna.TextColor;
+import com.googlecode.lanterna.input.KeyStroke;
+import engine.UIManager;
+import engine.endless.EndlessMinesweeper;
+import engine.gui.AbstractTerminalGUI;
+import engine.gui.DirtyCells;
+import engine.gui.ITerminalGUI;
+import engine.themes.IGameTheme;
+import engine.utils.Cell;
+import engine.utils.CellType;
+import engine.utils.Constants;
+import engine.utils.Tuple;
+import engine.utils.Utils;
+import engine.utils.Viewport;
+
+import java.awt.*;
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * GUI implementation for the endless mode, a minefield without borders.
+ *
+ * <p>The cursor starts in the middle of the world, where the first cells are always safe, and the screen scrolls
+ * to follow it. Stepping on a mine ends the game, the score is the number of opened cells. Endless games don't
+ * count towards the leaderboard.</p>
+ */
+public class EndlessGUI extends AbstractTerminalGUI implements ITerminalGUI {
+    private EndlessMinesweeper minesweeper;
+    private Viewport viewport;
+    private IGameTheme gameTheme;
+    private DirtyCells dirtyCells;
+    // The first visible cell, to translate world coordinates into dirty cells of the window
+    private int visibleLeft;
+    private int visibleTop;
+    private final int[] truePos = new int[] {0, 0};
+    private boolean running = true;
+    private boolean playAgain = false;
+    // The text of every sidebar line, as it was last drawn
+    private final Map<Integer, String> drawnLines = new HashMap<>();
+
+    /**
+     * Constructor for the EndlessGUI.
+     *
+     * @param uiManager The UIManager giving access to the terminal and screen.
+     */
+    public EndlessGUI(UIManager uiManager) {
+        super(uiManager.getTerminal());
+        this.uiManager = uiManager;
+        this.screen = uiManager.getScreen();
+        this.scheduler = uiManager.getScheduler();
+        this.textGraphics = uiManager.getTextGraphics();
+    }
+
+    @Override
+    public void show() throws IOException {
+        super.show();
+        screen.clear();
+        TerminalSize goalSize = Viewport.getRequiredSize(Viewport.MIN_VISIBLE_CELLS, Viewport.MIN_VISIBLE_CELLS);
+        if (goalSize.getColumns() > getScreenWidth() || goalSize.getRows() > getScreenHeight()) {
+            uiManager.waitForTerminalResize(
+                    "Current size: %sx%s\nRequired size: " + goalSize.getColumns() + "x" + goalSize.getRows() + "\nThe terminal is too small to play endless mode.\nPlease resize your terminal.",
+                    goalSize
+            );
+        }
+        // Every game is a new world, whose chunks are spilled to its own directory
+        long worldSeed = ThreadLocalRandom.current().nextLong();
+        minesweeper = new EndlessMinesweeper(worldSeed, Paths.get(Constants.endlessDir, Long.toHexString(worldSeed)),
+                EndlessMinesweeper.DEFAULT_LOADED_CHUNKS);
+        viewport = Viewport.unbounded(uiManager.getOptions().getScrollMargin(), uiManager.terminalResizeEventHandler.getLastKnownSize());
+        viewport.centerOn(0, 0);
+        resetDirtyCells();
+        minesweeper.addCellListener((x, y) -> dirtyCells.cellChanged(x - visibleLeft, y - visibleTop));
+        gameTheme = uiManager.getTheme();
+
+        scheduler.startInput();
+        while (running) {
+            applyResize();
+            draw();
+            KeyStroke choice;
+            try {
+                choice = scheduler.waitForEvent();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+            if (choice == null) {
+                continue;
+            }
+            switch (choice.getKeyType()) {
+                case ArrowUp -> moveCursor(0, -1);
+                case ArrowDown -> moveCursor(0, 1);
+                case ArrowLeft -> moveCursor(-1, 0);
+                case ArrowRight -> moveCursor(1, 0);
+                case Character -> {
+                    if (choice.getCharacter().toString().equalsIgnoreCase("f")) {
+                        minesweeper.toggleHighlightCell(truePos[0], truePos[1]);
+                    } else if (choice.getCharacter() == ' ') {
+                        handleUncoverResult(minesweeper.chord(truePos[0], truePos[1]));
+                    }
+                }
+                case Enter -> handleUncoverResult(minesweeper.uncover(truePos[0], truePos[1]));
+                case EOF, Escape -> running = false;
+            }
+        }
+        scheduler.stopInput();
+        onClose();
+    }
+
+    @Override
+    public void onClose() {
+        super.onClose();
+        // The world can't be resumed, its chunks on disk are deleted
+        minesweeper.close();
+        screen.setCursorPosition(new TerminalPosition(0, 0));
+        screen.clear();
+    }
+
+    boolean playAgain() {
+        return playAgain;
+    }
+
+    @Override
+    public void onResize() {
+        super.onResize();
+        viewport.resize(uiManager.terminalResizeEventHandler.getLastKnownSize());
+        viewport.follow(truePos[0], truePos[1]);
+        resetDirtyCells();
+    }
+
+    /**
+     * Tracks the dirty cells of the visible window only, and asks for a full repaint.
+     * Called whenever the window moves or changes size.
+     */
+    private void resetDirtyCells() {
+        Rectangle visible = viewport.getVisibleCells();
+        visibleLeft = visible.x;
+        visibleTop = visible.y;
+        dirtyCells = new DirtyCells(visible.width, visible.height);
+    }
+
+    private int getScreenWidth() {
+        return uiManager.terminalResizeEventHandler.getLastKnownSize().getColumns();
+    }
+
+    private int getScreenHeight() {
+        return uiManager.terminalResizeEventHandler.getLastKnownSize().getRows();
+    }
+
+    private void moveCursor(int deltaX, int deltaY) {
+        truePos[0] += deltaX;
+        truePos[1] += deltaY;
+        if (viewport.follow(truePos[0], truePos[1])) {
+            resetDirtyCells();
+        }
+    }
+
+    /**
+     * Ends the game if an uncover or a chord has just stepped on a mine.
+     */
+    private void handleUncoverResult(Tuple<CellType, Tuple<Integer, Boolean>> minedTile) {
+        if (minedTile.first() == CellType.MINE && minedTile.second().first() > 0) {
+            // Draw the mine before the popup covers the screen
+            try {
+                draw();
+            } catch (IOException ignore) {
+            }
+            scheduler.stopInput();
+            uiManager.showGameEndPopup(String.format(Constants.lossMessage, minesweeper.getOpenedCells()),
+                    () -> playAgain = true, false, 0);
+            running = false;
+        }
+    }
+
+    @Override
+    public void draw() throws IOException {
+        boolean changed = dirtyCells.takeFullRepaint();
+        if (changed) {
+            super.draw();
+            String title = "Minesweeper - Endless";
+            textGraphics.putString(getScreenWidth() / 2 - title.length() / 2, 0, title);
+            uiManager.applyThemeColors(textGraphics);
+            textGraphics.putString(0, getScreenHeight() - 1, "Press 'F' to flag a mine or 'Escape' to exit");
+            Rectangle bounds = viewport.getScreenBounds();
+            Utils.drawRect(bounds.x - 1, bounds.y - 1, bounds.width + 2, bounds.height + 2, textGraphics);
+            drawnLines.clear();
+            Rectangle visible = viewport.getVisibleCells();
+            for (int col = visible.x; col < visible.x + visible.width; col++) {
+                for (int row = visible.y; row < visible.y + visible.height; row++) {
+                    drawCell(col, row);
+                }
+            }
+        } else {
+            changed = dirtyCells.drain((x, y) -> drawCell(x + visibleLeft, y + visibleTop)) > 0;
+        }
+        uiManager.applyThemeColors(textGraphics);
+        String score = String.valueOf(minesweeper.getOpenedCells());
+        changed |= drawLine(1, "Score: " + score, () -> Utils.displaySidebarMessage(textGraphics, 1, "Score: %s", score));
+        String flags = String.valueOf(minesweeper.getFlaggedCells());
+        changed |= drawLine(2, "Flags: " + flags, () -> Utils.displaySidebarMessage(textGraphics, 2, "Flags: %s", flags));
+        String position = truePos[0] + ", " + truePos[1];
+        changed |= drawLine(3, "Position: " + position, () -> Utils.displaySidebarMessage(textGraphics, 3, "Position: %s", position));
+        TerminalPosition cursor = new TerminalPosition(viewport.toScreenX(truePos[0]), viewport.toScreenY(truePos[1]));
+        if (!cursor.equals(screen.getCursorPosition())) {
+            screen.setCursorPosition(cursor);
+            changed = true;
+        }
+        if (changed) {
+            screen.refresh();
+        }
+    }
+
+    /**
+     * Draws a sidebar line, only if its text changed since it was last drawn.
+     */
+    private boolean drawLine(int line, String text, Runnable painter) {
+        if (text.equals(drawnLines.get(line))) {
+            return false;
+        }
+        drawnLines.put(line, text);
+        painter.run();
+        return true;
+    }
+
+    /**
+     * Draws a single cell of the world with its colors, if it's visible.
+     *
+     * @param col The x-coordinate of the cell.
+     * @param row The y-coordinate of the cell.
+     */
+    private void drawCell(int col, int row) {
+        if (!viewport.isVisible(col, row)) {
+            return;
+        }
+        textGraphics.setForegroundColor(gameTheme.getMinefieldFore());
+        textGraphics.setBackgroundColor(gameTheme.getMinefieldBack());
+        Cell cell = minesweeper.getCell(col, row);
+        String cellContent = String.valueOf(cell.getChar());
+
+        if (minesweeper.isFlagged(col, row)) {
+            textGraphics.setForegroundColor(Constants.cellHighlightColor);
+            cellContent = String.valueOf(minesweeper.getCell(col, row, true).getChar());
+        } else if (minesweeper.isUncovered(col, row) && cell.type == CellType.NUMBER) {
+            int number = cell.getNumber();
+            boolean grayOut = number == minesweeper.getNumbersOfFlaggedCells(col, row) && uiManager.getOptions().isGrayOutNearbyCells();
+            textGraphics.setForegroundColor(gameTheme.getWarningColor(number, grayOut));
+        }
+        if (cell.type == CellType.MINE) {
+            textGraphics.setForegroundColor(Constants.dangerColor);
+        }
+        textGraphics.putString(viewport.toScreenX(col), viewport.toScreenY(row), cellContent);
+        textGraphics.setForegroundColor(TextColor.ANSI.DEFAULT);
+    }
+}
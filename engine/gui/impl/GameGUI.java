@@ -15,16 +15,24 @@ import engine.Leaderboard;
 import engine.Minesweeper;
 import engine.UIManager;
 import engine.gui.AbstractTerminalGUI;
+import engine.gui.DirtyCells;
+import engine.gui.FrameScheduler;
 import engine.gui.ITerminalGUI;
+import engine.gui.Minimap;
+import engine.replay.MoveLog;
+import engine.replay.MoveType;
 import engine.themes.IGameTheme;
 import engine.utils.*;
 
 import java.awt.*;
 import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.Objects;
-import java.util.concurrent.Executors;
-import java.util.concurrent.ScheduledExecutorService;
-import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
 import java.util.concurrent.TimeUnit;
 
 /**
@@ -34,15 +42,38 @@ public class GameGUI extends AbstractTerminalGUI implements ITerminalGUI {
     private final Terminal terminal;
     private final Panel mainPanel;
     private final MultiWindowTextGUI gui;
-    private ScheduledExecutorService timer;
+    // The timer blinks its colon every half second
+    private static final long TIMER_TICK_MILLIS = 500;
+    // No-guess boards are searched on a thread of their own, so the game keeps drawing
+    private static final Executor BOARD_SEARCH = runnable -> {
+        Thread thread = new Thread(runnable, "Board search");
+        // Never keep the program alive
+        thread.setDaemon(true);
+        thread.start();
+    };
     private long startTime;
     private boolean playAgain = false;
     private final MinesweeperDifficulty difficulty;
     private final String username;
+    // The game to resume, null for a new game
+    private final GameSave save;
     private GameInstance gameInstance;
     private Minesweeper minesweeper;
+    // Every move of the player, kept with the save when the game is saved, null for a game saved without it
+    private MoveLog moveLog;
+    private long moveLogStart;
+    // The game has been saved to be resumed, its moves are written when it ends
+    private boolean saved = false;
+    // The search of the no-guess board started by the first click, null when no search is running
+    private CompletableFuture<GameSeed> boardSearch;
+    // The time the timer was paused at for the search
+    private long boardSearchStart;
     private IGameTheme gameTheme;
-    private InputHandler inputHandler;
+    private DirtyCells dirtyCells;
+    private Minimap minimap;
+    private boolean minimapShown = true;
+    // The text of every sidebar and status line, as it was last drawn
+    private final Map<Integer, String> drawnLines = new HashMap<>();
 
     /**
      * Constructor for the GameGUI.
@@ -55,12 +86,34 @@ public class GameGUI extends AbstractTerminalGUI implements ITerminalGUI {
         super(uiManager.getTerminal());
         this.uiManager = uiManager;
         this.screen = uiManager.getScreen();
+        this.scheduler = uiManager.getScheduler();
         this.textGraphics = uiManager.getTextGraphics();
         this.terminal = uiManager.getTerminal();
         this.mainPanel = uiManager.getMainPanel();
         this.gui = uiManager.getGui();
         this.difficulty = difficulty;
         this.username = username;
+        this.save = null;
+    }
+
+    /**
+     * Constructor for a GameGUI resuming a saved game.
+     *
+     * @param uiManager The UIManager giving access to the terminal and screen.
+     * @param save      The saved game.
+     */
+    public GameGUI(UIManager uiManager, GameSave save) {
+        super(uiManager.getTerminal());
+        this.uiManager = uiManager;
+        this.screen = uiManager.getScreen();
+        this.scheduler = uiManager.getScheduler();
+        this.textGraphics = uiManager.getTextGraphics();
+        this.terminal = uiManager.getTerminal();
+        this.mainPanel = uiManager.getMainPanel();
+        this.gui = uiManager.getGui();
+        this.difficulty = save.getDifficulty();
+        this.username = save.getUsername();
+        this.save = save;
     }
 
     @Override
@@ -73,7 +126,11 @@ public class GameGUI extends AbstractTerminalGUI implements ITerminalGUI {
         // Prepare game
         // Get the information for the difficulty
         Tuple<Integer, Tuple<Integer, Integer>> difficultyInfo;
-        if (difficulty == MinesweeperDifficulty.CUSTOM){
+        if (save != null){
+            // The size was chosen when the game started
+            difficultyInfo = save.getDifficultyInfo();
+        }
+        else if (difficulty == MinesweeperDifficulty.CUSTOM){
             // The user has selected a custom difficulty,
             // ask if it wants to continue as this won't count towards the leaderboard
             if (showCustomDifficultyWarning()){
@@ -92,37 +149,53 @@ public class GameGUI extends AbstractTerminalGUI implements ITerminalGUI {
         }
         else{
             difficultyInfo = Utils.getDifficultyInfo(difficulty);
-            if (difficultyInfo.second().first()*2+4 > terminal.getTerminalSize().getColumns() || difficultyInfo.second().second()+5 > terminal.getTerminalSize().getRows()){
-                // Check if the terminal window is big enough to create a game of that size
-                uiManager.waitForTerminalResize(
-                        "Current size: %sx%s\nRequired size: " + (difficultyInfo.second().first()*2 + 4) + "x" + (difficultyInfo.second().second() + 5)+"\nThe terminal is too small to create a game with the specified size.\nPlease resize your terminal.",
-                        new TerminalSize(difficultyInfo.second().first()*2+4, difficultyInfo.second().second()+5)
-                );
-            }
+        }
+        // Boards bigger than the terminal scroll, but a few cells must be visible
+        TerminalSize goalSize = Viewport.getRequiredSize(difficultyInfo.second().first(), difficultyInfo.second().second());
+        if (goalSize.getColumns() > terminal.getTerminalSize().getColumns() || goalSize.getRows() > terminal.getTerminalSize().getRows()){
+            // Check if the terminal window is big enough to create a game of that size
+            uiManager.waitForTerminalResize(
+                    "Current size: %sx%s\nRequired size: " + goalSize.getColumns() + "x" + goalSize.getRows()+"\nThe terminal is too small to create a game with the specified size.\nPlease resize your terminal.",
+                    goalSize
+            );
         }
         // Prepare game
-        gameInstance = new GameInstance(screen, difficulty, difficultyInfo, username);
+        gameInstance = save != null ? new GameInstance(screen, save) : new GameInstance(screen, difficulty, difficultyInfo, username);
         minesweeper = gameInstance.getMinesweeper();
+        if (save == null) {
+            moveLog = new MoveLog(difficulty, minesweeper.getFieldWidth(), minesweeper.getFieldHeight(), difficultyInfo.first());
+            moveLogStart = System.currentTimeMillis();
+        } else if (save.getMoveLog() != null) {
+            // The log goes on from the time it was saved at, the time spent saved isn't recorded
+            moveLog = save.getMoveLog();
+            moveLogStart = System.currentTimeMillis() - moveLog.getLastTime();
+            recordMove(MoveType.RESUME);
+        }
+        dirtyCells = new DirtyCells(minesweeper.getFieldWidth(), minesweeper.getFieldHeight());
+        minesweeper.addCellListener(dirtyCells);
+        minimap = new Minimap(minesweeper);
+        minesweeper.addCellListener(minimap);
+        gameInstance.getViewport().setMargin(uiManager.getOptions().getScrollMargin());
         gameTheme = uiManager.getTheme();
-        inputHandler = new InputHandler(screen);
-        // Start timer
-        startTime = System.currentTimeMillis();
-        timer = Executors.newSingleThreadScheduledExecutor();
-        
-        inputHandler.startThread();
+        // Start timer, a resumed game goes on from the time it was saved at
+        startTime = System.currentTimeMillis() - (save != null ? save.getElapsedMillis() : 0);
+        startTimer();
+
+        scheduler.startInput();
         while (gameInstance.isRunning()) {
+            applyResize();
             draw();
-            TerminalSize goalSize = new TerminalSize(difficultyInfo.second().first()*2 + 22, difficultyInfo.second().second() + 5);
-            if (goalSize.getColumns() > getTerminalWidth() || goalSize.getRows() > getTerminalHeight()){
+            // The timer is already paused while the board is searched
+            if (boardSearch == null && (goalSize.getColumns() > getTerminalWidth() || goalSize.getRows() > getTerminalHeight())){
                 // If the terminal is too small, we need to ask the user to make it bigger to continue to play
                 long sysTime = pauseTimer();
                 resizePaused = true;
-                inputHandler.stopThread();
+                scheduler.stopInput();
                 uiManager.waitForTerminalResize(
                         "Current size: %sx%s\nRequired size: " + goalSize.getColumns() + "x" + goalSize.getRows()+"\nThe terminal is too small to play a game with the specified size.\nPlease resize your terminal.",
                         new TerminalSize(goalSize.getColumns(), goalSize.getRows())
                 );
-                inputHandler.startThread();
+                scheduler.startInput();
                 resizePaused = false;
                 resumeTimer(sysTime);
                 // The screen got resized, but the resize listener was paused,
@@ -131,35 +204,60 @@ public class GameGUI extends AbstractTerminalGUI implements ITerminalGUI {
             }
 
 
-            KeyStroke choice = inputHandler.handleInput();
-            if (choice != null){
-                Rectangle bounds = gameInstance.getGameBounds();
+            // Sleep until a key is pressed, the timer ticks or the terminal is resized
+            KeyStroke choice;
+            try {
+                choice = scheduler.waitForEvent();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+            if (boardSearch != null) {
+                // Keys are dropped while the board is searched, the cursor stays on the first click
+                if (choice != null && choice.getKeyType() == KeyType.EOF) {
+                    handleEOFOrEscape(choice, gameInstance);
+                    continue;
+                }
+                if (!boardSearch.isDone()) {
+                    continue;
+                }
+                finishBoardSearch();
+            } else if (choice != null) {
                 switch (choice.getKeyType()) {
                     // Handle arrow movement
-                    case ArrowUp -> handleArrowMovement(gameInstance, bounds, -1, 0);
-                    case ArrowDown -> handleArrowMovement(gameInstance, bounds, 1, 0);
-                    case ArrowLeft -> handleArrowMovement(gameInstance, bounds, 0, -2);
-                    case ArrowRight -> handleArrowMovement(gameInstance, bounds, 0, 2);
+                    case ArrowUp -> handleArrowMovement(gameInstance, 0, -1);
+                    case ArrowDown -> handleArrowMovement(gameInstance, 0, 1);
+                    case ArrowLeft -> handleArrowMovement(gameInstance, -1, 0);
+                    case ArrowRight -> handleArrowMovement(gameInstance, 1, 0);
                     case Character -> handleKeypress(choice, minesweeper, gameInstance);
-                    case Enter -> handleEnter(minesweeper, gameInstance);
+                    case Enter -> {
+                        if (gameInstance.needsBoard()) {
+                            // No-guess boards are only built on the first click
+                            startBoardSearch();
+                        } else {
+                            recordMove(MoveType.UNCOVER);
+                            handleEnter(minesweeper, gameInstance);
+                        }
+                    }
                     case EOF, Escape -> handleEOFOrEscape(choice, gameInstance);
                 }
-                // After processing witch move to make let's check if the game ended
-                gameInstance.setGameStage(minesweeper.getGameStage());
+            } else {
+                continue;
+            }
+            // After processing witch move to make let's check if the game ended
+            gameInstance.setGameStage(minesweeper.getGameStage());
 
-                if (gameInstance.getGameStage() == GameStage.WON){
-                    inputHandler.stopThread();
-                    showGameWonMessage(gameInstance, gameInstance.getUsername(), gameInstance.getDifficulty());
-                    inputHandler.startThread();
-                }
-                // If the user wants to play again, then the game has ended
-                if (gameInstance.isGameEnded()){
-                    // Stop the game
-                    gameInstance.setRunning(false);
-                    break;
-                }
+            if (gameInstance.getGameStage() == GameStage.WON){
+                scheduler.stopInput();
+                showGameWonMessage(gameInstance, gameInstance.getUsername(), gameInstance.getDifficulty());
+                scheduler.startInput();
+            }
+            // If the user wants to play again, then the game has ended
+            if (gameInstance.isGameEnded()){
+                // Stop the game
+                gameInstance.setRunning(false);
+                break;
             }
-            Utils.waitFor(10);
         }
         onClose();
     }
@@ -172,8 +270,81 @@ public class GameGUI extends AbstractTerminalGUI implements ITerminalGUI {
         // Clear screen
         screen.setCursorPosition(new TerminalPosition(0, 0));
         screen.clear();
-        inputHandler.stopThread();
+        scheduler.stopInput();
         playAgain = gameInstance.getPlayAgain();
+        if (boardSearch != null) {
+            gameInstance.cancelBoardSearch();
+            boardSearch = null;
+        }
+        saveMoveLog();
+    }
+
+    /**
+     * Starts searching the no-guess board for the cell under the cursor. The timer is paused until it's found.
+     */
+    private void startBoardSearch() {
+        int firstX = gameInstance.getTruePos()[0];
+        int firstY = gameInstance.getTruePos()[1];
+        stopTimer();
+        boardSearchStart = pauseTimer();
+        boardSearch = CompletableFuture.supplyAsync(() -> gameInstance.findBoard(firstX, firstY), BOARD_SEARCH);
+        // Wake the loop when the board is found
+        boardSearch.whenComplete((gameSeed, e) -> scheduler.requestFrame());
+    }
+
+    /**
+     * Puts the board found in the game and uncovers the first click on it.
+     */
+    private void finishBoardSearch() {
+        GameSeed gameSeed;
+        try {
+            gameSeed = boardSearch.join();
+        } catch (CompletionException e) {
+            Utils.Debug(Utils.exceptionToString(e));
+            gameSeed = null;
+        }
+        boardSearch = null;
+        gameInstance.setBoard(gameInstance.getTruePos()[0], gameInstance.getTruePos()[1], gameSeed);
+        minesweeper = gameInstance.getMinesweeper();
+        minesweeper.addCellListener(dirtyCells);
+        minimap = new Minimap(minesweeper);
+        minesweeper.addCellListener(minimap);
+        // Every cell is drawn from the new board
+        dirtyCells.requestFullRepaint();
+        resumeTimer(boardSearchStart);
+        recordMove(MoveType.UNCOVER);
+        handleEnter(minesweeper, gameInstance);
+    }
+
+    /**
+     * Records a move of the player at the position of the cursor.
+     */
+    private void recordMove(MoveType type) {
+        if (moveLog != null) {
+            moveLog.record(type, gameInstance.getTruePos()[0], gameInstance.getTruePos()[1],
+                    System.currentTimeMillis() - moveLogStart);
+        }
+    }
+
+    /**
+     * Writes the moves of the game next to the other replays, named after the seed of the board,
+     * so the game can be replayed with {@link engine.replay.Replay}. Only the last {@link Constants#maxReplays}
+     * logs are kept.
+     */
+    private void saveMoveLog() {
+        GameSeed gameSeed = gameInstance.getMinesweeper().getGameSeed();
+        if (moveLog == null || gameSeed == null || saved) {
+            // No cell was uncovered, there's nothing to replay, or the log went in the save
+            return;
+        }
+        moveLog.setGameSeed(gameSeed);
+        try {
+            moveLog.write(Paths.get(Constants.replaysDir, String.format("%016x-%d", gameSeed.seed(), moveLogStart) + MoveLog.EXTENSION));
+            MoveLog.deleteOldLogs(Paths.get(Constants.replaysDir), Constants.maxReplays);
+        } catch (IOException e) {
+            Utils.Debug(Utils.exceptionToString(e));
+        }
+        moveLog = null;
     }
 
     boolean playAgain(){
@@ -184,6 +355,7 @@ public class GameGUI extends AbstractTerminalGUI implements ITerminalGUI {
     public void onResize() {
         super.onResize();
         gameInstance.recalculateGameBounds(uiManager.terminalResizeEventHandler.getLastKnownSize());
+        dirtyCells.requestFullRepaint();
     }
 
     private int getScreenWidth(){
@@ -196,103 +368,234 @@ public class GameGUI extends AbstractTerminalGUI implements ITerminalGUI {
 
     @Override
     public void draw() throws IOException {
-        super.draw();
-        // Draw title
-        String title = "Minesweeper";
-        textGraphics.putString(getScreenWidth() / 2 - title.length() / 2, 0, title);
-        // Change theme colors to the theme the user selected
+        boolean changed = dirtyCells.takeFullRepaint();
+        if (changed) {
+            super.draw();
+            // Draw title
+            String title = "Minesweeper";
+            textGraphics.putString(getScreenWidth() / 2 - title.length() / 2, 0, title);
+            // Change theme colors to the theme the user selected
+            uiManager.applyThemeColors(textGraphics);
+            textGraphics.putString(0, getScreenHeight()-1, "Press 'F' to flag a mine, 'H' for a hint or 'Escape' to pause");
+            // Draw rectangle around the game
+            Rectangle bounds = gameInstance.getGameBounds();
+            Utils.drawRect(bounds.x-1, bounds.y-1,
+                    bounds.width+2,
+                    bounds.height+2, textGraphics);
+            // The background has been cleared, every line must be drawn again
+            drawnLines.clear();
+            // Only the cells that fit in the screen are looked up, whatever the size of the board
+            Rectangle visible = gameInstance.getViewport().getVisibleCells();
+            for (int col = visible.x; col < visible.x + visible.width; col++) {
+                for (int row = visible.y; row < visible.y + visible.height; row++) {
+                    drawCell(col, row);
+                }
+            }
+        } else {
+            // Only the cells that changed since the last frame
+            changed = dirtyCells.drain(this::drawCell) > 0;
+        }
+        Rectangle minimapBounds = getMinimapBounds();
+        if (changed && minimapBounds != null) {
+            drawMinimap(minimapBounds);
+        }
         uiManager.applyThemeColors(textGraphics);
         // Display sidebar messages
-        Utils.displaySidebarMessage(textGraphics, 1, "Score: %s", String.valueOf(gameInstance.getScore()));
+        String score = String.valueOf(gameInstance.getScore());
+        changed |= drawLine(1, "Score: " + score, () -> Utils.displaySidebarMessage(textGraphics, 1, "Score: %s", score));
         int mines = minesweeper.getRemainingMines();
         String message = mines < 0 ? "Mines: %s (Too many cells flagged)" : "Mines: %s";
-        Utils.displaySidebarMessage(textGraphics, 2, message, String.valueOf(mines));
+        changed |= drawLine(2, String.format(message, mines), () -> Utils.displaySidebarMessage(textGraphics, 2, message, String.valueOf(mines)));
         // Message to help the user
-        if (gameInstance.getGameStage() == GameStage.MINES_NOT_FLAGGED){
-            textGraphics.setForegroundColor(Constants.cellHighlightColor);
-            textGraphics.putString(0, getScreenHeight()-2, "To win flag all mines");
-            textGraphics.setForegroundColor(uiManager.getThemeForeground());
-        }
-        textGraphics.putString(0, getScreenHeight()-1, "Press 'F' to flag a mine or 'Escape' to pause");
+        boolean notFlagged = gameInstance.getGameStage() == GameStage.MINES_NOT_FLAGGED;
+        String status = boardSearch != null ? "Generating a board without guesses..." : notFlagged ? "To win flag all mines" : "";
+        changed |= drawLine(getScreenHeight()-2, status, () -> {
+            textGraphics.putString(0, getScreenHeight()-2, " ".repeat(getScreenWidth()));
+            if (!status.isEmpty()) {
+                textGraphics.setForegroundColor(Constants.cellHighlightColor);
+                textGraphics.putString(0, getScreenHeight()-2, status);
+                textGraphics.setForegroundColor(uiManager.getThemeForeground());
+            }
+        });
+        changed |= updateTimer();
         // Change the cursor position to let the user move it around with the 4 arrows
-        screen.setCursorPosition(new TerminalPosition(gameInstance.getCursor()[0], gameInstance.getCursor()[1]));
+        TerminalPosition cursor = new TerminalPosition(gameInstance.getCursor()[0], gameInstance.getCursor()[1]);
+        if (!cursor.equals(screen.getCursorPosition())) {
+            screen.setCursorPosition(cursor);
+            if (minimapBounds != null) {
+                // The minimap marks the block of the cursor
+                drawMinimap(minimapBounds);
+            }
+            changed = true;
+        }
+        // Idle frames don't touch the terminal at all
+        if (changed) {
+            screen.refresh();
+        }
+    }
 
+    /**
+     * Draws a sidebar or status line, only if its text changed since it was last drawn.
+     *
+     * @param line    The line of the screen.
+     * @param text    The text the line shows, used to know if it changed.
+     * @param painter Draws the line.
+     * @return true if the line has been drawn.
+     */
+    private boolean drawLine(int line, String text, Runnable painter) {
+        if (text.equals(drawnLines.get(line))) {
+            return false;
+        }
+        drawnLines.put(line, text);
+        painter.run();
+        return true;
+    }
+
+    /**
+     * Draws a single cell of the minefield with its colors.
+     *
+     * @param col The x-coordinate of the cell.
+     * @param row The y-coordinate of the cell.
+     */
+    private void drawCell(int col, int row) {
+        Viewport viewport = gameInstance.getViewport();
+        if (!viewport.isVisible(col, row)) {
+            return;
+        }
+        Rectangle minimapBounds = getMinimapBounds();
+        if (minimapBounds != null && minimapBounds.contains(viewport.toScreenX(col), viewport.toScreenY(row))) {
+            // Hidden under the minimap
+            return;
+        }
         textGraphics.setForegroundColor(gameTheme.getMinefieldFore());
         textGraphics.setBackgroundColor(gameTheme.getMinefieldBack());
-        int centerX = gameInstance.getGameBounds().x;
-        int centerY = gameInstance.getGameBounds().y;
-        int offsetX = 0;
+        Cell cell = minesweeper.getCell(col, row);
+        String cellContent = String.valueOf(cell.getChar());
 
-        for (int col = 0; col < minesweeper.getFieldWidth(); col++) {
-            for (int row = 0; row < minesweeper.getFieldHeight(); row++) {
-                Cell cell = minesweeper.getCell(col, row);
-                String cellContent = String.valueOf(cell.getChar());
+        if (minesweeper.isFlagged(col, row)) {
+            // Highlight the cell if needed
+            textGraphics.setForegroundColor(Constants.cellHighlightColor);
+            cellContent = String.valueOf(minesweeper.getCell(col, row, true).getChar());
+        } else if (minesweeper.isUncovered(col, row) && cell.type == CellType.NUMBER) {
+            // Color cell numbers
+            int number = cell.getNumber();
+
+            // Set color based on conditions
+            if (number == minesweeper.getNumbersOfFlaggedCells(col, row) && uiManager.getOptions().isGrayOutNearbyCells()) {
+                // Give a hint only if the options allow it
+                textGraphics.setForegroundColor(gameTheme.getWarningColor(number, true));
+            } else {
+                textGraphics.setForegroundColor(gameTheme.getWarningColor(number, false));
+            }
+        }
 
-                if (minesweeper.isFlagged(col, row)) {
-                    // Highlight the cell if needed
-                    textGraphics.setForegroundColor(Constants.cellHighlightColor);
-                    cellContent = String.valueOf(minesweeper.getCell(col, row, true).getChar());
-                } else if (minesweeper.isUncovered(col, row) && cell.type == CellType.NUMBER) {
-                    // Color cell numbers
-                    int number = cell.getNumber();
-
-                    // Set color based on conditions
-                    if (number == minesweeper.getNumbersOfFlaggedCells(col, row) && uiManager.getOptions().isGrayOutNearbyCells()) {
-                        // Give a hint only if the options allow it
-                        textGraphics.setForegroundColor(gameTheme.getWarningColor(number, true));
-                    } else {
-                        textGraphics.setForegroundColor(gameTheme.getWarningColor(number, false));
-                    }
-                }
-                else{
-                    textGraphics.setForegroundColor(gameTheme.getMinefieldFore());
-                    textGraphics.setBackgroundColor(gameTheme.getMinefieldBack());
-                }
+        // Can happen if the player decides to continue the game, loosing score
+        if (cell.type == CellType.MINE){
+            // If the cell is a mine, then color it red
+            textGraphics.setForegroundColor(Constants.dangerColor);
+        }
 
-                // Can happen if the player decides to continue the game, loosing score
-                if (cell.type == CellType.MINE){
-                    // If the cell is a mine, then color it red
-                    textGraphics.setForegroundColor(Constants.dangerColor);
-                }
+        // Display the cell content, cells are separated by a space
+        textGraphics.putString(viewport.toScreenX(col), viewport.toScreenY(row), cellContent);
 
-                // Display the cell content
-                textGraphics.putString(centerX + col + offsetX, centerY + row, cellContent);
+        // Reset foreground color to default
+        textGraphics.setForegroundColor(TextColor.ANSI.DEFAULT);
+    }
 
-                // Reset foreground color to default
-                textGraphics.setForegroundColor(TextColor.ANSI.DEFAULT);
+    /**
+     * Draws the minimap over the bottom right corner of the board, with the visible cells highlighted.
+     *
+     * @param bounds The area of the screen taken by the minimap, without its border.
+     */
+    private void drawMinimap(Rectangle bounds) {
+        Utils.drawRect(bounds.x - 1, bounds.y - 1, bounds.width + 2, bounds.height + 2, textGraphics);
+        Rectangle visible = gameInstance.getViewport().getVisibleCells();
+        Point cursorBlock = minimap.getBlock(gameInstance.getTruePos()[0], gameInstance.getTruePos()[1]);
+        for (int column = 0; column < minimap.getColumns(); column++) {
+            for (int row = 0; row < minimap.getRows(); row++) {
+                textGraphics.setBackgroundColor(minimap.overlaps(column, row, visible)
+                        ? gameTheme.getMinefieldBack() : uiManager.getThemeBackgroundColor());
+                if (column == cursorBlock.x && row == cursorBlock.y) {
+                    textGraphics.setForegroundColor(Constants.cellHighlightColor);
+                    textGraphics.putString(bounds.x + column, bounds.y + row, "+");
+                } else {
+                    textGraphics.setForegroundColor(gameTheme.getMinefieldFore());
+                    textGraphics.putString(bounds.x + column, bounds.y + row, String.valueOf(minimap.getShade(column, row)));
+                }
             }
-            offsetX += 1;
         }
         uiManager.applyThemeColors(textGraphics);
-        // Draw rectangle around the game
-        Rectangle bounds = gameInstance.getGameBounds();
-        Utils.drawRect(bounds.x-1, bounds.y-1,
-                bounds.width+2,
-                bounds.height+2, textGraphics);
-        updateTimer();
-        screen.refresh();
-    }
-
-    private void handleArrowMovement(GameInstance gameInstance, Rectangle bounds, int deltaY, int deltaX) {
-        if (bounds.contains(gameInstance.getCursor()[0] + deltaX, gameInstance.getCursor()[1] + deltaY)) {
-            gameInstance.setCursor(
-                    new int[]{
-                            gameInstance.getCursor()[0] + deltaX,
-                            gameInstance.getCursor()[1] + deltaY
-                    }
-            );
-            gameInstance.setTruePos(
-                    new int[]{
-                            gameInstance.getTruePos()[0]+Math.max(Math.min(deltaX, 1), -1),
-                            gameInstance.getTruePos()[1]+Math.max(Math.min(deltaY, 1), -1)
-                    }
-            );
+    }
+
+    /**
+     * Gets where the minimap is drawn. It is only shown when the board doesn't fit in the screen,
+     * and when the visible window is big enough to still show the board around it.
+     *
+     * @return The area of the screen taken by the minimap without its border, or null if it isn't shown.
+     */
+    private Rectangle getMinimapBounds() {
+        if (!minimapShown || minimap == null || gameInstance.getViewport().showsWholeBoard()) {
+            return null;
+        }
+        Rectangle board = gameInstance.getViewport().getScreenBounds();
+        int width = minimap.getColumns();
+        int height = minimap.getRows();
+        // The map and its border take at most half of the board
+        if ((width + 2) * 2 > board.width || (height + 2) * 2 > board.height) {
+            return null;
+        }
+        return new Rectangle(board.x + board.width - width - 1, board.y + board.height - height - 1, width, height);
+    }
+
+    private void handleArrowMovement(GameInstance gameInstance, int deltaX, int deltaY) {
+        boolean scrolled = gameInstance.moveCursor(gameInstance.getTruePos()[0] + deltaX, gameInstance.getTruePos()[1] + deltaY);
+        recordMove(MoveType.MOVE);
+        if (scrolled) {
+            // The board has scrolled, every visible cell moved
+            dirtyCells.requestFullRepaint();
         }
     }
 
     private void handleKeypress(KeyStroke choice, Minesweeper minesweeper, GameInstance gameInstance) {
         if (choice.getCharacter().toString().equalsIgnoreCase("f")) {
+            recordMove(MoveType.FLAG);
             minesweeper.toggleHighlightCell(gameInstance.getTruePos()[0], gameInstance.getTruePos()[1]);
+        } else if (choice.getCharacter() == ' ') {
+            recordMove(MoveType.CHORD);
+            handleChord(minesweeper, gameInstance);
+        } else if (choice.getCharacter().toString().equalsIgnoreCase("u")) {
+            recordMove(MoveType.UNDO);
+            handleUndo(minesweeper, gameInstance);
+        } else if (choice.getCharacter().toString().equalsIgnoreCase("r")) {
+            recordMove(MoveType.REDO);
+            // A redone move scores like it did the first time, stepping on a mine again included
+            Tuple<CellType, Tuple<Integer, Boolean>> redone = minesweeper.redo();
+            gameInstance.getHintEngine().markChanged(minesweeper.getLastChangedRegion());
+            if (redone != null) {
+                handleUncoverResult(gameInstance, redone, false);
+            }
+        } else if (choice.getCharacter().toString().equalsIgnoreCase("h")) {
+            handleHint(gameInstance);
+        } else if (choice.getCharacter().toString().equalsIgnoreCase("m")) {
+            minimapShown = !minimapShown;
+            // The cells under the minimap must be drawn again, or the minimap drawn over them
+            dirtyCells.requestFullRepaint();
+        }
+    }
+
+    /**
+     * Moves the cursor to the cell suggested by the hint engine: a safe cell if there is one,
+     * otherwise the cell least likely to be a mine.
+     */
+    private void handleHint(GameInstance gameInstance) {
+        Tuple<Integer, Integer> hint = gameInstance.getHintEngine().getHint(gameInstance.getTruePos()[0], gameInstance.getTruePos()[1]);
+        if (hint == null) {
+            return;
+        }
+        boolean scrolled = gameInstance.moveCursor(hint.first(), hint.second());
+        recordMove(MoveType.MOVE);
+        if (scrolled) {
+            dirtyCells.requestFullRepaint();
         }
     }
 
@@ -300,10 +603,11 @@ public class GameGUI extends AbstractTerminalGUI implements ITerminalGUI {
         // Stop the timer
         stopTimer();
 
-        // Send data async to the leaderboard if difficulty is not custom
+        // Send data async to the leaderboard if difficulty is not custom, the default global one only gets the legacy ones
         if (difficulty != MinesweeperDifficulty.CUSTOM){
             uiManager.getLeaderboard().sendPlayerDataAsync(
-                    new Leaderboard.User(username, gameInstance.getScore(), getTimerRemainingTime(), difficulty)
+                    new Leaderboard.User(username, gameInstance.getScore(), getTimerRemainingTime(), difficulty,
+                            gameInstance.getMinesweeper().getGameSeed())
             );
         }
         // Show win popup
@@ -323,7 +627,53 @@ public class GameGUI extends AbstractTerminalGUI implements ITerminalGUI {
         boolean wasUncovered = minesweeper.isUncovered(gameInstance.getTruePos()[0], gameInstance.getTruePos()[1]);
         Tuple<CellType, Tuple<Integer, Boolean>> minedTile = minesweeper.uncover(gameInstance.getTruePos()[0],
                 gameInstance.getTruePos()[1]);
+        gameInstance.getHintEngine().markChanged(minesweeper.getLastFill().getChangedRegion());
+        handleUncoverResult(gameInstance, minedTile, wasUncovered);
+    }
+
+    /**
+     * Opens all the neighbours of the number under the cursor at once, if it has as many flags around it as its value.
+     */
+    private void handleChord(Minesweeper minesweeper, GameInstance gameInstance) {
+        Tuple<CellType, Tuple<Integer, Boolean>> minedTiles = minesweeper.chord(gameInstance.getTruePos()[0],
+                gameInstance.getTruePos()[1]);
+        // Every region the chord opened is in the last fill
+        gameInstance.getHintEngine().markChanged(minesweeper.getLastFill().getChangedRegion());
+        // A chord only uncovers covered cells, so a mine in the result has just been stepped on
+        handleUncoverResult(gameInstance, minedTiles, false);
+    }
+
+    /**
+     * Covers again the cells opened by the last move, or toggles back its flag, and takes back the points it gave.
+     * A mine stepped on gave no points, only the safe cells opened with it did, the points lost by continuing aren't
+     * given back.
+     */
+    private void handleUndo(Minesweeper minesweeper, GameInstance gameInstance) {
+        Tuple<CellType, Tuple<Integer, Boolean>> undone = minesweeper.undo();
+        if (undone == null) {
+            return;
+        }
+        gameInstance.getHintEngine().markChanged(minesweeper.getLastChangedRegion());
+        if (undone.first() == null) {
+            return;
+        }
+        if (undone.second().second()) {
+            // A winning move gave all its points
+            gameInstance.setScore(gameInstance.getScore() - undone.second().first());
+        } else {
+            gameInstance.setScore(gameInstance.getScore() - undone.second().first() + minesweeper.getLastMinesOpened());
+        }
+    }
 
+    /**
+     * Adds the score of an uncover or a chord, or shows the loss popup if it hit a mine.
+     * The safe cells a chord opened along with a mine are still worth their points.
+     *
+     * @param minedTile    The result of the uncover or the chord.
+     * @param wasUncovered true if the uncovered cell already was, so a mine there isn't a new loss.
+     */
+    private void handleUncoverResult(GameInstance gameInstance, Tuple<CellType, Tuple<Integer, Boolean>> minedTile,
+                                     boolean wasUncovered) {
         if (minedTile.first() == null) {
             return;
         }
@@ -334,6 +684,9 @@ public class GameGUI extends AbstractTerminalGUI implements ITerminalGUI {
             gameInstance.setScore(gameInstance.getScore()+minedTile.second().first());
         } else if (minedTile.first() == CellType.MINE && !wasUncovered) {
             // If the tile that the player has mined is a mine, and it wasn't yet mined, The player has lost
+            // The safe cells opened by the same move are scored first
+            gameInstance.setScore(gameInstance.getScore() + minedTile.second().first()
+                    - gameInstance.getMinesweeper().getLastMinesOpened());
             // Stop the timer
             stopTimer();
             // Show lose popup
@@ -343,25 +696,28 @@ public class GameGUI extends AbstractTerminalGUI implements ITerminalGUI {
             // The player can continue playing only if it hasn't already respawned more than 3 times and
             // has more then 9 score
             if (rt < 3 && gameInstance.getScore() >= 10){
-                inputHandler.stopThread();
+                scheduler.stopInput();
                 continueButtonPress = uiManager.showGameEndPopup(String.format(Constants.lossMessage, gameInstance.getScore()), gameInstance, true, -10*(rt+1));
-                inputHandler.startThread();
+                scheduler.startInput();
             }
             else{
-                inputHandler.stopThread();
+                scheduler.stopInput();
                 continueButtonPress = uiManager.showGameEndPopup(String.format(Constants.lossMessage, gameInstance.getScore()), gameInstance, false, 0);
-                inputHandler.startThread();
+                scheduler.startInput();
             }
 
+            // The popup has been drawn over the game
+            dirtyCells.requestFullRepaint();
             if (continueButtonPress){
                 // Subtract score and let the game continue
                 gameInstance.setScore(gameInstance.getScore()-10);
                 // Add 1 to respawn times
                 gameInstance.setRespawnTimes(rt+1);
+                recordMove(MoveType.RESPAWN);
                 resumeTimer(sysTime);
             }
             else {
-                inputHandler.stopThread();
+                scheduler.stopInput();
                 stopTimer();
                 gameInstance.setGameEnded(true);
             }
@@ -372,14 +728,21 @@ public class GameGUI extends AbstractTerminalGUI implements ITerminalGUI {
     }
 
 
-    private void updateTimer() {
+    /**
+     * Draws the elapsed time, only when the text changed (every second, or when the colon blinks).
+     *
+     * @return true if the timer has been drawn.
+     */
+    private boolean updateTimer() {
         // Calculate and display the elapsed time
         long elapsedTime = System.currentTimeMillis() - startTime;
         long seconds = TimeUnit.MILLISECONDS.toSeconds(elapsedTime);
         long minutes = TimeUnit.SECONDS.toMinutes(seconds);
         String text = Utils.getGameTimerText(seconds, minutes, elapsedTime);
-        uiManager.applyThemeColors(textGraphics);
-        textGraphics.putString(0, 3, text);
+        return drawLine(3, text, () -> {
+            uiManager.applyThemeColors(textGraphics);
+            textGraphics.putString(0, 3, text);
+        });
     }
 
     private String getTimerRemainingTime(){
@@ -391,10 +754,16 @@ public class GameGUI extends AbstractTerminalGUI implements ITerminalGUI {
     }
 
     private void stopTimer(){
-        //if (timerTask != null && !timerTask.isCancelled()) {
-        //    timerTask.cancel(true);
-        //}
-        timer.shutdown();
+        scheduler.stopTicks();
+    }
+
+    /**
+     * Wakes the game loop every 500ms, when the timer text changes.
+     * The ticks are aligned with the start time, so the timer is drawn as soon as a second passes.
+     */
+    private void startTimer() {
+        long elapsedTime = System.currentTimeMillis() - startTime;
+        scheduler.setTickInterval(TIMER_TICK_MILLIS, TIMER_TICK_MILLIS - elapsedTime % TIMER_TICK_MILLIS);
     }
 
     /**
@@ -403,13 +772,9 @@ public class GameGUI extends AbstractTerminalGUI implements ITerminalGUI {
      * @param sysTime The system time when the timer was paused.
      */
     private void resumeTimer(long sysTime) {
-        // Ensure the timer is not null and not shut down
-        if (timer == null || timer.isShutdown()) {
-            timer = Executors.newSingleThreadScheduledExecutor();
-        }
-
         startTime = startTime + (System.currentTimeMillis() - sysTime);
-        //timerTask = timer.scheduleAtFixedRate(this::updateTimer, 0, 500, TimeUnit.MILLISECONDS);
+        startTimer();
+        recordMove(MoveType.RESUME);
     }
 
     /**
@@ -418,17 +783,20 @@ public class GameGUI extends AbstractTerminalGUI implements ITerminalGUI {
      * @return The system time when the timer is paused.
      */
     private long pauseTimer() {
+        recordMove(MoveType.PAUSE);
         return System.currentTimeMillis();
     }
 
     private void handleEOFOrEscape(KeyStroke choice, GameInstance gameInstance) {
         if (choice.getKeyType() == KeyType.Escape) {
-            inputHandler.stopThread();
+            scheduler.stopInput();
             showPauseMenu(gameInstance);
-            inputHandler.startThread();
+            scheduler.startInput();
+            // The popup has been drawn over the game
+            dirtyCells.requestFullRepaint();
         } else {
             gameInstance.setRunning(false);
-            inputHandler.stopThread();
+            scheduler.stopInput();
         }
     }
 
@@ -457,7 +825,7 @@ public class GameGUI extends AbstractTerminalGUI implements ITerminalGUI {
         buttonContainer.addComponent(resumeButton);
 
         com.googlecode.lanterna.gui2.Button exitButton = new com.googlecode.lanterna.gui2.Button("Exit", () -> {
-            if (warningExitMessage(gameInstance)){
+            if (warningExitMessage(gameInstance, sysTime - startTime)){
                 gameInstance.setRunning(false);
                 popupWindow.close();
             }
@@ -474,10 +842,10 @@ public class GameGUI extends AbstractTerminalGUI implements ITerminalGUI {
         gui.addWindowAndWait(popupWindow);
     }
 
-    private boolean warningExitMessage(GameInstance gameInstance) {
+    private boolean warningExitMessage(GameInstance gameInstance, long elapsedMillis) {
         boolean[] res = new boolean[] {false};
 
-        String warningMessage = "Do you really want to exit?\nAll the progress will be lost";
+        String warningMessage = "Do you really want to exit?\nAll the progress will be lost\nunless you save the game";
 
         MenuPopupWindow popupWindow = new MenuPopupWindow(mainPanel);
         popupWindow.setTheme(uiManager.getWindowTheme());
@@ -493,6 +861,23 @@ public class GameGUI extends AbstractTerminalGUI implements ITerminalGUI {
         cancelButton.setTheme(uiManager.getConfirmButtonTheme());
         buttonContainer.addComponent(cancelButton);
 
+        com.googlecode.lanterna.gui2.Button saveButton = new com.googlecode.lanterna.gui2.Button("Save", () -> {
+            try {
+                GameSave.write(gameInstance, moveLog, elapsedMillis, Paths.get(Constants.saveFile));
+                saved = true;
+            } catch (IOException e) {
+                Utils.Debug(Utils.exceptionToString(e));
+                uiManager.showContinuePopup("The game couldn't be saved");
+                return;
+            }
+            res[0] = true;
+            gameInstance.setRunning(false);
+            popupWindow.close();
+        });
+        saveButton.setPreferredSize(new TerminalSize(6, 1));
+        saveButton.setTheme(uiManager.getWarningButtonTheme());
+        buttonContainer.addComponent(saveButton);
+
         com.googlecode.lanterna.gui2.Button exitButton = new com.googlecode.lanterna.gui2.Button("Yes", () -> {
             res[0] = true;
             gameInstance.setRunning(false);
@@ -9,6 +9,8 @@ import engine.UIManager;
 import engine.gui.AbstractTerminalGUI;
 import engine.gui.ITerminalGUI;
 import engine.utils.Constants;
+import engine.utils.LeaderboardIndex;
+import engine.utils.MinesweeperDifficulty;
 import engine.utils.Utils;
 
 import java.io.IOException;
@@ -18,12 +20,21 @@ import java.util.List;
  * Represents the leaderboard GUI.
  */
 public class LeaderboardGUI extends AbstractTerminalGUI implements ITerminalGUI {
+    // The number of entries shown at once
+    private static final int PAGE_SIZE = 4;
 
     private final Leaderboard leaderboard;
     // uiShowingLocal, false if showing global leaderboard, true if showing local leaderboard
     private boolean uiShowingLocal = false;
-    private List<Leaderboard.User> globalUsers;
-    private List<Leaderboard.User> localUsers;
+    // Replaced by the download thread when the new board arrives
+    private volatile LeaderboardIndex globalIndex;
+    private volatile boolean globalRefreshing = false;
+    private volatile boolean globalFailed = false;
+    private LeaderboardIndex localIndex;
+    // The shown difficulty, an index in the difficulties of the shown leaderboard
+    private int difficultyIndex = 0;
+    // The number of entries above the first shown one
+    private int offset = 0;
 
     /**
      * Constructor for the LeaderboardGUI.
@@ -36,6 +47,7 @@ public class LeaderboardGUI extends AbstractTerminalGUI implements ITerminalGUI
         this.screen = uiManager.getScreen();
         this.textGraphics = uiManager.getTextGraphics();
         this.uiManager = uiManager;
+        this.scheduler = uiManager.getScheduler();
     }
 
     @Override
@@ -43,19 +55,44 @@ public class LeaderboardGUI extends AbstractTerminalGUI implements ITerminalGUI
         super.show();
         loadData();
 
+        scheduler.startInput();
         while (true) {
-            // Draw
+            // Draw, at the new size if the terminal was resized
+            applyResize();
             draw();
+            // Sleep until a key is pressed or the terminal is resized
+            KeyStroke choice;
+            try {
+                choice = scheduler.waitForEvent();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+            if (choice == null) {
+                continue;
+            }
             // Handle inputs
-            KeyStroke choice = screen.readInput();
             if (choice.getKeyType() == KeyType.Escape || choice.getKeyType() == KeyType.EOF) {
                 break;
             }
-            if (choice.getKeyType() == KeyType.Tab) {
-                uiShowingLocal = !uiShowingLocal;
+            switch (choice.getKeyType()) {
+                case Tab -> {
+                    uiShowingLocal = !uiShowingLocal;
+                    difficultyIndex = 0;
+                    offset = 0;
+                }
+                case ArrowLeft -> changeDifficulty(-1);
+                case ArrowRight -> changeDifficulty(1);
+                case ArrowUp -> scroll(-1);
+                case ArrowDown -> scroll(1);
+                case PageUp -> scroll(-PAGE_SIZE);
+                case PageDown -> scroll(PAGE_SIZE);
+                default -> {
+                }
             }
             screen.clear();
         }
+        scheduler.stopInput();
         onClose();
         screen.clear();
     }
@@ -78,7 +115,7 @@ public class LeaderboardGUI extends AbstractTerminalGUI implements ITerminalGUI
             textGraphics.putString(getTerminalWidth() - 1, i, "#");
         }
         // Add helper text
-        textGraphics.putString(1, getTerminalHeight() - 2, "Use Tab to toggle between Local and Global leaderboards");
+        textGraphics.putString(1, getTerminalHeight() - 2, "Tab: Local/Global leaderboard, arrows: change the level and scroll");
         // Hide cursor
         try {
             screen.setCursorPosition(new TerminalPosition(1, 1));
@@ -88,16 +125,20 @@ public class LeaderboardGUI extends AbstractTerminalGUI implements ITerminalGUI
         }
 
         int width = 40;
-        int height = 12;
+        int height = 14;
         x = getTerminalWidth() / 2 - width / 2;
         y = getTerminalHeight() / 2 - height / 2 + 3;
 
         Utils.drawRect(x, y, width, height, textGraphics);
 
         if (uiShowingLocal) {
-            showLocalLeaderboard(localUsers, x, y, width, height);
+            // The local leaderboard is never missing, but better to be safe
+            showLeaderboard("\u25C4  Local Leaderboard \u25BA", localIndex, "Unexpected error", null, x, y, width, height);
         } else {
-            showGlobalLeaderboard(globalUsers, x, y, width, height);
+            // The last downloaded board is shown while the new one is downloaded
+            String status = globalRefreshing ? "Updating..." : globalFailed ? "Offline" : null;
+            showLeaderboard("\u25C4 Global Leaderboard \u25BA", globalIndex,
+                    globalRefreshing ? "Loading..." : "Connection error", status, x, y, width, height);
         }
         screen.refresh();
     }
@@ -107,9 +148,21 @@ public class LeaderboardGUI extends AbstractTerminalGUI implements ITerminalGUI
         fillBackground();
         textGraphics.putString(0, 0, "Loading data...");
         screen.refresh();
-        globalUsers = leaderboard.getGlobalUsers();
-        localUsers = leaderboard.getLocalUsers();
+        localIndex = leaderboard.getLocalIndex();
         screen.clear();
+        // Open at once with the last downloaded board, the new one is drawn when it arrives
+        globalIndex = leaderboard.getCachedGlobalIndex();
+        globalRefreshing = true;
+        globalFailed = false;
+        leaderboard.refreshGlobalIndex().whenComplete((index, e) -> {
+            if (index != null) {
+                globalIndex = index;
+            } else {
+                globalFailed = true;
+            }
+            globalRefreshing = false;
+            scheduler.requestFrame();
+        });
     }
 
     private void displayEmptyLeaderboardMessage(int x, int y) {
@@ -119,58 +172,71 @@ public class LeaderboardGUI extends AbstractTerminalGUI implements ITerminalGUI
         textGraphics.putString(x + 2, y + 6, "\"Play\"");
     }
 
-    private void showGlobalLeaderboard(List<Leaderboard.User> globalUsers, int x, int y, int width, int height) {
-        String title = "\u25C4 Global Leaderboard \u25BA";
-        textGraphics.putString(x + width / 2 - title.length() / 2, y + 1, title);
-        if (globalUsers == null) {
-            String subtitle = "Connection error";
-            textGraphics.putString(x + width / 2 - subtitle.length() / 2, y + height / 2 - 1, subtitle);
-        } else if (globalUsers.isEmpty()) {
-            displayEmptyLeaderboardMessage(x, y);
-        } else {
-            String fs = "   " + String.format("%-" + 12 + "s%-" + 7 + "s%-" + 7 + "s%s", "Username", "Score", "Time", "Level");
-            textGraphics.putString(x + 2, y + 2, fs);
-            int n = 1;
+    private LeaderboardIndex getShownIndex() {
+        return uiShowingLocal ? localIndex : globalIndex;
+    }
 
-            for (Leaderboard.User user : globalUsers) {
-                String formattedString = n + ") " + String.format("%-" + 12 + "s%-" + 7 + "d%-" + 7 + "s%s",
-                        user.username(), user.score(), user.time(), Utils.toCamelCase(user.difficulty().name()));
+    /**
+     * @return The shown difficulty, the selection is kept in range when a new board replaces the shown one.
+     */
+    private MinesweeperDifficulty getShownDifficulty(LeaderboardIndex index) {
+        List<MinesweeperDifficulty> difficulties = index.getDifficulties();
+        difficultyIndex = Math.min(difficultyIndex, difficulties.size() - 1);
+        return difficulties.get(difficultyIndex);
+    }
 
-                textGraphics.putString(x + 2, y + n * 2 + 2, formattedString);
-                // Only show top 3 players
-                if (n > 3) {
-                    break;
-                }
-                n++;
-            }
+    private void changeDifficulty(int step) {
+        LeaderboardIndex index = getShownIndex();
+        if (index == null || index.isEmpty()) {
+            return;
         }
+        int count = index.getDifficulties().size();
+        difficultyIndex = Math.floorMod(difficultyIndex + step, count);
+        offset = 0;
     }
 
-    private void showLocalLeaderboard(List<Leaderboard.User> localUsers, int x, int y, int width, int height) {
-        String title = "\u25C4  Local Leaderboard \u25BA";
+    private void scroll(int step) {
+        LeaderboardIndex index = getShownIndex();
+        if (index == null || index.isEmpty()) {
+            return;
+        }
+        int size = index.getSize(getShownDifficulty(index));
+        offset = Math.max(0, Math.min(offset + step, size - PAGE_SIZE));
+    }
+
+    private void showLeaderboard(String title, LeaderboardIndex index, String error, String status, int x, int y, int width, int height) {
         textGraphics.putString(x + width / 2 - title.length() / 2, y + 1, title);
-        if (localUsers == null) {
-            // This shouldn't happen
-            String subtitle = "Unexpected error";
-            textGraphics.putString(x + width / 2 - subtitle.length() / 2, y + height / 2 - 1, subtitle);
-        } else if (localUsers.isEmpty()) {
+        if (index == null) {
+            textGraphics.putString(x + width / 2 - error.length() / 2, y + height / 2 - 1, error);
+        } else if (index.isEmpty()) {
             displayEmptyLeaderboardMessage(x, y);
         } else {
-            String fs = "   " + String.format("%-" + 12 + "s%-" + 7 + "s%-" + 7 + "s%s", "Username", "Score", "Time", "Level");
-            textGraphics.putString(x + 2, y + 2, fs);
+            MinesweeperDifficulty difficulty = getShownDifficulty(index);
+            String level = "< " + Utils.toCamelCase(difficulty.name().replace('_', '-')) + " >";
+            if (status != null) {
+                textGraphics.putString(x + width - 2 - status.length(), y + 2, status);
+            }
+            textGraphics.putString(x + width / 2 - level.length() / 2, y + 2, level);
+            String fs = "     " + String.format("%-" + 12 + "s%-" + 7 + "s%s", "Username", "Score", "Time");
+            textGraphics.putString(x + 2, y + 3, fs);
             int n = 1;
 
-            for (Leaderboard.User user : localUsers) {
-                String formattedString = n + ") " + String.format("%-" + 12 + "s%-" + 7 + "d%-" + 7 + "s%s",
-                        user.username(), user.score(), user.time(), Utils.toCamelCase(user.difficulty().name()));
+            // Only the shown page is read from the index
+            for (Leaderboard.User user : index.getPage(difficulty, offset, PAGE_SIZE)) {
+                String formattedString = String.format("%3d) %-" + 12 + "s%-" + 7 + "d%s",
+                        offset + n, user.username(), user.score(), user.time());
 
-                textGraphics.putString(x + 2, y + n * 2 + 2, formattedString);
-                // Only show top 3 players
-                if (n > 3) {
-                    break;
-                }
+                textGraphics.putString(x + 2, y + n * 2 + 3, formattedString);
                 n++;
             }
+            // Show where the player stands, even if they aren't on the page
+            String username = uiManager.getOptions().getUsername();
+            int rank = index.getPlayerRank(username, difficulty);
+            if (rank > 0) {
+                Leaderboard.User best = index.getBest(username, difficulty);
+                String you = String.format("You: #%d of %d, %d in %s", rank, index.getSize(difficulty), best.score(), best.time());
+                textGraphics.putString(x + width / 2 - you.length() / 2, y + height - 2, you);
+            }
         }
     }
 }
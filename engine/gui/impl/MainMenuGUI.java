@@ -10,10 +10,14 @@ import engine.options.Options;
 import engine.skins.SkinManager;
 import engine.themes.ThemeManager;
 import engine.utils.Constants;
+import engine.utils.GameSave;
 import engine.utils.MinesweeperDifficulty;
 import engine.utils.Utils;
 
 import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 
 /**
  * Represents the main menu GUI.
@@ -34,6 +38,7 @@ public class MainMenuGUI extends AbstractTerminalGUI implements ITerminalGUI {
         this.terminal = uiManager.getTerminal();
         this.screen = uiManager.getScreen();
         this.textGraphics = uiManager.getTextGraphics();
+        this.scheduler = uiManager.getScheduler();
     }
 
     @Override
@@ -57,10 +62,23 @@ public class MainMenuGUI extends AbstractTerminalGUI implements ITerminalGUI {
         }
         boolean running = true;
 
+        scheduler.startInput();
         while (running) {
+            applyResize();
             draw();
 
-            KeyStroke choice = screen.readInput();
+            // Sleep until a key is pressed or the terminal is resized
+            KeyStroke choice;
+            try {
+                choice = scheduler.waitForEvent();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+            if (choice == null) {
+                // Only a redraw was requested
+                continue;
+            }
             if (choice.getKeyType() == KeyType.EOF) {
                 break;
             }
@@ -76,6 +94,8 @@ public class MainMenuGUI extends AbstractTerminalGUI implements ITerminalGUI {
                     selectedIndex = Constants.mainMenuOptions.length - 1;
                 }
             } else if (choice.getKeyType() == KeyType.Enter) {
+                // The popups and the opened GUIs read the keys themselves
+                scheduler.stopInput();
                 switch (Constants.mainMenuOptions[selectedIndex]) {
                     case "Play":
                         String username = uiManager.getUsername();
@@ -84,12 +104,26 @@ public class MainMenuGUI extends AbstractTerminalGUI implements ITerminalGUI {
                         }
                         MinesweeperDifficulty difficulty;
                         boolean playAgain;
+                        GameSave save = loadSavedGame();
+                        if (save != null) {
+                            GameGUI game = new GameGUI(uiManager, save);
+                            openGUI(game);
+                            if (!game.playAgain()) {
+                                break;
+                            }
+                        }
                         do {
                             difficulty = uiManager.getDifficulty();
                             // The difficulty will only be null if the user decides to cancel
                             if (difficulty == null) {
                                 break;
                             }
+                            if (difficulty == MinesweeperDifficulty.ENDLESS) {
+                                EndlessGUI endless = new EndlessGUI(uiManager);
+                                openGUI(endless);
+                                playAgain = endless.playAgain();
+                                continue;
+                            }
                             GameGUI game = new GameGUI(uiManager, difficulty, username);
                             openGUI(game);
                             playAgain = game.playAgain();
@@ -109,12 +143,40 @@ public class MainMenuGUI extends AbstractTerminalGUI implements ITerminalGUI {
                         running = false;
                         break;
                 }
+                scheduler.startInput();
             }
         }
+        scheduler.stopInput();
         // GUI got closed
         onClose();
     }
 
+    /**
+     * Reads the saved game if there is one and the player wants to resume it.
+     * The save is deleted once read, the game is saved again if the player exits it again.
+     *
+     * @return The saved game, or null to start a new game.
+     */
+    private GameSave loadSavedGame() {
+        Path file = Paths.get(Constants.saveFile);
+        if (!Files.exists(file) || !uiManager.askResumeSavedGame()) {
+            return null;
+        }
+        GameSave save = null;
+        try {
+            save = GameSave.read(file);
+        } catch (IOException e) {
+            Utils.Debug(Utils.exceptionToString(e));
+            uiManager.showContinuePopup("The saved game couldn't be read");
+        }
+        try {
+            Files.delete(file);
+        } catch (IOException e) {
+            Utils.Debug(Utils.exceptionToString(e));
+        }
+        return save;
+    }
+
     @Override
     public void onClose() {
         // Call super method
@@ -28,7 +28,10 @@ public class Options {
                     json.getInt("musicVolume"),
                     json.getBoolean("grayOutNearbyCells"),
                     JsonFont.fromString(json.get("font").toString()),
-                    json.getString("soundtrackFilePath")
+                    json.getString("soundtrackFilePath"),
+                    // Options saved before the scroll margin existed don't have it
+                    json.optInt("scrollMargin", Constants.defaultScrollMargin),
+                    json.optString("apiUrl", Constants.defaultApiUrl)
             );
         } catch (IOException | org.json.JSONException e) {
             // Any error loading the config create a new one from default
@@ -51,7 +54,9 @@ public class Options {
                 0,
                 true,
                 new JsonFont(FontManager.getDefaultFont()),
-                "Original.wav"
+                "Original.wav",
+                Constants.defaultScrollMargin,
+                Constants.defaultApiUrl
         );
     }
 
@@ -67,6 +72,8 @@ public class Options {
         json.put("grayOutNearbyCells", optionsInstance.isGrayOutNearbyCells());
         json.put("font", optionsInstance.getJsonFont().fontToJson());
         json.put("soundtrackFilePath", optionsInstance.getSoundtrackFilePath());
+        json.put("scrollMargin", optionsInstance.getScrollMargin());
+        json.put("apiUrl", optionsInstance.getApiUrl());
         try {
             Files.write(Paths.get(Constants.optionsFile), json.toString().getBytes());
         } catch (IOException ignored) {
@@ -16,6 +16,8 @@ public class OptionsInstance {
     private JsonFont font;
     private int musicVolume;
     private String soundtrackFilePath;
+    private int scrollMargin;
+    private String apiUrl;
 
     /**
      * Constructs an instance of OptionsInstance with the specified parameters.
@@ -24,9 +26,13 @@ public class OptionsInstance {
      * @param musicVolume        The music volume for the game. Should be between 0 and 100.
      * @param grayOutNearbyCells Determines whether nearby cells are grayed out.
      * @param font               The font settings for the game.
+     * @param scrollMargin       The cells kept between the cursor and the edges of the screen on big boards.
+     * @param apiUrl             The address of the global leaderboard server.
      */
-    public OptionsInstance(String username, int musicVolume, boolean grayOutNearbyCells, JsonFont font, String soundtrackFilePath) {
+    public OptionsInstance(String username, int musicVolume, boolean grayOutNearbyCells, JsonFont font, String soundtrackFilePath, int scrollMargin, String apiUrl) {
         this.soundtrackFilePath = soundtrackFilePath;
+        setApiUrl(apiUrl);
+        setScrollMargin(scrollMargin);
         setUsername(username);
         setMusicVolume(musicVolume);
         this.grayOutNearbyCells = grayOutNearbyCells;
@@ -141,4 +147,46 @@ public class OptionsInstance {
     public void setSoundtrackFilePath(String soundtrackFilePath) {
         this.soundtrackFilePath = soundtrackFilePath;
     }
+
+    /**
+     * Gets the cells kept between the cursor and the edges of the screen when a big board scrolls.
+     *
+     * @return The scroll margin.
+     */
+    public int getScrollMargin() {
+        return scrollMargin;
+    }
+
+    /**
+     * Sets the scroll margin.
+     * The margin will be clamped between 0 and 20.
+     *
+     * @param scrollMargin The new scroll margin.
+     */
+    public void setScrollMargin(int scrollMargin) {
+        this.scrollMargin = Math.max(0, Math.min(20, scrollMargin));
+    }
+
+    /**
+     * Gets the address of the global leaderboard server.
+     *
+     * @return The address.
+     */
+    public String getApiUrl() {
+        return apiUrl;
+    }
+
+    /**
+     * Sets the address of the global leaderboard server, to use a self-hosted one.
+     * If the provided address is blank, the default server will be used.
+     *
+     * @param apiUrl The new address.
+     */
+    public void setApiUrl(String apiUrl) {
+        if (apiUrl == null || apiUrl.isBlank()) {
+            this.apiUrl = Constants.defaultApiUrl;
+        } else {
+            this.apiUrl = apiUrl.strip();
+        }
+    }
 }
@@ -0,0 +1,12 @@
+package engine.replay;
+
+/**
+ * One action of a player, decoded from a {@link MoveLog}.
+ *
+ * @param type The action.
+ * @param x    The x-coordinate of the cursor when the action was taken.
+ * @param y    The y-coordinate of the cursor when the action was taken.
+ * @param time The milliseconds since the game started, pauses included.
+ */
+public record Move(MoveType type, int x, int y, long time) {
+}
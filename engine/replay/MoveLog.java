@@ -0,0 +1,355 @@
+package engine.replay;
+
+import engine.utils.GameSeed;
+import engine.utils.MinesweeperDifficulty;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Records every action of a player, to replay the game later with {@link Replay}.
+ *
+ * <p>The log keeps the size of the board and its {@link GameSeed}, which rebuild the board, followed by the moves.
+ * Moves are delta encoded: a byte for the type, then the time since the previous move and the distance from the
+ * previous cursor position as variable length integers. Moving the cursor by one cell a few milliseconds after the
+ * previous move takes 4 bytes, a whole game a few kilobytes.</p>
+ */
+public class MoveLog {
+    /** The first bytes of every log file, "MSML". */
+    public static final int MAGIC = 0x4D534D4C;
+    /** The version of the format, logs of other versions can't be read. */
+    public static final short VERSION = 1;
+    /** The extension of the log files. */
+    public static final String EXTENSION = ".mlog";
+    private static final MoveType[] TYPES = MoveType.values();
+
+    private final MinesweeperDifficulty difficulty;
+    private final int width;
+    private final int height;
+    private final int mines;
+    private GameSeed gameSeed;
+    private byte[] events = new byte[256];
+    private int length = 0;
+    private int moveCount = 0;
+    // The last recorded move, the next one is encoded relative to it
+    private int lastX = 0;
+    private int lastY = 0;
+    private long lastTime = 0;
+
+    /**
+     * @param difficulty The difficulty of the game.
+     * @param width      The width of the minefield.
+     * @param height     The height of the minefield.
+     * @param mines      The number of mines.
+     */
+    public MoveLog(MinesweeperDifficulty difficulty, int width, int height, int mines) {
+        this.difficulty = difficulty;
+        this.width = width;
+        this.height = height;
+        this.mines = mines;
+    }
+
+    /**
+     * Appends a move to the log.
+     *
+     * @param type The action.
+     * @param x    The x-coordinate of the cursor.
+     * @param y    The y-coordinate of the cursor.
+     * @param time The milliseconds since the game started, never less than the time of the previous move.
+     */
+    public void record(MoveType type, int x, int y, long time) {
+        // A type byte and 3 varints of at most 10 bytes
+        if (length + 31 > events.length) {
+            events = Arrays.copyOf(events, events.length * 2);
+        }
+        events[length++] = (byte) type.ordinal();
+        putVarLong(Math.max(0, time - lastTime));
+        putVarLong(zigZag(x - lastX));
+        putVarLong(zigZag(y - lastY));
+        lastX = x;
+        lastY = y;
+        lastTime = Math.max(lastTime, time);
+        moveCount++;
+    }
+
+    private void putVarLong(long value) {
+        while ((value & ~0x7FL) != 0) {
+            events[length++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        events[length++] = (byte) value;
+    }
+
+    private static long zigZag(int value) {
+        return ((long) value << 1) ^ (value >> 31);
+    }
+
+    private static int unZigZag(long value) {
+        return (int) (value >>> 1) ^ -(int) (value & 1);
+    }
+
+    private static long getVarLong(ByteBuffer buffer) {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            byte b = buffer.get();
+            value |= (long) (b & 0x7F) << shift;
+            if (b >= 0) {
+                return value;
+            }
+        }
+        throw new IllegalArgumentException("Malformed variable length integer");
+    }
+
+    /**
+     * Decodes every recorded move.
+     *
+     * @return The moves, in the order they were recorded.
+     * @throws IllegalArgumentException if the moves are corrupted.
+     */
+    public List<Move> getMoves() {
+        List<Move> moves = new ArrayList<>(moveCount);
+        ByteBuffer buffer = ByteBuffer.wrap(events, 0, length);
+        int x = 0;
+        int y = 0;
+        long time = 0;
+        try {
+            for (int i = 0; i < moveCount; i++) {
+                int type = buffer.get();
+                if (type < 0 || type >= TYPES.length) {
+                    throw new IllegalArgumentException("Unknown move type " + type);
+                }
+                time += getVarLong(buffer);
+                x += unZigZag(getVarLong(buffer));
+                y += unZigZag(getVarLong(buffer));
+                moves.add(new Move(TYPES[type], x, y, time));
+            }
+        } catch (BufferUnderflowException e) {
+            throw new IllegalArgumentException("Truncated moves", e);
+        }
+        return moves;
+    }
+
+    /**
+     * Writes the log to a file, replacing it if it exists.
+     *
+     * @param file The file to write.
+     * @throws IOException if the file can't be written.
+     */
+    public void write(Path file) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(Integer.BYTES + Short.BYTES + getStateSize());
+        buffer.putInt(MAGIC);
+        buffer.putShort(VERSION);
+        writeState(buffer);
+        buffer.flip();
+        Files.createDirectories(file.toAbsolutePath().getParent());
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        }
+    }
+
+    /**
+     * Reads a log written by {@link #write(Path)}.
+     *
+     * @param file The file to read.
+     * @return The log, more moves can be recorded in it.
+     * @throws IOException if the file can't be read or isn't a valid log.
+     */
+    public static MoveLog read(Path file) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(file));
+        try {
+            if (buffer.getInt() != MAGIC) {
+                throw new IOException("Not a move log: " + file);
+            }
+            short version = buffer.getShort();
+            if (version != VERSION) {
+                throw new IOException("Unsupported move log version " + version + ": " + file);
+            }
+            MoveLog log = readState(buffer);
+            if (buffer.hasRemaining()) {
+                throw new IOException("Corrupted move log: " + file);
+            }
+            return log;
+        } catch (BufferUnderflowException | IllegalArgumentException e) {
+            throw new IOException("Corrupted move log: " + file, e);
+        }
+    }
+
+    /**
+     * Returns the number of bytes {@link #writeState(ByteBuffer)} writes.
+     *
+     * @return The size of the log, without the header of the files.
+     */
+    public int getStateSize() {
+        return Short.BYTES + difficulty.name().getBytes(StandardCharsets.UTF_8).length
+                + 3 * Integer.BYTES + 1 + Long.BYTES + 2 * Integer.BYTES + 1 + 2 * Integer.BYTES + length;
+    }
+
+    /**
+     * Writes the log without the header of the files, to keep it in another file like a save.
+     *
+     * @param buffer The buffer to write to, with at least {@link #getStateSize()} bytes remaining.
+     */
+    public void writeState(ByteBuffer buffer) {
+        byte[] name = difficulty.name().getBytes(StandardCharsets.UTF_8);
+        buffer.putShort((short) name.length);
+        buffer.put(name);
+        buffer.putInt(width);
+        buffer.putInt(height);
+        buffer.putInt(mines);
+        buffer.put((byte) (gameSeed != null ? 1 : 0));
+        buffer.putLong(gameSeed != null ? gameSeed.seed() : 0);
+        buffer.putInt(gameSeed != null ? gameSeed.firstX() : -1);
+        buffer.putInt(gameSeed != null ? gameSeed.firstY() : -1);
+        buffer.put((byte) (gameSeed != null && gameSeed.safeOpening() ? 1 : 0));
+        buffer.putInt(moveCount);
+        buffer.putInt(length);
+        buffer.put(events, 0, length);
+    }
+
+    /**
+     * Reads a log written by {@link #writeState(ByteBuffer)}.
+     *
+     * @param buffer The buffer to read from, positioned at the start of the log.
+     * @return The log, more moves can be recorded in it.
+     * @throws IllegalArgumentException if the log is corrupted.
+     * @throws BufferUnderflowException if the log is truncated.
+     */
+    public static MoveLog readState(ByteBuffer buffer) {
+        byte[] name = new byte[buffer.getShort() & 0xFFFF];
+        buffer.get(name);
+        MoveLog log = new MoveLog(MinesweeperDifficulty.valueOf(new String(name, StandardCharsets.UTF_8)),
+                buffer.getInt(), buffer.getInt(), buffer.getInt());
+        boolean seeded = buffer.get() != 0;
+        GameSeed gameSeed = new GameSeed(buffer.getLong(), buffer.getInt(), buffer.getInt(), buffer.get() != 0);
+        if (seeded) {
+            log.setGameSeed(gameSeed);
+        }
+        int moveCount = buffer.getInt();
+        int length = buffer.getInt();
+        if (moveCount < 0 || length < 0 || length > buffer.remaining()) {
+            throw new IllegalArgumentException("Corrupted move log");
+        }
+        log.events = new byte[Math.max(length, 256)];
+        buffer.get(log.events, 0, length);
+        log.length = length;
+        log.moveCount = moveCount;
+        // Decoding checks the moves and finds where the next recorded move starts from
+        List<Move> moves = log.getMoves();
+        if (!moves.isEmpty()) {
+            Move last = moves.get(moves.size() - 1);
+            log.lastX = last.x();
+            log.lastY = last.y();
+            log.lastTime = last.time();
+        }
+        return log;
+    }
+
+    /**
+     * @return The time of the last recorded move, in milliseconds since the game started.
+     */
+    public long getLastTime() {
+        return lastTime;
+    }
+
+    /**
+     * Deletes the oldest logs of a directory, so that only the most recent ones are kept.
+     *
+     * @param directory The directory of the logs, other files in it are left alone.
+     * @param keep      The number of logs to keep.
+     * @throws IOException if the directory can't be listed, logs that can't be deleted are skipped.
+     */
+    public static void deleteOldLogs(Path directory, int keep) throws IOException {
+        if (!Files.isDirectory(directory)) {
+            return;
+        }
+        List<Path> logs;
+        try (Stream<Path> files = Files.list(directory)) {
+            logs = files.filter(file -> file.getFileName().toString().endsWith(EXTENSION) && Files.isRegularFile(file))
+                    .collect(Collectors.toCollection(ArrayList::new));
+        }
+        if (logs.size() <= keep) {
+            return;
+        }
+        Map<Path, Long> modified = new HashMap<>();
+        for (Path log : logs) {
+            try {
+                modified.put(log, Files.getLastModifiedTime(log).toMillis());
+            } catch (IOException ignore) {
+                // Deleted meanwhile, it counts as the oldest
+                modified.put(log, Long.MIN_VALUE);
+            }
+        }
+        // Newest first
+        logs.sort(Comparator.comparing(modified::get, Comparator.reverseOrder()));
+        for (Path log : logs.subList(Math.max(keep, 0), logs.size())) {
+            try {
+                Files.deleteIfExists(log);
+            } catch (IOException ignore) {
+                // Tried again after the next game
+            }
+        }
+    }
+
+    /**
+     * Sets the seed of the board, known once the first cell is uncovered.
+     *
+     * @param gameSeed The game seed of the board.
+     */
+    public void setGameSeed(GameSeed gameSeed) {
+        this.gameSeed = gameSeed;
+    }
+
+    /**
+     * @return The game seed of the board, null if the board was never generated.
+     */
+    public GameSeed getGameSeed() {
+        return gameSeed;
+    }
+
+    public MinesweeperDifficulty getDifficulty() {
+        return difficulty;
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    public int getMines() {
+        return mines;
+    }
+
+    /**
+     * @return The number of recorded moves.
+     */
+    public int getMoveCount() {
+        return moveCount;
+    }
+
+    /**
+     * @return The size of the encoded moves, in bytes.
+     */
+    public int getEncodedSize() {
+        return length;
+    }
+}
@@ -0,0 +1,25 @@
+package engine.replay;
+
+/**
+ * The actions of a player recorded in a {@link MoveLog}.
+ */
+public enum MoveType {
+    /** A cell was uncovered. */
+    UNCOVER,
+    /** A flag was put on or removed from a cell. */
+    FLAG,
+    /** The neighbours of a number were uncovered at once. */
+    CHORD,
+    /** The cursor moved, with the arrows or to a hint. */
+    MOVE,
+    /** The game was paused, the clock stopped. */
+    PAUSE,
+    /** The game went on after a pause. */
+    RESUME,
+    /** The player continued after stepping on a mine, for 10 points. */
+    RESPAWN,
+    /** The last move was undone. */
+    UNDO,
+    /** The last undone move was done again. */
+    REDO
+}
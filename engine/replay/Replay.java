@@ -0,0 +1,286 @@
+package engine.replay;
+
+import engine.Minesweeper;
+import engine.UndoHistory;
+import engine.utils.CellType;
+import engine.utils.GameStage;
+import engine.utils.Tuple;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Rebuilds a recorded game at any of its moves.
+ *
+ * <p>The board is generated again from the game seed of the {@link MoveLog}, and the moves are played on it with
+ * the same rules as the game: score, respawns and pauses included. Every {@link #SNAPSHOT_INTERVAL} moves a snapshot
+ * of the packed board is kept, so seeking to a move only plays the moves since the closest snapshot before it,
+ * instead of every flood fill since the start of the game. Snapshots keep a copy of the undo history too, sharing
+ * its moves, so undoing right after a seek works like it did in the game.</p>
+ */
+public class Replay {
+    /** The number of moves between two snapshots. */
+    public static final int SNAPSHOT_INTERVAL = 256;
+
+    /**
+     * The state of the replay before a move.
+     */
+    private record Snapshot(byte[] board, UndoHistory history, int score, int respawns, long pausedMillis, long pausedAt,
+                            boolean lost) {
+    }
+
+    private final MoveLog log;
+    private final List<Move> moves;
+    // Snapshots by the number of moves played before them
+    private final TreeMap<Integer, Snapshot> snapshots = new TreeMap<>();
+    private Minesweeper minesweeper;
+    // The number of moves played so far
+    private int position = 0;
+    private int score = 0;
+    private int respawns = 0;
+    private long pausedMillis = 0;
+    // The time the game was paused at, -1 while it's not paused
+    private long pausedAt = -1;
+    private boolean lost = false;
+
+    /**
+     * @param log The recorded game.
+     * @throws IllegalArgumentException if the moves of the log are corrupted.
+     */
+    public Replay(MoveLog log) {
+        this.log = log;
+        this.moves = log.getMoves();
+        if (log.getGameSeed() != null) {
+            minesweeper = Minesweeper.generate(log.getWidth(), log.getHeight(), log.getMines(), log.getGameSeed());
+        } else {
+            // The board was never generated, so no cell was ever uncovered
+            minesweeper = new Minesweeper(log.getWidth(), log.getHeight(), log.getMines());
+        }
+        snapshots.put(0, takeSnapshot());
+    }
+
+    /**
+     * Rebuilds the game as it was after a number of moves.
+     *
+     * @param move The number of moves played, between 0 and {@link #getMoveCount()}.
+     */
+    public void seek(int move) {
+        move = Math.max(0, Math.min(move, moves.size()));
+        Map.Entry<Integer, Snapshot> closest = snapshots.floorEntry(move);
+        // Going back, or so far forward that a snapshot is closer than the current move
+        if (move < position || closest.getKey() > position) {
+            restore(closest.getValue());
+            position = closest.getKey();
+        }
+        while (position < move) {
+            step();
+        }
+    }
+
+    /**
+     * Plays the next move.
+     *
+     * @return false if every move has been played.
+     */
+    public boolean step() {
+        if (position >= moves.size()) {
+            return false;
+        }
+        apply(moves.get(position));
+        position++;
+        if (position % SNAPSHOT_INTERVAL == 0 && !snapshots.containsKey(position)) {
+            snapshots.put(position, takeSnapshot());
+        }
+        return true;
+    }
+
+    /**
+     * Plays a move with the rules of the game: opened cells are worth a point, except the mines, and continuing after
+     * a mine costs 10 points.
+     */
+    private void apply(Move move) {
+        switch (move.type()) {
+            case UNCOVER -> {
+                boolean wasUncovered = minesweeper.isUncovered(move.x(), move.y());
+                addScore(minesweeper.uncover(move.x(), move.y()), wasUncovered);
+            }
+            case CHORD -> addScore(minesweeper.chord(move.x(), move.y()), false);
+            case FLAG -> minesweeper.toggleHighlightCell(move.x(), move.y());
+            case PAUSE -> {
+                if (pausedAt < 0) {
+                    pausedAt = move.time();
+                }
+            }
+            case RESUME -> {
+                if (pausedAt >= 0) {
+                    pausedMillis += move.time() - pausedAt;
+                    pausedAt = -1;
+                }
+            }
+            case RESPAWN -> {
+                score -= 10;
+                respawns++;
+                lost = false;
+            }
+            case UNDO -> {
+                Tuple<CellType, Tuple<Integer, Boolean>> undone = minesweeper.undo();
+                // A mine stepped on gave no points, there are none to take back
+                if (undone != null && undone.first() != null) {
+                    score -= undone.second().second() ? undone.second().first()
+                            : undone.second().first() - minesweeper.getLastMinesOpened();
+                }
+            }
+            case REDO -> {
+                Tuple<CellType, Tuple<Integer, Boolean>> redone = minesweeper.redo();
+                if (redone != null) {
+                    addScore(redone, false);
+                }
+            }
+            case MOVE -> {
+                // Only the cursor moves, it's read from the move itself
+            }
+        }
+    }
+
+    private void addScore(Tuple<CellType, Tuple<Integer, Boolean>> result, boolean wasUncovered) {
+        if (result.first() == null) {
+            return;
+        }
+        if (result.first() == CellType.MINE && !wasUncovered && !result.second().second()) {
+            lost = true;
+            score += result.second().first() - minesweeper.getLastMinesOpened();
+        } else {
+            score += result.second().first();
+        }
+    }
+
+    private Snapshot takeSnapshot() {
+        ByteBuffer buffer = ByteBuffer.allocate(minesweeper.getStateSize());
+        minesweeper.writeState(buffer);
+        // The moves of the history never change, the copy shares them
+        return new Snapshot(buffer.array(), minesweeper.getUndoHistory().copy(), score, respawns, pausedMillis, pausedAt, lost);
+    }
+
+    private void restore(Snapshot snapshot) {
+        minesweeper = Minesweeper.readState(ByteBuffer.wrap(snapshot.board()));
+        minesweeper.setUndoHistory(snapshot.history().copy());
+        score = snapshot.score();
+        respawns = snapshot.respawns();
+        pausedMillis = snapshot.pausedMillis();
+        pausedAt = snapshot.pausedAt();
+        lost = snapshot.lost();
+    }
+
+    /**
+     * @return The board after the moves played so far. It's replaced when seeking back, get it again after a seek.
+     */
+    public Minesweeper getMinesweeper() {
+        return minesweeper;
+    }
+
+    /**
+     * @return The number of moves played so far.
+     */
+    public int getPosition() {
+        return position;
+    }
+
+    /**
+     * @return The number of recorded moves.
+     */
+    public int getMoveCount() {
+        return moves.size();
+    }
+
+    /**
+     * @param index The index of the move.
+     * @return The recorded move.
+     */
+    public Move getMove(int index) {
+        return moves.get(index);
+    }
+
+    /**
+     * @return The score after the moves played so far.
+     */
+    public int getScore() {
+        return score;
+    }
+
+    public int getRespawns() {
+        return respawns;
+    }
+
+    /**
+     * @return true if the last mine stepped on hasn't been followed by a respawn.
+     */
+    public boolean isLost() {
+        return lost;
+    }
+
+    /**
+     * @return true if the board has been cleared.
+     */
+    public boolean isWon() {
+        return minesweeper.isGenerated() && minesweeper.getGameStage() == GameStage.WON;
+    }
+
+    /**
+     * @return The time of the last move played, pauses included.
+     */
+    public long getTime() {
+        return position == 0 ? 0 : moves.get(position - 1).time();
+    }
+
+    /**
+     * Returns the time actually played until the last move played, the time the game clock shows.
+     * Comparing it with the time sent to the leaderboard tells if the time was tampered with.
+     *
+     * @return The time played, pauses excluded.
+     */
+    public long getPlayedMillis() {
+        long paused = pausedMillis + (pausedAt >= 0 ? getTime() - pausedAt : 0);
+        return getTime() - paused;
+    }
+
+    /**
+     * @return The recorded game.
+     */
+    public MoveLog getLog() {
+        return log;
+    }
+
+    /**
+     * Replays logs to the end and prints what a leaderboard entry of each should be, to check suspicious times.
+     * {@code java engine.replay.Replay <log file>...}
+     */
+    public static void main(String[] args) {
+        if (args.length == 0) {
+            System.out.println("Usage: Replay <log file>...");
+            return;
+        }
+        for (String arg : args) {
+            Path file = Paths.get(arg);
+            try {
+                Replay replay = new Replay(MoveLog.read(file));
+                replay.seek(replay.getMoveCount());
+                MoveLog log = replay.getLog();
+                long played = replay.getPlayedMillis();
+                String outcome = replay.isWon() ? "won" : replay.isLost() ? "lost" : "unfinished";
+                System.out.println(file + ": " + log.getDifficulty() + " " + log.getWidth() + "x" + log.getHeight() + ", "
+                        + log.getMines() + " mines, seed " + log.getGameSeed());
+                System.out.printf("  %d moves, %s, score %d, %d respawns%n",
+                        replay.getMoveCount(), outcome, replay.getScore(), replay.getRespawns());
+                System.out.printf("  played %02d:%02d (%d ms), %d ms with the pauses%n",
+                        played / 60000, played / 1000 % 60, played, replay.getTime());
+            } catch (IOException | IllegalArgumentException e) {
+                System.out.println(file + ": " + e.getMessage());
+            }
+        }
+    }
+}
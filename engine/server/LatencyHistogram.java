@@ -0,0 +1,106 @@
+package engine.server;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Counts latencies in microseconds, to read their percentiles.
+ *
+ * <p>The buckets are log-linear: latencies under 128 microseconds have a bucket each, then every power of two is split in 64
+ * buckets, so a percentile is never more than 1.6% above the real latency, from a microsecond to days, in less than
+ * 4000 counters. Recording is a single atomic increment and can be done from any thread.</p>
+ */
+public class LatencyHistogram {
+    private static final int SUB_BUCKET_BITS = 6;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int BUCKETS = (64 - SUB_BUCKET_BITS) * SUB_BUCKETS;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final AtomicLong count = new AtomicLong();
+    private final AtomicLong total = new AtomicLong();
+    private final AtomicLong max = new AtomicLong();
+
+    /**
+     * @param micros The latency in microseconds, negative ones are counted as 0.
+     */
+    public void record(long micros) {
+        micros = Math.max(0, micros);
+        counts.incrementAndGet(bucketOf(micros));
+        count.incrementAndGet();
+        total.addAndGet(micros);
+        max.accumulateAndGet(micros, Math::max);
+    }
+
+    /**
+     * @return The number of recorded latencies.
+     */
+    public long getCount() {
+        return count.get();
+    }
+
+    /**
+     * @return The highest recorded latency in microseconds.
+     */
+    public long getMax() {
+        return max.get();
+    }
+
+    /**
+     * @return The mean latency in microseconds.
+     */
+    public double getMean() {
+        long n = count.get();
+        return n == 0 ? 0 : (double) total.get() / n;
+    }
+
+    /**
+     * Returns the latency under which the given share of the latencies are.
+     *
+     * @param percentile The share, between 0 and 100.
+     * @return The highest latency of the bucket holding the percentile, in microseconds, or 0 if nothing was recorded.
+     */
+    public long getPercentile(double percentile) {
+        long n = count.get();
+        if (n == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(Math.min(100, percentile) / 100 * n));
+        long seen = 0;
+        for (int bucket = 0; bucket < BUCKETS; bucket++) {
+            seen += counts.get(bucket);
+            if (seen >= rank) {
+                return Math.min(highestOf(bucket), max.get());
+            }
+        }
+        return max.get();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%d requests, mean %s, p50 %s, p90 %s, p99 %s, p99.9 %s, max %s",
+                getCount(), format(getMean()), format(getPercentile(50)), format(getPercentile(90)),
+                format(getPercentile(99)), format(getPercentile(99.9)), format(getMax()));
+    }
+
+    private static int bucketOf(long micros) {
+        if (micros < 2 * SUB_BUCKETS) {
+            return (int) micros;
+        }
+        // The bits below the 7 highest ones are dropped
+        int shift = 63 - Long.numberOfLeadingZeros(micros) - SUB_BUCKET_BITS;
+        return shift * SUB_BUCKETS + (int) (micros >>> shift);
+    }
+
+    private static long highestOf(int bucket) {
+        if (bucket < 2 * SUB_BUCKETS) {
+            return bucket;
+        }
+        int shift = bucket / SUB_BUCKETS - 1;
+        long mantissa = bucket % SUB_BUCKETS + SUB_BUCKETS;
+        return ((mantissa + 1) << shift) - 1;
+    }
+
+    private static String format(double micros) {
+        return micros < 1000 ? String.format("%.0fus", micros) : String.format("%.1fms", micros / 1000);
+    }
+}
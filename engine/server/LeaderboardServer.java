@@ -0,0 +1,298 @@
+package engine.server;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import engine.Leaderboard;
+import engine.utils.Constants;
+import engine.utils.GameSeed;
+import engine.utils.MinesweeperDifficulty;
+import engine.utils.Tuple;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * A leaderboard server with the API the game talks to, to host the global leaderboard yourself.
+ *
+ * <ul>
+ *     <li>{@code GET /raw} sends {"users": [...], "cursor": "..."}. {@code ?limit=n} sends only the best n entries of
+ *     each difficulty, {@code ?since=cursor} only the entries added after the cursor, with {@code "delta": true}.
+ *     The cursor is the ETag of the board, a request with the current one in If-None-Match gets "304 Not Modified".
+ *     Bodies are compressed with gzip for the clients accepting it.</li>
+ *     <li>{@code POST /submit} adds an entry, after checking every field of it. Sending the same entry again is
+ *     accepted but doesn't add it twice.</li>
+ * </ul>
+ *
+ * <p>Requests are handled by a fixed pool of threads over the {@link LeaderboardStore}, whose difficulties are locked
+ * separately. The entries are saved to the snapshot file every {@link Constants#serverSnapshotSeconds} seconds if
+ * they changed, and when the server stops.</p>
+ *
+ * <p>It's run from the command line: {@code java engine.server.LeaderboardServer [port] [snapshot file] [threads]},
+ * then the game is pointed to it with the "apiUrl" of its options.</p>
+ */
+public class LeaderboardServer {
+    // The biggest submission accepted, an entry takes about 150 bytes
+    private static final int MAX_BODY_SIZE = 4096;
+    // Bodies smaller than this aren't worth compressing
+    private static final int GZIP_MIN_SIZE = 1024;
+    private static final Pattern TIME = Pattern.compile("\\d{1,4}:[0-5]\\d");
+
+    private final HttpServer server;
+    private final LeaderboardStore store;
+    private final ExecutorService workers;
+    private final ScheduledExecutorService snapshots = Executors.newSingleThreadScheduledExecutor();
+
+    /**
+     * @param address The address to listen on, port 0 for any free port.
+     * @param store   The entries.
+     * @param threads The number of threads handling the requests.
+     * @throws IOException if the address can't be listened on.
+     */
+    public LeaderboardServer(InetSocketAddress address, LeaderboardStore store, int threads) throws IOException {
+        this.store = store;
+        this.server = HttpServer.create(address, Constants.serverBacklog);
+        this.workers = Executors.newFixedThreadPool(Math.max(1, threads));
+        server.setExecutor(workers);
+        server.createContext("/raw", this::handleRaw);
+        server.createContext("/submit", this::handleSubmit);
+    }
+
+    /**
+     * Starts answering requests and saving snapshots.
+     */
+    public void start() {
+        server.start();
+        snapshots.scheduleWithFixedDelay(this::snapshot, Constants.serverSnapshotSeconds, Constants.serverSnapshotSeconds,
+                TimeUnit.SECONDS);
+    }
+
+    /**
+     * Stops the server and saves a last snapshot.
+     */
+    public void stop() {
+        server.stop(1);
+        workers.shutdown();
+        snapshots.shutdown();
+        snapshot();
+    }
+
+    /**
+     * @return The port the server listens on.
+     */
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    private void snapshot() {
+        try {
+            store.snapshot();
+        } catch (IOException e) {
+            System.err.println("Snapshot failed: " + e.getMessage());
+        }
+    }
+
+    private void handleRaw(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            if (!exchange.getRequestURI().getPath().equals("/raw")) {
+                sendError(exchange, 404, "Not found");
+                return;
+            }
+            if (!exchange.getRequestMethod().equals("GET")) {
+                sendError(exchange, 405, "Use GET");
+                return;
+            }
+            String etag = "\"" + store.getCursor() + "\"";
+            if (etag.equals(exchange.getRequestHeaders().getFirst("If-None-Match"))) {
+                exchange.getResponseHeaders().set("ETag", etag);
+                exchange.sendResponseHeaders(304, -1);
+                return;
+            }
+            Map<String, String> query = parseQuery(exchange.getRequestURI().getRawQuery());
+            Tuple<List<Leaderboard.User>, String> users = null;
+            boolean delta = false;
+            if (query.containsKey("since")) {
+                users = store.getSince(query.get("since"));
+                delta = users != null;
+            }
+            if (users == null) {
+                // A cursor from before a restart gets the whole board
+                int limit;
+                try {
+                    limit = Integer.parseInt(query.getOrDefault("limit", "0"));
+                } catch (NumberFormatException e) {
+                    sendError(exchange, 400, "Invalid limit");
+                    return;
+                }
+                users = store.getBest(limit);
+            }
+
+            StringBuilder json = new StringBuilder(users.first().size() * 100 + 64).append("{\"users\":[");
+            boolean first = true;
+            for (Leaderboard.User user : users.first()) {
+                if (!first) {
+                    json.append(',');
+                }
+                first = false;
+                appendUser(json, user);
+            }
+            json.append("],\"cursor\":").append(JSONObject.quote(users.second()));
+            if (delta) {
+                json.append(",\"delta\":true");
+            }
+            json.append('}');
+            exchange.getResponseHeaders().set("ETag", "\"" + users.second() + "\"");
+            send(exchange, 200, json.toString());
+        }
+    }
+
+    private void handleSubmit(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            if (!exchange.getRequestURI().getPath().equals("/submit")) {
+                sendError(exchange, 404, "Not found");
+                return;
+            }
+            if (!exchange.getRequestMethod().equals("POST")) {
+                sendError(exchange, 405, "Use POST");
+                return;
+            }
+            byte[] body = readBody(exchange.getRequestBody());
+            if (body == null) {
+                sendError(exchange, 413, "Submission too big");
+                return;
+            }
+            Leaderboard.User user;
+            try {
+                user = parseUser(new JSONObject(new String(body, StandardCharsets.UTF_8)));
+            } catch (JSONException | IllegalArgumentException e) {
+                sendError(exchange, 400, e.getMessage());
+                return;
+            }
+            store.add(user);
+            send(exchange, 200, "{\"status\":\"ok\"}");
+        }
+    }
+
+    /**
+     * Checks every field of a submitted entry.
+     *
+     * @throws IllegalArgumentException if a field is missing or invalid.
+     */
+    static Leaderboard.User parseUser(JSONObject json) {
+        String username = json.optString("username", null);
+        if (username == null || username.isBlank() || username.getBytes(StandardCharsets.UTF_8).length > 32
+                || username.chars().anyMatch(Character::isISOControl)) {
+            throw new IllegalArgumentException("Invalid username");
+        }
+        if (!(json.opt("score") instanceof Number score) || score.longValue() < 0 || score.longValue() > Integer.MAX_VALUE
+                || score.doubleValue() != score.longValue()) {
+            throw new IllegalArgumentException("Invalid score");
+        }
+        String time = json.optString("time", null);
+        if (time == null || !TIME.matcher(time).matches()) {
+            throw new IllegalArgumentException("Invalid time");
+        }
+        MinesweeperDifficulty difficulty;
+        try {
+            difficulty = MinesweeperDifficulty.valueOf(json.optString("difficulty", "").toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid difficulty");
+        }
+        GameSeed seed = null;
+        if (json.has("seed") && !json.isNull("seed")) {
+            seed = GameSeed.parse(json.optString("seed", null));
+            if (seed == null) {
+                throw new IllegalArgumentException("Invalid seed");
+            }
+        }
+        return new Leaderboard.User(username, score.intValue(), time, difficulty, seed);
+    }
+
+    private static void appendUser(StringBuilder json, Leaderboard.User user) {
+        json.append("{\"username\":").append(JSONObject.quote(user.username()))
+                .append(",\"score\":").append(user.score())
+                .append(",\"time\":").append(JSONObject.quote(user.time()))
+                .append(",\"difficulty\":\"").append(user.difficulty().name()).append('"');
+        if (user.seed() != null) {
+            json.append(",\"seed\":\"").append(user.seed()).append('"');
+        }
+        json.append('}');
+    }
+
+    /**
+     * @return The body, or null if it's bigger than {@link #MAX_BODY_SIZE}.
+     */
+    private static byte[] readBody(InputStream input) throws IOException {
+        byte[] body = input.readNBytes(MAX_BODY_SIZE + 1);
+        return body.length > MAX_BODY_SIZE ? null : body;
+    }
+
+    private static Map<String, String> parseQuery(String query) {
+        Map<String, String> parameters = new HashMap<>();
+        if (query == null) {
+            return parameters;
+        }
+        for (String parameter : query.split("&")) {
+            int equals = parameter.indexOf('=');
+            if (equals > 0) {
+                parameters.put(URLDecoder.decode(parameter.substring(0, equals), StandardCharsets.UTF_8),
+                        URLDecoder.decode(parameter.substring(equals + 1), StandardCharsets.UTF_8));
+            }
+        }
+        return parameters;
+    }
+
+    private static void sendError(HttpExchange exchange, int status, String message) throws IOException {
+        send(exchange, status, new JSONObject().put("error", String.valueOf(message)).toString());
+    }
+
+    private static void send(HttpExchange exchange, int status, String json) throws IOException {
+        byte[] body = json.getBytes(StandardCharsets.UTF_8);
+        String accepted = exchange.getRequestHeaders().getFirst("Accept-Encoding");
+        if (body.length >= GZIP_MIN_SIZE && accepted != null && accepted.contains("gzip")) {
+            ByteArrayOutputStream compressed = new ByteArrayOutputStream(body.length / 4);
+            try (GZIPOutputStream gzip = new GZIPOutputStream(compressed)) {
+                gzip.write(body);
+            }
+            body = compressed.toByteArray();
+            exchange.getResponseHeaders().set("Content-Encoding", "gzip");
+        }
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        exchange.sendResponseHeaders(status, body.length);
+        try (OutputStream output = exchange.getResponseBody()) {
+            output.write(body);
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : Constants.serverPort;
+        Path snapshotFile = Paths.get(args.length > 1 ? args[1] : Constants.serverSnapshotFile);
+        int threads = args.length > 2 ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors() * 2;
+
+        LeaderboardStore store = new LeaderboardStore(snapshotFile);
+        store.load();
+        LeaderboardServer server = new LeaderboardServer(new InetSocketAddress(port), store, threads);
+        server.start();
+        // Ctrl+C saves the entries before exiting
+        Runtime.getRuntime().addShutdownHook(new Thread(server::stop));
+        System.out.println("Leaderboard server on port " + server.getPort() + " with " + store.size()
+                + " entries, " + threads + " threads, saving to " + snapshotFile.toAbsolutePath());
+    }
+}
@@ -0,0 +1,258 @@
+package engine.server;
+
+import engine.Leaderboard;
+import engine.utils.IndexedSkipList;
+import engine.utils.LeaderboardIndex;
+import engine.utils.LeaderboardLog;
+import engine.utils.MinesweeperDifficulty;
+import engine.utils.Tuple;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * The entries of the leaderboard server, ranked in memory and saved to disk from time to time.
+ *
+ * <p>Each difficulty is a stripe with its own lock, so submissions on different difficulties never wait for each
+ * other, and reads only wait for the writes of the difficulties they read. A stripe keeps its entries twice: in
+ * the order they arrived, for the entries "since a cursor", and in an {@link IndexedSkipList} ranked like
+ * {@link LeaderboardIndex} ranks them, for the best entries. Adding an entry takes O(log n).</p>
+ *
+ * <p>A cursor is the number of entries of every stripe, with an epoch that changes every time the store is created.
+ * A cursor of another epoch, sent by a client before the server restarted, isn't trusted: the client gets the whole
+ * board again. The same entry submitted twice is only kept once, so clients can retry their submissions.</p>
+ *
+ * <p>{@link #snapshot()} writes every entry to a {@link LeaderboardLog}, through a temporary file, and
+ * {@link #load()} reads them back.</p>
+ */
+public class LeaderboardStore {
+    /**
+     * A stored entry.
+     *
+     * @param user     The entry.
+     * @param seconds  The time of the entry in seconds.
+     * @param sequence The number of entries of the stripe before it.
+     */
+    private record Entry(Leaderboard.User user, int seconds, long sequence) {
+    }
+
+    private static final class Stripe {
+        private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+        private final IndexedSkipList<Entry> ranking = new IndexedSkipList<>(ORDER);
+        private final List<Entry> entries = new ArrayList<>();
+        // The size of entries, read without the lock for the ETag
+        private final AtomicInteger size = new AtomicInteger();
+    }
+
+    private static final Comparator<Entry> ORDER = ((Comparator<Entry>) (a, b) -> Integer.compare(b.user().score(), a.user().score()))
+            .thenComparingInt(Entry::seconds)
+            .thenComparingLong(Entry::sequence);
+    private static final MinesweeperDifficulty[] DIFFICULTIES = MinesweeperDifficulty.values();
+
+    private final Map<MinesweeperDifficulty, Stripe> stripes = new EnumMap<>(MinesweeperDifficulty.class);
+    private final Set<Leaderboard.User> stored = ConcurrentHashMap.newKeySet();
+    private final String epoch = Long.toHexString(new Random().nextLong() & Long.MAX_VALUE);
+    private final LeaderboardLog snapshotLog;
+    // Counts the added entries, to skip the snapshots when nothing changed
+    private final AtomicLong version = new AtomicLong();
+    private long snapshotVersion = 0;
+
+    /**
+     * @param snapshotFile The file the entries are saved to, or null to keep them in memory only.
+     */
+    public LeaderboardStore(Path snapshotFile) {
+        this.snapshotLog = snapshotFile == null ? null : new LeaderboardLog(snapshotFile);
+        // Every stripe exists from the start, the map is never changed after
+        for (MinesweeperDifficulty difficulty : DIFFICULTIES) {
+            stripes.put(difficulty, new Stripe());
+        }
+    }
+
+    /**
+     * Adds an entry to its difficulty.
+     *
+     * @param user A valid entry.
+     * @return false if the same entry was already stored.
+     */
+    public boolean add(Leaderboard.User user) {
+        if (!stored.add(user)) {
+            return false;
+        }
+        Stripe stripe = stripes.get(user.difficulty());
+        stripe.lock.writeLock().lock();
+        try {
+            Entry entry = new Entry(user, LeaderboardIndex.parseSeconds(user.time()), stripe.entries.size());
+            stripe.entries.add(entry);
+            stripe.ranking.add(entry);
+            stripe.size.set(stripe.entries.size());
+        } finally {
+            stripe.lock.writeLock().unlock();
+        }
+        version.incrementAndGet();
+        return true;
+    }
+
+    /**
+     * Returns the best entries of every difficulty, and the cursor of the store when they were read.
+     *
+     * @param limit The number of entries of each difficulty, 0 or less for all of them.
+     * @return The entries, best first for each difficulty, and the cursor.
+     */
+    public Tuple<List<Leaderboard.User>, String> getBest(int limit) {
+        List<Leaderboard.User> users = new ArrayList<>();
+        int[] counts = new int[DIFFICULTIES.length];
+        for (MinesweeperDifficulty difficulty : DIFFICULTIES) {
+            Stripe stripe = stripes.get(difficulty);
+            stripe.lock.readLock().lock();
+            try {
+                int count = limit > 0 ? Math.min(limit, stripe.ranking.size()) : stripe.ranking.size();
+                for (Entry entry : stripe.ranking.subList(0, count)) {
+                    users.add(entry.user());
+                }
+                counts[difficulty.ordinal()] = stripe.entries.size();
+            } finally {
+                stripe.lock.readLock().unlock();
+            }
+        }
+        return new Tuple<>(users, toCursor(counts));
+    }
+
+    /**
+     * Returns the entries added after a cursor, and the cursor of the store when they were read.
+     *
+     * @param cursor A cursor returned by this store.
+     * @return The entries, in the order they were added for each difficulty, and the cursor,
+     * or null if the cursor isn't one of this store.
+     */
+    public Tuple<List<Leaderboard.User>, String> getSince(String cursor) {
+        int[] from = parseCursor(cursor);
+        if (from == null) {
+            return null;
+        }
+        List<Leaderboard.User> users = new ArrayList<>();
+        int[] counts = new int[DIFFICULTIES.length];
+        for (MinesweeperDifficulty difficulty : DIFFICULTIES) {
+            Stripe stripe = stripes.get(difficulty);
+            stripe.lock.readLock().lock();
+            try {
+                int size = stripe.entries.size();
+                // Entries are never removed, a cursor further than the end isn't one of this store
+                if (from[difficulty.ordinal()] > size) {
+                    return null;
+                }
+                for (int i = from[difficulty.ordinal()]; i < size; i++) {
+                    users.add(stripe.entries.get(i).user());
+                }
+                counts[difficulty.ordinal()] = size;
+            } finally {
+                stripe.lock.readLock().unlock();
+            }
+        }
+        return new Tuple<>(users, toCursor(counts));
+    }
+
+    /**
+     * @return The cursor of the store now, it changes with every added entry.
+     */
+    public String getCursor() {
+        int[] counts = new int[DIFFICULTIES.length];
+        for (MinesweeperDifficulty difficulty : DIFFICULTIES) {
+            counts[difficulty.ordinal()] = stripes.get(difficulty).size.get();
+        }
+        return toCursor(counts);
+    }
+
+    /**
+     * @return The number of stored entries.
+     */
+    public int size() {
+        return stored.size();
+    }
+
+    /**
+     * Reads the entries of the snapshot file, if it exists.
+     *
+     * @throws IOException if the snapshot can't be read.
+     */
+    public void load() throws IOException {
+        if (snapshotLog != null) {
+            snapshotLog.read(this::add);
+            synchronized (this) {
+                snapshotVersion = version.get();
+            }
+        }
+    }
+
+    /**
+     * Writes every entry to the snapshot file, unless nothing was added since the last snapshot.
+     *
+     * @throws IOException if the snapshot can't be written, the previous one is kept.
+     */
+    public synchronized void snapshot() throws IOException {
+        long current = version.get();
+        if (snapshotLog == null || current == snapshotVersion) {
+            return;
+        }
+        List<Leaderboard.User> users = new ArrayList<>(stored.size());
+        for (MinesweeperDifficulty difficulty : DIFFICULTIES) {
+            Stripe stripe = stripes.get(difficulty);
+            stripe.lock.readLock().lock();
+            try {
+                for (Entry entry : stripe.entries) {
+                    users.add(entry.user());
+                }
+            } finally {
+                stripe.lock.readLock().unlock();
+            }
+        }
+        snapshotLog.compact(users);
+        snapshotVersion = current;
+    }
+
+    private String toCursor(int[] counts) {
+        StringBuilder cursor = new StringBuilder(epoch).append(':');
+        for (int i = 0; i < counts.length; i++) {
+            if (i > 0) {
+                cursor.append('.');
+            }
+            cursor.append(counts[i]);
+        }
+        return cursor.toString();
+    }
+
+    /**
+     * @return The number of entries of every stripe in the cursor, or null if it isn't a cursor of this store.
+     */
+    private int[] parseCursor(String cursor) {
+        if (cursor == null || !cursor.startsWith(epoch + ":")) {
+            return null;
+        }
+        String[] parts = cursor.substring(epoch.length() + 1).split("\\.");
+        if (parts.length != DIFFICULTIES.length) {
+            return null;
+        }
+        int[] counts = new int[parts.length];
+        try {
+            for (int i = 0; i < parts.length; i++) {
+                counts[i] = Integer.parseInt(parts[i]);
+                if (counts[i] < 0) {
+                    return null;
+                }
+            }
+        } catch (NumberFormatException ignore) {
+            return null;
+        }
+        return counts;
+    }
+}
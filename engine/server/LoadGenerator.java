@@ -0,0 +1,187 @@
+package engine.server;
+
+import engine.Leaderboard;
+import engine.utils.Constants;
+import engine.utils.LeaderboardClient;
+import engine.utils.LeaderboardJsonReader;
+import engine.utils.MinesweeperDifficulty;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Sends submissions and reads to a leaderboard server at a fixed rate and measures their latencies.
+ *
+ * <p>The load is open-loop: request {@code i} is planned at {@code i / rate} seconds from the start and sent then,
+ * whether the previous ones were answered or not, like players who don't wait for each other. Its latency is counted
+ * from the planned time, so a server or a generator falling behind shows up in the percentiles instead of slowing
+ * the load down. Requests are sent asynchronously, a single thread plans them and any number can be in flight.</p>
+ *
+ * <p>Submissions go through {@link LeaderboardClient#submit(Leaderboard.User)}, without retries, so they measure the
+ * serialization and the connections of the game itself. Reads ask for {@code raw?limit=} like the first refresh of
+ * the game and parse the whole body with a {@link LeaderboardJsonReader}. They don't go through
+ * {@link LeaderboardClient#refresh()}, which would merge the concurrent ones into one request.</p>
+ *
+ * <p>It can also be run from the command line, against a running server or an embedded one kept in memory:
+ * {@code java engine.server.LoadGenerator <requests/s> <seconds> [read %] [url]}</p>
+ */
+public class LoadGenerator {
+    // A request sent later than this after its planned time is counted as late
+    private static final long LATE_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+    private static final MinesweeperDifficulty[] DIFFICULTIES = MinesweeperDifficulty.values();
+
+    private final URI baseUri;
+    private final LeaderboardClient client;
+    private final HttpClient http;
+    private final int readPercent;
+
+    /**
+     * @param baseUri     The address of the server.
+     * @param readPercent The share of the requests that are reads, between 0 and 100, the others are submissions.
+     */
+    public LoadGenerator(URI baseUri, int readPercent) {
+        this.baseUri = baseUri.toString().endsWith("/") ? baseUri : URI.create(baseUri + "/");
+        // The client never refreshes, its cache file is never read or written
+        Path cacheFile = Paths.get(System.getProperty("java.io.tmpdir"), "loadtest_leaderboard.json");
+        this.client = new LeaderboardClient(this.baseUri, cacheFile, 0);
+        this.http = HttpClient.newBuilder()
+                .connectTimeout(Duration.ofMillis(Constants.apiConnectTimeoutMillis))
+                .build();
+        this.readPercent = Math.max(0, Math.min(100, readPercent));
+    }
+
+    /**
+     * Sends the requests and waits for the last response.
+     *
+     * @param rate    The number of requests per second.
+     * @param seconds How long the requests are sent for.
+     * @param seed    The seed of the requests, the same seed sends the same entries in the same order.
+     * @return The outcome of the test.
+     */
+    public LoadResult run(double rate, double seconds, long seed) {
+        long requests = Math.max(1, (long) (rate * seconds));
+        double interval = 1e9 / rate;
+        Random random = new Random(seed);
+        LatencyHistogram submits = new LatencyHistogram();
+        LatencyHistogram reads = new LatencyHistogram();
+        AtomicLong failed = new AtomicLong();
+        long late = 0;
+        List<CompletableFuture<?>> inFlight = new ArrayList<>();
+
+        long start = System.nanoTime();
+        for (long i = 0; i < requests; i++) {
+            long planned = start + (long) (i * interval);
+            long wait = planned - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(wait);
+            } else if (-wait > LATE_NANOS) {
+                late++;
+            }
+            boolean read = random.nextInt(100) < readPercent;
+            CompletableFuture<?> request = read ? read() : client.submit(randomUser(random, i));
+            LatencyHistogram histogram = read ? reads : submits;
+            inFlight.add(request.whenComplete((ignore, e) -> {
+                if (e == null) {
+                    histogram.record((System.nanoTime() - planned) / 1000);
+                } else {
+                    failed.incrementAndGet();
+                }
+            }));
+            // Drop the answered requests, a long test would keep them all otherwise
+            if (inFlight.size() >= 4096) {
+                inFlight.removeIf(CompletableFuture::isDone);
+            }
+        }
+        try {
+            CompletableFuture.allOf(inFlight.toArray(new CompletableFuture<?>[0])).join();
+        } catch (CompletionException ignore) {
+            // Failures are counted by each request
+        }
+        return new LoadResult(requests, failed.get(), late, System.nanoTime() - start, submits, reads);
+    }
+
+    /**
+     * Downloads the best entries and parses them.
+     *
+     * @return A future completed with the number of entries read.
+     */
+    private CompletableFuture<Integer> read() {
+        HttpRequest request = HttpRequest.newBuilder(baseUri.resolve("raw?limit=" + Constants.globalLeaderboardSize))
+                .timeout(Duration.ofMillis(Constants.apiRequestTimeoutMillis))
+                .header("Accept-Encoding", "gzip")
+                .GET()
+                .build();
+        return http.sendAsync(request, HttpResponse.BodyHandlers.ofByteArray()).thenApply(response -> {
+            if (response.statusCode() != 200) {
+                throw new CompletionException(new LeaderboardClient.HttpStatusException(response.statusCode(), request.uri()));
+            }
+            try {
+                InputStream body = new ByteArrayInputStream(response.body());
+                if (response.headers().firstValue("Content-Encoding").orElse("").equalsIgnoreCase("gzip")) {
+                    body = new GZIPInputStream(body);
+                }
+                int users = 0;
+                try (LeaderboardJsonReader reader = new LeaderboardJsonReader(body)) {
+                    while (reader.nextUser() != null) {
+                        users++;
+                    }
+                }
+                return users;
+            } catch (IOException e) {
+                throw new CompletionException(e);
+            }
+        });
+    }
+
+    private static Leaderboard.User randomUser(Random random, long request) {
+        int seconds = 5 + random.nextInt(3600);
+        return new Leaderboard.User("load" + request, random.nextInt(100000),
+                String.format("%02d:%02d", seconds / 60, seconds % 60), DIFFICULTIES[random.nextInt(DIFFICULTIES.length)], null);
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.out.println("Usage: LoadGenerator <requests/s> <seconds> [read %] [url]");
+            return;
+        }
+        double rate = Double.parseDouble(args[0]);
+        double seconds = Double.parseDouble(args[1]);
+        int readPercent = args.length > 2 ? Integer.parseInt(args[2]) : 10;
+
+        LeaderboardServer embedded = null;
+        URI uri;
+        if (args.length > 3) {
+            uri = URI.create(args[3]);
+        } else {
+            embedded = new LeaderboardServer(new InetSocketAddress("127.0.0.1", 0), new LeaderboardStore(null),
+                    Runtime.getRuntime().availableProcessors() * 2);
+            embedded.start();
+            uri = URI.create("http://127.0.0.1:" + embedded.getPort() + "/");
+        }
+        System.out.println(rate + " requests/s for " + seconds + "s, " + readPercent + "% reads, on " + uri
+                + (embedded != null ? " (embedded)" : "") + ":");
+        LoadResult result = new LoadGenerator(uri, readPercent).run(rate, seconds, System.nanoTime());
+        System.out.println(result);
+        if (embedded != null) {
+            embedded.stop();
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package engine.server;
+
+/**
+ * The outcome of a load test of the leaderboard API.
+ *
+ * @param sent         The number of requests sent.
+ * @param failed       The requests that failed, with an error status, a network error or a timeout.
+ * @param late         The requests sent more than a millisecond after their planned time, because the generator
+ *                     couldn't keep up with the rate.
+ * @param elapsedNanos The wall-clock time from the first request to the last response, in nanoseconds.
+ * @param submits      The latencies of the successful submissions.
+ * @param reads        The latencies of the successful reads, the body parsed included.
+ */
+public record LoadResult(long sent, long failed, long late, long elapsedNanos, LatencyHistogram submits, LatencyHistogram reads) {
+
+    /**
+     * @return The number of successful requests per second.
+     */
+    public double throughput() {
+        return elapsedNanos == 0 ? 0 : (sent - failed) * 1e9 / elapsedNanos;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%d sent, %d failed, %d late, %.0f requests/s%nsubmit: %s%nread:   %s",
+                sent, failed, late, throughput(), submits, reads);
+    }
+}
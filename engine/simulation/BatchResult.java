@@ -0,0 +1,40 @@
+package engine.simulation;
+
+/**
+ * The outcome of a batch of headless games.
+ *
+ * @param games        The number of games played.
+ * @param wins         The games where every safe cell was uncovered.
+ * @param losses       The games where a mine was uncovered.
+ * @param moves        The total number of moves played.
+ * @param elapsedNanos The wall-clock time the batch took, in nanoseconds.
+ */
+public record BatchResult(long games, long wins, long losses, long moves, long elapsedNanos) {
+
+    /**
+     * @return The games that were neither won nor lost, because the strategy got stuck.
+     */
+    public long stuck() {
+        return games - wins - losses;
+    }
+
+    /**
+     * @return The share of won games, between 0 and 1.
+     */
+    public double winRate() {
+        return games == 0 ? 0 : (double) wins / games;
+    }
+
+    /**
+     * @return The number of games played per second.
+     */
+    public double gamesPerSecond() {
+        return elapsedNanos == 0 ? 0 : games * 1e9 / elapsedNanos;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%d games, %.2f%% won, %d lost, %d stuck, %d moves, %.0f games/s (%.0f games/min)",
+                games, winRate() * 100, losses, stuck(), moves, gamesPerSecond(), gamesPerSecond() * 60);
+    }
+}
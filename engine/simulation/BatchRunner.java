@@ -0,0 +1,147 @@
+package engine.simulation;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.LongFunction;
+
+/**
+ * Plays many seeded headless games on every core and reports how a strategy did.
+ *
+ * <p>Game {@code i} of a batch always uses the same seed, so two runs with the same batch seed and a deterministic
+ * strategy play exactly the same games, whatever the number of threads.</p>
+ *
+ * <p>It can also be run from the command line:
+ * {@code java engine.simulation.BatchRunner <width> <height> <mines> <games> [random|solver] [threads]}</p>
+ */
+public class BatchRunner {
+    private final int width;
+    private final int height;
+    private final int mines;
+    private final LongFunction<Strategy> strategies;
+    private final int threads;
+
+    /**
+     * Constructs a runner using every available core.
+     *
+     * @param width      The width of the minefield.
+     * @param height     The height of the minefield.
+     * @param mines      The number of mines.
+     * @param strategies Creates the strategy of a game from the seed of the game.
+     */
+    public BatchRunner(int width, int height, int mines, LongFunction<Strategy> strategies) {
+        this(width, height, mines, strategies, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * @param width      The width of the minefield.
+     * @param height     The height of the minefield.
+     * @param mines      The number of mines.
+     * @param strategies Creates the strategy of a game from the seed of the game.
+     * @param threads    The number of threads playing the games.
+     */
+    public BatchRunner(int width, int height, int mines, LongFunction<Strategy> strategies, int threads) {
+        this.width = width;
+        this.height = height;
+        this.mines = mines;
+        this.strategies = strategies;
+        this.threads = Math.max(threads, 1);
+    }
+
+    /**
+     * Plays the given number of games. Each thread plays every n-th game and keeps its own counters,
+     * which are added together at the end.
+     *
+     * @param games The number of games to play.
+     * @param seed  The seed of the batch, the seed of every game is derived from it.
+     * @return The outcome of the batch.
+     */
+    public BatchResult run(long games, long seed) {
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        long start = System.nanoTime();
+        List<Future<long[]>> futures = new ArrayList<>();
+        for (int worker = 0; worker < threads; worker++) {
+            int first = worker;
+            futures.add(executor.submit(() -> {
+                // wins, losses, moves
+                long[] counters = new long[3];
+                for (long game = first; game < games; game += threads) {
+                    play(gameSeed(seed, game), counters);
+                }
+                return counters;
+            }));
+        }
+        long[] total = new long[3];
+        try {
+            for (Future<long[]> future : futures) {
+                long[] counters = future.get();
+                for (int i = 0; i < total.length; i++) {
+                    total[i] += counters[i];
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("The batch has been interrupted.", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("A game of the batch failed.", e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+        return new BatchResult(games, total[0], total[1], total[2], System.nanoTime() - start);
+    }
+
+    private void play(long gameSeed, long[] counters) {
+        HeadlessGame game = new HeadlessGame(width, height, mines, gameSeed);
+        Strategy strategy = strategies.apply(gameSeed);
+        // Every move changes at least one cell, a strategy that plays more moves than that is stuck
+        int maxMoves = width * height * 2;
+        while (!game.isOver() && game.getMoves() < maxMoves) {
+            int moves = game.getMoves();
+            strategy.move(game);
+            if (game.getMoves() == moves) {
+                break;
+            }
+        }
+        if (game.isWon()) {
+            counters[0]++;
+        } else if (game.isLost()) {
+            counters[1]++;
+        }
+        counters[2] += game.getMoves();
+    }
+
+    /**
+     * Derives the seed of a game from the seed of the batch, with the SplitMix64 finalizer so close
+     * game numbers get unrelated seeds.
+     */
+    static long gameSeed(long batchSeed, long game) {
+        long z = batchSeed + (game + 1) * 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    public static void main(String[] args) {
+        if (args.length < 4) {
+            System.out.println("Usage: BatchRunner <width> <height> <mines> <games> [random|solver] [threads]");
+            return;
+        }
+        int width = Integer.parseInt(args[0]);
+        int height = Integer.parseInt(args[1]);
+        int mines = Integer.parseInt(args[2]);
+        long games = Long.parseLong(args[3]);
+        String strategy = args.length > 4 ? args[4] : "solver";
+        int threads = args.length > 5 ? Integer.parseInt(args[5]) : Runtime.getRuntime().availableProcessors();
+
+        LongFunction<Strategy> strategies = strategy.equalsIgnoreCase("random")
+                // The moves get their own seed, the seed of the game is the one that placed the mines
+                ? gameSeed -> new RandomStrategy(gameSeed(gameSeed, 1))
+                : gameSeed -> new SolverStrategy();
+        BatchResult result = new BatchRunner(width, height, mines, strategies, threads).run(games, System.nanoTime());
+        System.out.println(width + "x" + height + ", " + mines + " mines, " + strategy + " strategy on " + threads + " threads:");
+        System.out.println(result);
+    }
+}
@@ -0,0 +1,169 @@
+package engine.simulation;
+
+import engine.Minesweeper;
+import engine.utils.CellType;
+import engine.utils.GameStage;
+import engine.utils.MinesweeperDifficulty;
+import engine.utils.Tuple;
+import engine.utils.Utils;
+
+/**
+ * A game of Minesweeper without any terminal, driven by plain method calls.
+ *
+ * <p>It plays like the terminal game without respawns: stepping on a mine loses the game. A game is won once
+ * every safe cell is uncovered, the mines don't need to be flagged.</p>
+ */
+public class HeadlessGame {
+    private final Minesweeper minesweeper;
+    private final long seed;
+    private int score = 0;
+    private int moves = 0;
+    private boolean lost = false;
+
+    /**
+     * Creates a game whose board is generated from the given seed on the first uncover.
+     *
+     * @param width  The width of the minefield.
+     * @param height The height of the minefield.
+     * @param mines  The number of mines.
+     * @param seed   The seed used to generate the board.
+     */
+    public HeadlessGame(int width, int height, int mines, long seed) {
+        this.minesweeper = new Minesweeper(width, height, mines, seed);
+        // Moves are never undone, so the cells they open aren't recorded
+        this.minesweeper.getUndoHistory().setLimit(0);
+        this.seed = seed;
+    }
+
+    /**
+     * Creates a game with the size and mines of a difficulty.
+     *
+     * @param difficulty The difficulty, can't be {@link MinesweeperDifficulty#CUSTOM} or {@link MinesweeperDifficulty#ENDLESS}.
+     * @param seed       The seed used to generate the board.
+     * @return The new game.
+     * @throws IllegalArgumentException if the difficulty is custom or endless.
+     */
+    public static HeadlessGame create(MinesweeperDifficulty difficulty, long seed) {
+        if (difficulty == MinesweeperDifficulty.CUSTOM || difficulty == MinesweeperDifficulty.ENDLESS) {
+            throw new IllegalArgumentException("A " + difficulty.name().toLowerCase() + " difficulty has no size, use the constructor instead.");
+        }
+        Tuple<Integer, Tuple<Integer, Integer>> info = Utils.getDifficultyInfo(difficulty);
+        return new HeadlessGame(info.second().first(), info.second().second(), info.first(), seed);
+    }
+
+    /**
+     * Uncovers a cell. Does nothing once the game is over.
+     *
+     * @param x The x-coordinate of the cell.
+     * @param y The y-coordinate of the cell.
+     * @return The type of the uncovered cell, or null if nothing was uncovered.
+     */
+    public CellType uncover(int x, int y) {
+        if (isOver()) {
+            return null;
+        }
+        moves++;
+        Tuple<CellType, Tuple<Integer, Boolean>> result = minesweeper.uncover(x, y);
+        if (result.first() == null || result.first() == CellType.NOT_SET) {
+            return null;
+        }
+        if (result.first() == CellType.MINE && result.second().first() > 0) {
+            lost = true;
+        }
+        // Mines aren't worth any point, like in the terminal game
+        score += result.second().first() - minesweeper.getLastMinesOpened();
+        return result.first();
+    }
+
+    /**
+     * Puts or removes a flag on a covered cell.
+     *
+     * @param x The x-coordinate of the cell.
+     * @param y The y-coordinate of the cell.
+     */
+    public void flag(int x, int y) {
+        if (isOver()) {
+            return;
+        }
+        moves++;
+        minesweeper.toggleHighlightCell(x, y);
+    }
+
+    /**
+     * Uncovers the covered neighbours of an uncovered number that already has as many flags around it as its value.
+     *
+     * @param x The x-coordinate of the number.
+     * @param y The y-coordinate of the number.
+     * @return The number of cells uncovered, 0 if the cell can't be chorded.
+     */
+    public int chord(int x, int y) {
+        if (isOver()) {
+            return 0;
+        }
+        Tuple<CellType, Tuple<Integer, Boolean>> result = minesweeper.chord(x, y);
+        if (result.first() == null) {
+            return 0;
+        }
+        moves++;
+        // The safe cells opened along with a mine still score
+        score += result.second().first() - minesweeper.getLastMinesOpened();
+        lost = result.first() == CellType.MINE;
+        return result.second().first();
+    }
+
+    /**
+     * @return The stage of the game, as the terminal game sees it.
+     */
+    public GameStage getStage() {
+        return minesweeper.getGameStage();
+    }
+
+    /**
+     * @return true if every safe cell has been uncovered without stepping on a mine.
+     */
+    public boolean isWon() {
+        return !lost && minesweeper.isGenerated() && minesweeper.getGameStage() != GameStage.IN_PROGRESS;
+    }
+
+    /**
+     * @return true if a mine has been uncovered.
+     */
+    public boolean isLost() {
+        return lost;
+    }
+
+    /**
+     * @return true if the game is won or lost.
+     */
+    public boolean isOver() {
+        return lost || isWon();
+    }
+
+    /**
+     * @return The score, one point for every uncovered safe cell.
+     */
+    public int getScore() {
+        return score;
+    }
+
+    /**
+     * @return The number of uncover, flag and chord calls that were played.
+     */
+    public int getMoves() {
+        return moves;
+    }
+
+    /**
+     * @return The seed the board is generated from.
+     */
+    public long getSeed() {
+        return seed;
+    }
+
+    /**
+     * @return The underlying game, for strategies that need to read the board.
+     */
+    public Minesweeper getMinesweeper() {
+        return minesweeper;
+    }
+}
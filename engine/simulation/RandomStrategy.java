@@ -0,0 +1,32 @@
+package engine.simulation;
+
+import engine.Minesweeper;
+
+import java.util.SplittableRandom;
+
+/**
+ * Uncovers covered cells at random, the baseline the other strategies are compared to.
+ */
+public class RandomStrategy implements Strategy {
+    private final SplittableRandom random;
+
+    /**
+     * @param seed The seed of the moves, so a batch can be played again. It must not be the seed of the board,
+     *             or the moves would be drawn from the numbers that placed the mines.
+     */
+    public RandomStrategy(long seed) {
+        this.random = new SplittableRandom(seed);
+    }
+
+    @Override
+    public void move(HeadlessGame game) {
+        Minesweeper minesweeper = game.getMinesweeper();
+        int x;
+        int y;
+        do {
+            x = random.nextInt(minesweeper.getFieldWidth());
+            y = random.nextInt(minesweeper.getFieldHeight());
+        } while (minesweeper.isUncovered(x, y));
+        game.uncover(x, y);
+    }
+}
@@ -0,0 +1,49 @@
+package engine.simulation;
+
+import engine.Minesweeper;
+import engine.solver.BoardAnalysis;
+import engine.solver.HintEngine;
+import engine.utils.Tuple;
+
+/**
+ * Plays like a careful player: starts in the middle of the board, uncovers every cell the {@link HintEngine}
+ * proved safe, and only when there are none uncovers the cell least likely to be a mine.
+ */
+public class SolverStrategy implements Strategy {
+    private HintEngine hintEngine;
+    private int lastX;
+    private int lastY;
+
+    @Override
+    public void move(HeadlessGame game) {
+        Minesweeper minesweeper = game.getMinesweeper();
+        if (hintEngine == null) {
+            hintEngine = new HintEngine(minesweeper);
+            lastX = minesweeper.getFieldWidth() / 2;
+            lastY = minesweeper.getFieldHeight() / 2;
+        }
+        if (!minesweeper.isGenerated()) {
+            uncover(game, lastX, lastY);
+            return;
+        }
+        // Uncovering all the safe cells at once saves an analysis for each of them
+        BoardAnalysis analysis = hintEngine.analyze();
+        if (!analysis.safeCells().isEmpty()) {
+            for (Tuple<Integer, Integer> cell : analysis.safeCells()) {
+                uncover(game, cell.first(), cell.second());
+            }
+            return;
+        }
+        Tuple<Integer, Integer> hint = hintEngine.getHint(lastX, lastY);
+        if (hint != null) {
+            uncover(game, hint.first(), hint.second());
+        }
+    }
+
+    private void uncover(HeadlessGame game, int x, int y) {
+        lastX = x;
+        lastY = y;
+        game.uncover(x, y);
+        hintEngine.markChanged(game.getMinesweeper().getLastFill().getChangedRegion());
+    }
+}
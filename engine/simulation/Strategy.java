@@ -0,0 +1,16 @@
+package engine.simulation;
+
+/**
+ * A way of playing a headless game, used by the {@link BatchRunner}.
+ * A new strategy is created for every game, so it can keep state about the board it plays.
+ */
+@FunctionalInterface
+public interface Strategy {
+    /**
+     * Plays one move on the game, which is not over yet.
+     * Every move must uncover, flag or chord at least one cell, otherwise the game is counted as stuck.
+     *
+     * @param game The game to play.
+     */
+    void move(HeadlessGame game);
+}
@@ -0,0 +1,18 @@
+package engine.solver;
+
+import engine.utils.Tuple;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * What the hint engine knows about the covered cells of a board.
+ *
+ * @param safeCells           The covered cells that can't contain a mine, as (x, y) tuples.
+ * @param mines               The covered cells that must contain a mine, as (x, y) tuples.
+ * @param probabilities       The probability of a mine on every covered cell next to a visible number.
+ * @param interiorProbability The probability of a mine on any other covered cell, 0 if there are none.
+ */
+public record BoardAnalysis(List<Tuple<Integer, Integer>> safeCells, List<Tuple<Integer, Integer>> mines,
+                            Map<Tuple<Integer, Integer>, Double> probabilities, double interiorProbability) {
+}
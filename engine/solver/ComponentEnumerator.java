@@ -0,0 +1,145 @@
+package engine.solver;
+
+import java.util.List;
+
+/**
+ * Enumerates every mine assignment of a group of covered cells that satisfies the numbers around them.
+ *
+ * <p>The cells are assigned one at a time with backtracking, pruning as soon as a number has too many or
+ * too few mines left. Results are grouped by the number of mines used, so the caller can weight them against
+ * the mines left on the rest of the board. The search gives up after a fixed number of steps.</p>
+ */
+class ComponentEnumerator {
+    /** Maximum number of search steps before the enumeration gives up. */
+    private static final long MAX_STEPS = 2_000_000;
+
+    private final int cellCount;
+    // For every local cell, the local constraints it belongs to
+    private final int[][] cellConstraints;
+    private final int[] need;
+    private final int[] assignedMines;
+    private final int[] unassigned;
+    private final boolean[] assignment;
+
+    private final long[] solutions;
+    private final long[][] cellMines;
+    private long steps = 0;
+
+    /**
+     * @param cells       The positions of the cells, in an order where neighbouring cells are close to each other.
+     * @param constraints The numbers touching the cells.
+     */
+    ComponentEnumerator(int[] cells, List<Constraint> constraints) {
+        cellCount = cells.length;
+        need = new int[constraints.size()];
+        unassigned = new int[constraints.size()];
+        assignedMines = new int[constraints.size()];
+        assignment = new boolean[cellCount];
+        solutions = new long[cellCount + 1];
+        cellMines = new long[cellCount + 1][cellCount];
+
+        int[] constraintCount = new int[cellCount];
+        int[][] localCells = new int[constraints.size()][];
+        for (int c = 0; c < constraints.size(); c++) {
+            Constraint constraint = constraints.get(c);
+            need[c] = constraint.need();
+            localCells[c] = new int[constraint.cells().length];
+            for (int i = 0; i < constraint.cells().length; i++) {
+                int local = indexOf(cells, constraint.cells()[i]);
+                localCells[c][i] = local;
+                constraintCount[local]++;
+            }
+            unassigned[c] = localCells[c].length;
+        }
+        cellConstraints = new int[cellCount][];
+        for (int i = 0; i < cellCount; i++) {
+            cellConstraints[i] = new int[constraintCount[i]];
+            constraintCount[i] = 0;
+        }
+        for (int c = 0; c < localCells.length; c++) {
+            for (int local : localCells[c]) {
+                cellConstraints[local][constraintCount[local]++] = c;
+            }
+        }
+    }
+
+    private static int indexOf(int[] cells, int position) {
+        for (int i = 0; i < cells.length; i++) {
+            if (cells[i] == position) {
+                return i;
+            }
+        }
+        throw new IllegalArgumentException("Constraint cell " + position + " is not part of the component.");
+    }
+
+    /**
+     * Runs the enumeration.
+     *
+     * @return false if the search was too big and gave up, the results are then incomplete.
+     */
+    boolean enumerate() {
+        return search(0, 0);
+    }
+
+    private boolean search(int cell, int mines) {
+        if (++steps > MAX_STEPS) {
+            return false;
+        }
+        if (cell == cellCount) {
+            solutions[mines]++;
+            for (int i = 0; i < cellCount; i++) {
+                if (assignment[i]) {
+                    cellMines[mines][i]++;
+                }
+            }
+            return true;
+        }
+        for (int value = 0; value <= 1; value++) {
+            if (!fits(cell, value)) {
+                continue;
+            }
+            assign(cell, value, 1);
+            boolean completed = search(cell + 1, mines + value);
+            assign(cell, value, -1);
+            if (!completed) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Checks that giving the value to the cell leaves every number it touches still satisfiable.
+     */
+    private boolean fits(int cell, int value) {
+        for (int c : cellConstraints[cell]) {
+            int mines = assignedMines[c] + value;
+            if (mines > need[c] || mines + unassigned[c] - 1 < need[c]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void assign(int cell, int value, int direction) {
+        assignment[cell] = direction > 0 && value == 1;
+        for (int c : cellConstraints[cell]) {
+            assignedMines[c] += value * direction;
+            unassigned[c] -= direction;
+        }
+    }
+
+    /**
+     * @return The number of valid assignments, indexed by the number of mines they use.
+     */
+    long[] getSolutions() {
+        return solutions;
+    }
+
+    /**
+     * @return For every number of mines, how many valid assignments put a mine on each cell.
+     */
+    long[][] getCellMines() {
+        return cellMines;
+    }
+}
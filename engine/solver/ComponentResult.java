@@ -0,0 +1,91 @@
+package engine.solver;
+
+/**
+ * What is known about a group of frontier cells on its own, without looking at the rest of the board.
+ *
+ * <p>Exact results keep the weight of the valid mine assignments grouped by the number of mines they use,
+ * so they can be combined with the mines left on the rest of the board. Groups too big to be enumerated
+ * only get an estimated probability for each cell.</p>
+ */
+final class ComponentResult {
+    final int[] cells;
+    // Relative weight of the assignments using k mines, null if the result is estimated
+    final double[] weights;
+    // [k][cell]: relative weight of the assignments using k mines that put a mine on the cell,
+    // null if every cell is known
+    final double[][] cellWeights;
+    // Probability of a mine on each cell, only set if the result is estimated
+    final double[] estimates;
+
+    private ComponentResult(int[] cells, double[] weights, double[][] cellWeights, double[] estimates) {
+        this.cells = cells;
+        this.weights = weights;
+        this.cellWeights = cellWeights;
+        this.estimates = estimates;
+    }
+
+    /**
+     * Builds an exact result from the counts of an enumeration, scaled so the biggest weight is 1.
+     */
+    static ComponentResult exact(int[] cells, long[] solutions, long[][] cellMines) {
+        long max = 1;
+        for (long count : solutions) {
+            max = Math.max(max, count);
+        }
+        double[] weights = new double[solutions.length];
+        double[][] cellWeights = new double[solutions.length][cells.length];
+        for (int k = 0; k < solutions.length; k++) {
+            weights[k] = (double) solutions[k] / max;
+            for (int i = 0; i < cells.length; i++) {
+                cellWeights[k][i] = (double) cellMines[k][i] / max;
+            }
+        }
+        return new ComponentResult(cells, weights, cellWeights, null);
+    }
+
+    /**
+     * Builds the result of cells that are known to be all safe or all mines.
+     */
+    static ComponentResult known(int[] cells, boolean mines) {
+        // A single assignment, there's no need to keep a weight per cell
+        double[] weights = new double[mines ? cells.length + 1 : 1];
+        weights[weights.length - 1] = 1;
+        return new ComponentResult(cells, weights, null, null);
+    }
+
+    /**
+     * Builds a result that only has an estimated probability for each cell.
+     */
+    static ComponentResult estimated(int[] cells, double[] estimates) {
+        return new ComponentResult(cells, null, null, estimates);
+    }
+
+    /**
+     * @return true if every cell is known to be safe or known to be a mine.
+     */
+    boolean isKnown() {
+        return weights != null && cellWeights == null;
+    }
+
+    boolean isExact() {
+        return weights != null;
+    }
+
+    /**
+     * @return The most mines an assignment of the cells can use.
+     */
+    int maxMines() {
+        return weights.length - 1;
+    }
+
+    /**
+     * @return The number of mines expected on the cells of an estimated result.
+     */
+    double expectedMines() {
+        double sum = 0;
+        for (double estimate : estimates) {
+            sum += estimate;
+        }
+        return sum;
+    }
+}
@@ -0,0 +1,40 @@
+package engine.solver;
+
+import java.util.Arrays;
+
+/**
+ * A visible number seen as a constraint: exactly {@code need} of the given covered cells are mines.
+ *
+ * @param cells The positions (x * height + y) of the covered cells around the number, sorted.
+ * @param need  How many of those cells are mines.
+ */
+record Constraint(int[] cells, int need) {
+
+    /**
+     * @param other Another constraint.
+     * @return true if every cell of this constraint is also a cell of the other one.
+     */
+    boolean isSubsetOf(Constraint other) {
+        int j = 0;
+        for (int cell : cells) {
+            while (j < other.cells.length && other.cells[j] < cell) {
+                j++;
+            }
+            if (j == other.cells.length || other.cells[j] != cell) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Constraints are compared by content, so unchanged parts of the board can be found in a cache
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof Constraint other && need == other.need && Arrays.equals(cells, other.cells);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * Arrays.hashCode(cells) + need;
+    }
+}
@@ -0,0 +1,586 @@
+package engine.solver;
+
+import engine.Minesweeper;
+import engine.utils.Tuple;
+
+import java.awt.Rectangle;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Finds safe cells, forced mines and the probability of a mine on every covered cell, to give hints to the player.
+ *
+ * <p>Only what the player can see is used: the uncovered numbers and the mines already stepped on. Flags are
+ * ignored, as they can be wrong. Every visible number is a constraint on the covered cells around it, and
+ * constraints sharing cells are grouped into independent components. Each component is solved on its own,
+ * exactly by enumeration when it is small enough, otherwise with the single-cell and subset rules first.
+ * The components are then combined with the number of mines left on the rest of the board.</p>
+ *
+ * <p>The constraints are kept between moves and only updated around the region a move changed, see
+ * {@link #markChanged(Rectangle)}. Component results are cached by their constraints, so only the
+ * components the last move touched are solved again. An engine built before the first move follows the board
+ * through its changes only; one built on a board with uncovered cells, like a resumed game, reads the whole board
+ * once, on its first analysis.</p>
+ */
+public class HintEngine {
+    /** Above this many steps, the combination of the components uses an approximation for the rest of the board. */
+    private static final long MAX_EXACT_COMBINATION = 20_000_000;
+
+    private static final Comparator<Constraint> CONSTRAINT_ORDER = (a, b) -> {
+        int compare = Arrays.compare(a.cells(), b.cells());
+        return compare != 0 ? compare : Integer.compare(a.need(), b.need());
+    };
+
+    private final Minesweeper minesweeper;
+    private final int width;
+    private final int height;
+    // The constraint of every visible number touching covered cells, by position (x * height + y) of the number
+    private final Map<Integer, Constraint> constraints = new HashMap<>();
+    // Results of the components found by the last analysis
+    private Map<List<Constraint>, List<ComponentResult>> cache = new HashMap<>();
+    private boolean scanned = false;
+    private BoardAnalysis analysis = null;
+
+    /**
+     * Constructs a hint engine for the given game. Nothing is computed until the first analysis.
+     * Build it before the first move and tell it every change, so the board never has to be read whole.
+     *
+     * @param minesweeper The game to analyse.
+     */
+    public HintEngine(Minesweeper minesweeper) {
+        this.minesweeper = minesweeper;
+        this.width = minesweeper.getFieldWidth();
+        this.height = minesweeper.getFieldHeight();
+        // A board with nothing uncovered has no constraints, the changes bring all of them
+        this.scanned = minesweeper.getCoveredCellCount() == width * height;
+    }
+
+    /**
+     * @return The game this engine analyses.
+     */
+    public Minesweeper getMinesweeper() {
+        return minesweeper;
+    }
+
+    /**
+     * Tells the engine that cells in the given region have been uncovered.
+     * Only the numbers in the region and around it are read again.
+     *
+     * @param region The changed region, in board coordinates.
+     */
+    public void markChanged(Rectangle region) {
+        analysis = null;
+        if (!scanned || region.isEmpty()) {
+            return;
+        }
+        for (int x = Math.max(region.x - 1, 0); x <= Math.min(region.x + region.width, width - 1); x++) {
+            for (int y = Math.max(region.y - 1, 0); y <= Math.min(region.y + region.height, height - 1); y++) {
+                updateConstraint(x, y);
+            }
+        }
+    }
+
+    /**
+     * Analyses the visible board. The result is kept until the next change.
+     *
+     * @return The safe cells, the mines and the probabilities of the covered cells.
+     */
+    public BoardAnalysis analyze() {
+        if (analysis != null) {
+            return analysis;
+        }
+        if (!scanned) {
+            for (int x = 0; x < width; x++) {
+                for (int y = 0; y < height; y++) {
+                    updateConstraint(x, y);
+                }
+            }
+            scanned = true;
+        }
+        Map<List<Constraint>, List<ComponentResult>> components = new HashMap<>();
+        List<ComponentResult> results = new ArrayList<>();
+        for (List<Constraint> component : findComponents(constraints.values())) {
+            List<ComponentResult> componentResults = cache.get(component);
+            if (componentResults == null) {
+                componentResults = solveComponent(component);
+            }
+            components.put(component, componentResults);
+            results.addAll(componentResults);
+        }
+        // Components that are gone can't come back, the cache only keeps the current ones
+        cache = components;
+        analysis = combine(results);
+        return analysis;
+    }
+
+    /**
+     * Picks the cell to suggest to the player: the nearest safe cell, or else the covered cell least likely to be a mine.
+     *
+     * @param fromX The x-coordinate the player is at.
+     * @param fromY The y-coordinate the player is at.
+     * @return The suggested cell as a (x, y) tuple, or null if the board isn't generated or nothing is left to uncover.
+     */
+    public Tuple<Integer, Integer> getHint(int fromX, int fromY) {
+        if (!minesweeper.isGenerated() || minesweeper.getCoveredCellCount() == 0) {
+            return null;
+        }
+        BoardAnalysis result = analyze();
+        if (!result.safeCells().isEmpty()) {
+            return nearest(result.safeCells(), fromX, fromY);
+        }
+        double lowest = 1;
+        List<Tuple<Integer, Integer>> candidates = new ArrayList<>();
+        for (Map.Entry<Tuple<Integer, Integer>, Double> entry : result.probabilities().entrySet()) {
+            if (entry.getValue() < lowest) {
+                lowest = entry.getValue();
+                candidates.clear();
+            }
+            if (entry.getValue() == lowest) {
+                candidates.add(entry.getKey());
+            }
+        }
+        Tuple<Integer, Integer> interior = null;
+        if (candidates.isEmpty() || result.interiorProbability() < lowest) {
+            interior = nearestInterior(result, fromX, fromY);
+        }
+        return interior != null ? interior : nearest(candidates, fromX, fromY);
+    }
+
+    private void updateConstraint(int x, int y) {
+        int position = x * height + y;
+        int number = minesweeper.getVisibleNumber(x, y);
+        if (number < 0) {
+            constraints.remove(position);
+            return;
+        }
+        int[] cells = new int[8];
+        int count = 0;
+        int uncoveredMines = 0;
+        // Positions grow with x then y, so the cells are sorted
+        for (int i = x - 1; i <= x + 1; i++) {
+            for (int j = y - 1; j <= y + 1; j++) {
+                if ((i == x && j == y) || i < 0 || j < 0 || i >= width || j >= height) {
+                    continue;
+                }
+                if (!minesweeper.isUncovered(i, j)) {
+                    cells[count++] = i * height + j;
+                } else if (minesweeper.getVisibleNumber(i, j) < 0) {
+                    uncoveredMines++;
+                }
+            }
+        }
+        if (count == 0) {
+            constraints.remove(position);
+        } else {
+            constraints.put(position, new Constraint(Arrays.copyOf(cells, count), number - uncoveredMines));
+        }
+    }
+
+    /**
+     * Groups the constraints sharing cells. The constraints of each group are sorted, so the same group
+     * always gives the same list.
+     */
+    private static List<List<Constraint>> findComponents(Iterable<Constraint> constraints) {
+        Map<Integer, List<Constraint>> byCell = new HashMap<>();
+        for (Constraint constraint : constraints) {
+            for (int cell : constraint.cells()) {
+                byCell.computeIfAbsent(cell, c -> new ArrayList<>()).add(constraint);
+            }
+        }
+        Set<Integer> visited = new HashSet<>();
+        List<List<Constraint>> components = new ArrayList<>();
+        for (Constraint start : constraints) {
+            if (!visited.add(start.cells()[0])) {
+                continue;
+            }
+            Set<Constraint> component = new LinkedHashSet<>();
+            ArrayDeque<Integer> queue = new ArrayDeque<>();
+            queue.add(start.cells()[0]);
+            while (!queue.isEmpty()) {
+                for (Constraint constraint : byCell.get(queue.poll())) {
+                    if (!component.add(constraint)) {
+                        continue;
+                    }
+                    for (int other : constraint.cells()) {
+                        if (visited.add(other)) {
+                            queue.add(other);
+                        }
+                    }
+                }
+            }
+            List<Constraint> sorted = new ArrayList<>(component);
+            sorted.sort(CONSTRAINT_ORDER);
+            components.add(sorted);
+        }
+        return components;
+    }
+
+    /**
+     * Solves a component on its own. Small components are enumerated; bigger ones are reduced with the
+     * single-cell and subset rules, then what is left is split again.
+     */
+    private static List<ComponentResult> solveComponent(List<Constraint> component) {
+        int[] cells = cellsOf(component);
+        if (cells.length <= Solver.MAX_ENUMERATION_CELLS) {
+            ComponentEnumerator enumerator = new ComponentEnumerator(cells, component);
+            if (enumerator.enumerate()) {
+                return List.of(ComponentResult.exact(cells, enumerator.getSolutions(), enumerator.getCellMines()));
+            }
+            return List.of(estimate(cells, component));
+        }
+
+        Map<Integer, Boolean> known = new HashMap<>();
+        List<Constraint> reduced = component;
+        while (applyRules(reduced, known)) {
+            reduced = reduce(component, known);
+        }
+        if (known.isEmpty()) {
+            return List.of(estimate(cells, component));
+        }
+        List<ComponentResult> results = new ArrayList<>();
+        for (boolean mines : new boolean[]{false, true}) {
+            int[] knownCells = knownCells(known, mines);
+            if (knownCells.length > 0) {
+                results.add(ComponentResult.known(knownCells, mines));
+            }
+        }
+        for (List<Constraint> part : findComponents(reduced)) {
+            results.addAll(solveComponent(part));
+        }
+        return results;
+    }
+
+    /**
+     * Applies the single-cell and subset rules once.
+     *
+     * @return true if a cell has been deduced.
+     */
+    private static boolean applyRules(List<Constraint> constraints, Map<Integer, Boolean> known) {
+        boolean progress = false;
+        Map<Integer, List<Constraint>> byCell = new HashMap<>();
+        for (Constraint constraint : constraints) {
+            if (constraint.need() == 0 || constraint.need() == constraint.cells().length) {
+                progress |= markAll(constraint.cells(), constraint.need() > 0, known);
+            }
+            for (int cell : constraint.cells()) {
+                byCell.computeIfAbsent(cell, c -> new ArrayList<>()).add(constraint);
+            }
+        }
+        for (Constraint small : constraints) {
+            for (Constraint big : byCell.get(small.cells()[0])) {
+                if (big.cells().length <= small.cells().length || !small.isSubsetOf(big)) {
+                    continue;
+                }
+                int need = big.need() - small.need();
+                int[] difference = Arrays.stream(big.cells())
+                        .filter(cell -> Arrays.binarySearch(small.cells(), cell) < 0)
+                        .toArray();
+                if (need == 0 || need == difference.length) {
+                    progress |= markAll(difference, need > 0, known);
+                }
+            }
+        }
+        return progress;
+    }
+
+    private static boolean markAll(int[] cells, boolean mine, Map<Integer, Boolean> known) {
+        boolean changed = false;
+        for (int cell : cells) {
+            changed |= known.putIfAbsent(cell, mine) == null;
+        }
+        return changed;
+    }
+
+    /**
+     * Removes the known cells from the constraints, subtracting the known mines.
+     */
+    private static List<Constraint> reduce(List<Constraint> constraints, Map<Integer, Boolean> known) {
+        List<Constraint> reduced = new ArrayList<>();
+        for (Constraint constraint : constraints) {
+            int need = constraint.need();
+            int[] cells = new int[constraint.cells().length];
+            int count = 0;
+            for (int cell : constraint.cells()) {
+                Boolean mine = known.get(cell);
+                if (mine == null) {
+                    cells[count++] = cell;
+                } else if (mine) {
+                    need--;
+                }
+            }
+            if (count > 0) {
+                reduced.add(new Constraint(Arrays.copyOf(cells, count), need));
+            }
+        }
+        return reduced;
+    }
+
+    private static int[] knownCells(Map<Integer, Boolean> known, boolean mines) {
+        return known.entrySet().stream()
+                .filter(entry -> entry.getValue() == mines)
+                .mapToInt(Map.Entry::getKey)
+                .sorted()
+                .toArray();
+    }
+
+    /**
+     * Estimates the probability of each cell as the highest density of mines among the numbers around it.
+     */
+    private static ComponentResult estimate(int[] cells, List<Constraint> constraints) {
+        double[] estimates = new double[cells.length];
+        for (Constraint constraint : constraints) {
+            double density = (double) constraint.need() / constraint.cells().length;
+            for (int cell : constraint.cells()) {
+                int i = Arrays.binarySearch(cells, cell);
+                estimates[i] = Math.max(estimates[i], density);
+            }
+        }
+        return ComponentResult.estimated(cells, estimates);
+    }
+
+    private static int[] cellsOf(List<Constraint> constraints) {
+        return constraints.stream().flatMapToInt(constraint -> Arrays.stream(constraint.cells())).distinct().sorted().toArray();
+    }
+
+    /**
+     * Combines the results of the components with the mines left on the rest of the board.
+     *
+     * <p>An assignment of the frontier using k mines leaves the other mines to the covered cells away from the numbers,
+     * which can hold them in C(interior, mines left - k) ways. When the frontier is too big to combine exactly,
+     * that weight is approximated by a constant ratio per extra mine.</p>
+     */
+    private BoardAnalysis combine(List<ComponentResult> results) {
+        List<ComponentResult> exact = new ArrayList<>();
+        int frontierCells = 0;
+        double estimatedMines = 0;
+        long maxMines = 0;
+        for (ComponentResult result : results) {
+            frontierCells += result.cells.length;
+            if (result.isExact()) {
+                exact.add(result);
+                maxMines += result.maxMines();
+            } else {
+                estimatedMines += result.expectedMines();
+            }
+        }
+        int interior = minesweeper.getCoveredCellCount() - frontierCells;
+        int minesLeft = (int) Math.round(minesweeper.getMineCount() - minesweeper.getUncoveredMineCount() - estimatedMines);
+
+        double[][] otherWeights = new double[exact.size()][];
+        double interiorProbability;
+        if (exact.size() * (maxMines + 1) * (maxMines + 1) <= MAX_EXACT_COMBINATION) {
+            double[] binomial = binomialWeights(interior, minesLeft, (int) maxMines);
+            double[][] prefix = new double[exact.size() + 1][];
+            double[][] suffix = new double[exact.size() + 1][];
+            prefix[0] = new double[]{1};
+            suffix[exact.size()] = new double[]{1};
+            for (int i = 0; i < exact.size(); i++) {
+                prefix[i + 1] = convolve(prefix[i], exact.get(i).weights);
+            }
+            for (int i = exact.size() - 1; i >= 0; i--) {
+                suffix[i] = convolve(exact.get(i).weights, suffix[i + 1]);
+            }
+            for (int i = 0; i < exact.size(); i++) {
+                double[] others = convolve(prefix[i], suffix[i + 1]);
+                otherWeights[i] = new double[exact.get(i).weights.length];
+                for (int j = 0; j < otherWeights[i].length; j++) {
+                    for (int k = 0; k < others.length; k++) {
+                        otherWeights[i][j] += others[k] * binomial[k + j];
+                    }
+                }
+            }
+            double total = 0;
+            double interiorMines = 0;
+            for (int k = 0; k < prefix[exact.size()].length; k++) {
+                double weight = prefix[exact.size()][k] * binomial[k];
+                total += weight;
+                interiorMines += weight * (minesLeft - k);
+            }
+            interiorProbability = interior > 0 && total > 0 ? interiorMines / total / interior : 0;
+        } else {
+            // Every extra mine on the frontier leaves about minesLeft / (interior - minesLeft) times fewer ways to place the rest
+            double ratio = interior > 0 ? Math.max(minesLeft, 0) / (double) Math.max(interior - minesLeft + 1, 1) : 1;
+            double frontierMines = 0;
+            for (int i = 0; i < exact.size(); i++) {
+                otherWeights[i] = geometricWeights(ratio, exact.get(i).weights.length);
+                frontierMines += expectedMines(exact.get(i), otherWeights[i]);
+            }
+            interiorProbability = interior > 0 ? Math.min(Math.max((minesLeft - frontierMines) / interior, 0), 1) : 0;
+        }
+
+        List<Tuple<Integer, Integer>> safeCells = new ArrayList<>();
+        List<Tuple<Integer, Integer>> mines = new ArrayList<>();
+        Map<Tuple<Integer, Integer>, Double> probabilities = new HashMap<>();
+        int e = 0;
+        for (ComponentResult result : results) {
+            double[] probability = result.isExact() ? probabilities(result, otherWeights[e++]) : result.estimates;
+            for (int i = 0; i < result.cells.length; i++) {
+                Tuple<Integer, Integer> cell = new Tuple<>(result.cells[i] / height, result.cells[i] % height);
+                probabilities.put(cell, probability[i]);
+                if (probability[i] == 0) {
+                    safeCells.add(cell);
+                } else if (probability[i] == 1) {
+                    mines.add(cell);
+                }
+            }
+        }
+        return new BoardAnalysis(safeCells, mines, probabilities, interiorProbability);
+    }
+
+    /**
+     * Computes the probability of each cell of a component, given the weight of the rest of the board for
+     * every number of mines the component can use.
+     */
+    private static double[] probabilities(ComponentResult result, double[] otherWeights) {
+        double[] probability = new double[result.cells.length];
+        if (result.isKnown()) {
+            Arrays.fill(probability, result.maxMines() > 0 ? 1 : 0);
+            return probability;
+        }
+        double total = 0;
+        for (int j = 0; j < result.weights.length; j++) {
+            total += result.weights[j] * otherWeights[j];
+        }
+        if (total <= 0) {
+            // The mine count rules out every assignment, which can only come from a wrong estimate: ignore it
+            otherWeights = geometricWeights(1, result.weights.length);
+            total = Arrays.stream(result.weights).sum();
+        }
+        for (int i = 0; i < result.cells.length; i++) {
+            double mine = 0;
+            for (int j = 0; j < result.weights.length; j++) {
+                mine += result.cellWeights[j][i] * otherWeights[j];
+            }
+            // A cell that is a mine in every assignment gets exactly 1
+            probability[i] = mine == total ? 1 : mine / total;
+        }
+        return probability;
+    }
+
+    private static double expectedMines(ComponentResult result, double[] otherWeights) {
+        double total = 0;
+        double mines = 0;
+        for (int j = 0; j < result.weights.length; j++) {
+            total += result.weights[j] * otherWeights[j];
+            mines += result.weights[j] * otherWeights[j] * j;
+        }
+        return total > 0 ? mines / total : 0;
+    }
+
+    /**
+     * Computes C(cells, mines - k) for k from 0 to maxK, scaled so the biggest value is 1.
+     */
+    private static double[] binomialWeights(int cells, int mines, int maxK) {
+        double[] logs = new double[maxK + 1];
+        double max = Double.NEGATIVE_INFINITY;
+        // C(n, r - 1) = C(n, r) * r / (n - r + 1), starting from the first valid k
+        int first = Math.max(mines - cells, 0);
+        for (int k = 0; k <= maxK; k++) {
+            int r = mines - k;
+            if (k < first || r < 0) {
+                logs[k] = Double.NEGATIVE_INFINITY;
+            } else if (k == first) {
+                logs[k] = 0;
+            } else {
+                logs[k] = logs[k - 1] + Math.log((double) (r + 1) / (cells - r));
+            }
+            max = Math.max(max, logs[k]);
+        }
+        double[] weights = new double[maxK + 1];
+        for (int k = 0; k <= maxK; k++) {
+            weights[k] = max == Double.NEGATIVE_INFINITY ? 0 : Math.exp(logs[k] - max);
+        }
+        return weights;
+    }
+
+    /**
+     * Computes ratio^j for j from 0 to length - 1, scaled so the biggest value is 1.
+     */
+    private static double[] geometricWeights(double ratio, int length) {
+        double[] weights = new double[length];
+        if (ratio == 0) {
+            weights[0] = 1;
+            return weights;
+        }
+        double log = Math.log(ratio);
+        double max = log > 0 ? log * (length - 1) : 0;
+        for (int j = 0; j < length; j++) {
+            weights[j] = Math.exp(log * j - max);
+        }
+        return weights;
+    }
+
+    /**
+     * Convolves two weight distributions, scaling the result so the biggest value is 1.
+     */
+    private static double[] convolve(double[] a, double[] b) {
+        double[] result = new double[a.length + b.length - 1];
+        double max = 0;
+        for (int i = 0; i < a.length; i++) {
+            if (a[i] == 0) {
+                continue;
+            }
+            for (int j = 0; j < b.length; j++) {
+                result[i + j] += a[i] * b[j];
+            }
+        }
+        for (double value : result) {
+            max = Math.max(max, value);
+        }
+        if (max > 0) {
+            for (int i = 0; i < result.length; i++) {
+                result[i] /= max;
+            }
+        }
+        return result;
+    }
+
+    private static Tuple<Integer, Integer> nearest(List<Tuple<Integer, Integer>> cells, int fromX, int fromY) {
+        Tuple<Integer, Integer> best = null;
+        int bestDistance = Integer.MAX_VALUE;
+        for (Tuple<Integer, Integer> cell : cells) {
+            int distance = Math.abs(cell.first() - fromX) + Math.abs(cell.second() - fromY);
+            if (distance < bestDistance) {
+                best = cell;
+                bestDistance = distance;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Searches, in growing squares around the player, a covered cell that isn't next to any visible number.
+     */
+    private Tuple<Integer, Integer> nearestInterior(BoardAnalysis result, int fromX, int fromY) {
+        for (int radius = 0; radius < Math.max(width, height); radius++) {
+            // Only the border of the square is new, walk its top and bottom rows then its sides
+            for (int i = -radius; i <= radius; i++) {
+                Tuple<Integer, Integer> cell = firstInterior(result,
+                        fromX + i, fromY - radius, fromX + i, fromY + radius,
+                        fromX - radius, fromY + i, fromX + radius, fromY + i);
+                if (cell != null) {
+                    return cell;
+                }
+            }
+        }
+        return null;
+    }
+
+    private Tuple<Integer, Integer> firstInterior(BoardAnalysis result, int... coordinates) {
+        for (int i = 0; i < coordinates.length; i += 2) {
+            Tuple<Integer, Integer> cell = new Tuple<>(coordinates[i], coordinates[i + 1]);
+            if (!minesweeper.isUncovered(cell.first(), cell.second()) && !result.probabilities().containsKey(cell)) {
+                return cell;
+            }
+        }
+        return null;
+    }
+}
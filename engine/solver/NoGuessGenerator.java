@@ -0,0 +1,115 @@
+package engine.solver;
+
+import engine.Minesweeper;
+import engine.utils.GameSeed;
+import engine.utils.GameStage;
+import engine.utils.Tuple;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Generates boards that can be solved from the first click without ever guessing.
+ *
+ * <p>Candidate boards are generated from random game seeds with a safe opening, then played by the {@link Solver}
+ * uncovering only the cells it proved safe. The first board the solver finishes is kept. Candidates are checked
+ * in parallel on a {@link ForkJoinPool}, each worker drawing its seeds from its own split of the root generator,
+ * and the other workers stop as soon as a board is found.</p>
+ */
+public class NoGuessGenerator {
+    /** Maximum number of candidate boards checked before giving up. */
+    public static final int MAX_ATTEMPTS = 100_000;
+
+    private final ForkJoinPool pool;
+    private volatile boolean cancelled = false;
+
+    /**
+     * Constructs a generator checking candidates on the common pool.
+     */
+    public NoGuessGenerator() {
+        this(ForkJoinPool.commonPool());
+    }
+
+    /**
+     * @param pool The pool the candidate boards are checked on.
+     */
+    public NoGuessGenerator(ForkJoinPool pool) {
+        this.pool = pool;
+    }
+
+    /**
+     * Searches a board that can be solved without guessing.
+     *
+     * <p>The result only depends on the seed when a single worker is used, with more workers the first board found wins.
+     * The returned game seed always regenerates the same board with {@link Minesweeper#generate(int, int, int, GameSeed)}.</p>
+     *
+     * @param width  The width of the minefield.
+     * @param height The height of the minefield.
+     * @param mines  The number of mines.
+     * @param firstX The x-coordinate of the first clicked cell.
+     * @param firstY The y-coordinate of the first clicked cell.
+     * @param seed   The seed the candidate game seeds are drawn from.
+     * @return The game seed of a board solvable without guessing, or null if none was found in {@link #MAX_ATTEMPTS} attempts
+     *         or the search was cancelled.
+     */
+    public GameSeed generate(int width, int height, int mines, int firstX, int firstY, long seed) {
+        AtomicReference<GameSeed> found = new AtomicReference<>();
+        AtomicInteger attempts = new AtomicInteger();
+        SplittableRandom root = new SplittableRandom(seed);
+
+        List<ForkJoinTask<?>> tasks = new ArrayList<>();
+        for (int worker = 0; worker < pool.getParallelism(); worker++) {
+            SplittableRandom random = root.split();
+            tasks.add(pool.submit(() -> {
+                while (!cancelled && found.get() == null && attempts.getAndIncrement() < MAX_ATTEMPTS) {
+                    GameSeed candidate = new GameSeed(random.nextLong(), firstX, firstY, true);
+                    Minesweeper board = Minesweeper.generate(width, height, mines, candidate);
+                    // The candidates are never undone, their moves aren't recorded
+                    board.getUndoHistory().setLimit(0);
+                    if (isSolvable(board, firstX, firstY)) {
+                        found.compareAndSet(null, candidate);
+                    }
+                }
+            }));
+        }
+        for (ForkJoinTask<?> task : tasks) {
+            task.join();
+        }
+        return found.get();
+    }
+
+    /**
+     * Stops the searches of this generator, from any thread. They return null after the candidates being checked.
+     */
+    public void cancel() {
+        cancelled = true;
+    }
+
+    /**
+     * Plays a generated board uncovering only the cells the solver proved safe.
+     *
+     * @param minesweeper The generated board, with nothing uncovered yet.
+     * @param firstX      The x-coordinate of the first clicked cell.
+     * @param firstY      The y-coordinate of the first clicked cell.
+     * @return true if the solver uncovered every safe cell.
+     */
+    public static boolean isSolvable(Minesweeper minesweeper, int firstX, int firstY) {
+        minesweeper.uncover(firstX, firstY);
+        Solver solver = new Solver(minesweeper);
+        while (minesweeper.getGameStage() == GameStage.IN_PROGRESS) {
+            SolverResult result = solver.solve();
+            if (!result.hasSafeCells()) {
+                return false;
+            }
+            for (Tuple<Integer, Integer> cell : result.safeCells()) {
+                minesweeper.uncover(cell.first(), cell.second());
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,340 @@
+package engine.solver;
+
+import engine.Minesweeper;
+import engine.utils.Tuple;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Logical solver working on what the player can see of a {@link Minesweeper} board.
+ *
+ * <p>Every visible number is a constraint on the covered cells around it. The solver applies, from the cheapest
+ * to the most expensive, single-cell rules (a number that already has all its mines, or needs all its covered
+ * cells), subset rules (a number whose covered cells are all around another number) and a bounded enumeration
+ * of every valid mine assignment of each group of connected covered cells. As a last resort it uses the total
+ * number of mines. Flags put by the player are ignored, as they can be wrong.</p>
+ *
+ * <p>Deductions are kept between calls: the visible board only gains information, so they stay valid.</p>
+ */
+public class Solver {
+    /** Groups of connected covered cells bigger than this are not enumerated. */
+    public static final int MAX_ENUMERATION_CELLS = 24;
+
+    private static final byte UNKNOWN = 0;
+    private static final byte SAFE = 1;
+    private static final byte MINE = 2;
+
+    private final Minesweeper minesweeper;
+    private final int width;
+    private final int height;
+    // What has been deduced about each cell, indexed by x * height + y
+    private final byte[] deduced;
+
+    /**
+     * Constructs a solver for the given game.
+     *
+     * @param minesweeper The game to solve, the solver only reads what the player can see.
+     */
+    public Solver(Minesweeper minesweeper) {
+        this.minesweeper = minesweeper;
+        this.width = minesweeper.getFieldWidth();
+        this.height = minesweeper.getFieldHeight();
+        this.deduced = new byte[width * height];
+    }
+
+    /**
+     * Deduces which covered cells are safe and which are mines.
+     *
+     * <p>Cheaper rules are always tried first. The solver stops as soon as it knows at least one covered safe cell,
+     * or when no rule can deduce anything else; uncovering the safe cells gives more information for the next call.</p>
+     *
+     * @return The covered cells known to be safe and the covered cells known to be mines.
+     */
+    public SolverResult solve() {
+        while (!hasCoveredSafeCell()) {
+            if (!(applySingleCellRules() || applySubsetRules() || applyEnumeration() || applyMineCount())) {
+                break;
+            }
+        }
+        List<Tuple<Integer, Integer>> safeCells = new ArrayList<>();
+        List<Tuple<Integer, Integer>> mines = new ArrayList<>();
+        for (int position = 0; position < deduced.length; position++) {
+            if (isCovered(position) && deduced[position] == SAFE) {
+                safeCells.add(new Tuple<>(position / height, position % height));
+            } else if (isCovered(position) && deduced[position] == MINE) {
+                mines.add(new Tuple<>(position / height, position % height));
+            }
+        }
+        return new SolverResult(safeCells, mines);
+    }
+
+    private boolean hasCoveredSafeCell() {
+        for (int position = 0; position < deduced.length; position++) {
+            if (deduced[position] == SAFE && isCovered(position)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * A number that already touches all its mines makes its other covered cells safe;
+     * a number that needs all its covered cells makes them mines.
+     */
+    private boolean applySingleCellRules() {
+        boolean progress = false;
+        for (Constraint constraint : buildConstraints()) {
+            if (constraint.need() == 0) {
+                progress |= markAll(constraint.cells(), SAFE);
+            } else if (constraint.need() == constraint.cells().length) {
+                progress |= markAll(constraint.cells(), MINE);
+            }
+        }
+        return progress;
+    }
+
+    /**
+     * If the covered cells of a number A are all around a number B, the other cells of B hold exactly
+     * (B - A) mines, which can make them all safe or all mines.
+     */
+    private boolean applySubsetRules() {
+        List<Constraint> constraints = buildConstraints();
+        List<List<Constraint>> byCell = indexByCell(constraints);
+        boolean progress = false;
+        for (Constraint small : constraints) {
+            // A constraint containing all the cells of "small" also contains its first cell
+            for (Constraint big : byCell.get(small.cells()[0])) {
+                if (big.cells().length <= small.cells().length || !small.isSubsetOf(big)) {
+                    continue;
+                }
+                int[] difference = difference(big.cells(), small.cells());
+                int need = big.need() - small.need();
+                if (need == 0) {
+                    progress |= markAll(difference, SAFE);
+                } else if (need == difference.length) {
+                    progress |= markAll(difference, MINE);
+                }
+            }
+        }
+        return progress;
+    }
+
+    /**
+     * Enumerates every valid mine assignment of each group of connected covered cells:
+     * cells that are never a mine are safe, cells that are always a mine are mines.
+     */
+    private boolean applyEnumeration() {
+        List<Constraint> constraints = buildConstraints();
+        int remainingMines = getRemainingMines();
+        boolean progress = false;
+        for (Component component : findComponents(constraints)) {
+            if (component.cells().length > MAX_ENUMERATION_CELLS) {
+                continue;
+            }
+            ComponentEnumerator enumerator = new ComponentEnumerator(component.cells(), component.constraints());
+            if (!enumerator.enumerate()) {
+                continue;
+            }
+            long total = 0;
+            long[] cellMines = new long[component.cells().length];
+            // Assignments using more mines than there are left can't be the real one
+            for (int mines = 0; mines <= Math.min(remainingMines, component.cells().length); mines++) {
+                total += enumerator.getSolutions()[mines];
+                for (int i = 0; i < cellMines.length; i++) {
+                    cellMines[i] += enumerator.getCellMines()[mines][i];
+                }
+            }
+            if (total == 0) {
+                continue;
+            }
+            for (int i = 0; i < cellMines.length; i++) {
+                if (cellMines[i] == 0) {
+                    progress |= mark(component.cells()[i], SAFE);
+                } else if (cellMines[i] == total) {
+                    progress |= mark(component.cells()[i], MINE);
+                }
+            }
+        }
+        return progress;
+    }
+
+    /**
+     * If no mines are left all the unknown cells are safe, if there are as many mines left as unknown cells
+     * they are all mines.
+     */
+    private boolean applyMineCount() {
+        int remainingMines = getRemainingMines();
+        List<Integer> unknown = new ArrayList<>();
+        for (int position = 0; position < deduced.length; position++) {
+            if (isCovered(position) && deduced[position] == UNKNOWN) {
+                unknown.add(position);
+            }
+        }
+        if (unknown.isEmpty() || (remainingMines != 0 && remainingMines != unknown.size())) {
+            return false;
+        }
+        for (int position : unknown) {
+            mark(position, remainingMines == 0 ? SAFE : MINE);
+        }
+        return true;
+    }
+
+    /**
+     * Builds a constraint for every visible number that still touches unknown covered cells.
+     * Mines that are known, deduced or uncovered, are subtracted from the number.
+     */
+    List<Constraint> buildConstraints() {
+        List<Constraint> constraints = new ArrayList<>();
+        int[] cells = new int[8];
+        for (int x = 0; x < width; x++) {
+            for (int y = 0; y < height; y++) {
+                int number = minesweeper.getVisibleNumber(x, y);
+                if (number < 0) {
+                    continue;
+                }
+                int count = 0;
+                int knownMines = 0;
+                for (int i = x - 1; i <= x + 1; i++) {
+                    for (int j = y - 1; j <= y + 1; j++) {
+                        if ((i == x && j == y) || i < 0 || j < 0 || i >= width || j >= height) {
+                            continue;
+                        }
+                        int position = i * height + j;
+                        if (isKnownMine(position)) {
+                            knownMines++;
+                        } else if (isCovered(position) && deduced[position] == UNKNOWN) {
+                            cells[count++] = position;
+                        }
+                    }
+                }
+                if (count > 0) {
+                    constraints.add(new Constraint(Arrays.copyOf(cells, count), number - knownMines));
+                }
+            }
+        }
+        return constraints;
+    }
+
+    /**
+     * Splits the unknown cells touched by the constraints into groups that don't share any constraint.
+     * Cells of a group are listed in breadth-first order, so neighbouring cells are close to each other.
+     */
+    List<Component> findComponents(List<Constraint> constraints) {
+        List<List<Constraint>> byCell = indexByCell(constraints);
+        boolean[] visited = new boolean[deduced.length];
+        List<Component> components = new ArrayList<>();
+        for (Constraint start : constraints) {
+            if (visited[start.cells()[0]]) {
+                continue;
+            }
+            List<Integer> cells = new ArrayList<>();
+            List<Constraint> componentConstraints = new ArrayList<>();
+            ArrayDeque<Integer> queue = new ArrayDeque<>();
+            visited[start.cells()[0]] = true;
+            queue.add(start.cells()[0]);
+            while (!queue.isEmpty()) {
+                int cell = queue.poll();
+                cells.add(cell);
+                for (Constraint constraint : byCell.get(cell)) {
+                    // Each constraint is added once, when its first cell is reached
+                    if (constraint.cells()[0] == cell) {
+                        componentConstraints.add(constraint);
+                    }
+                    for (int other : constraint.cells()) {
+                        if (!visited[other]) {
+                            visited[other] = true;
+                            queue.add(other);
+                        }
+                    }
+                }
+            }
+            components.add(new Component(cells.stream().mapToInt(Integer::intValue).toArray(), componentConstraints));
+        }
+        return components;
+    }
+
+    /**
+     * A group of unknown covered cells and the constraints on them.
+     */
+    record Component(int[] cells, List<Constraint> constraints) {
+    }
+
+    private List<List<Constraint>> indexByCell(List<Constraint> constraints) {
+        List<List<Constraint>> byCell = new ArrayList<>(deduced.length);
+        for (int i = 0; i < deduced.length; i++) {
+            byCell.add(null);
+        }
+        for (Constraint constraint : constraints) {
+            for (int cell : constraint.cells()) {
+                if (byCell.get(cell) == null) {
+                    byCell.set(cell, new ArrayList<>());
+                }
+                byCell.get(cell).add(constraint);
+            }
+        }
+        for (int i = 0; i < deduced.length; i++) {
+            if (byCell.get(i) == null) {
+                byCell.set(i, List.of());
+            }
+        }
+        return byCell;
+    }
+
+    private static int[] difference(int[] big, int[] small) {
+        int[] result = new int[big.length - small.length];
+        int count = 0;
+        int j = 0;
+        for (int cell : big) {
+            if (j < small.length && small[j] == cell) {
+                j++;
+            } else {
+                result[count++] = cell;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * @return The mines that are neither uncovered nor deduced.
+     */
+    int getRemainingMines() {
+        int known = 0;
+        for (int position = 0; position < deduced.length; position++) {
+            if (isKnownMine(position)) {
+                known++;
+            }
+        }
+        return minesweeper.getMineCount() - known;
+    }
+
+    private boolean isCovered(int position) {
+        return !minesweeper.isUncovered(position / height, position % height);
+    }
+
+    private boolean isKnownMine(int position) {
+        if (isCovered(position)) {
+            return deduced[position] == MINE;
+        }
+        // An uncovered cell without a number is a mine the player stepped on
+        return minesweeper.getVisibleNumber(position / height, position % height) < 0;
+    }
+
+    private boolean markAll(int[] positions, byte value) {
+        boolean changed = false;
+        for (int position : positions) {
+            changed |= mark(position, value);
+        }
+        return changed;
+    }
+
+    private boolean mark(int position, byte value) {
+        if (deduced[position] == value) {
+            return false;
+        }
+        deduced[position] = value;
+        return true;
+    }
+}
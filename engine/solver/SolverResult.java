@@ -0,0 +1,21 @@
+package engine.solver;
+
+import engine.utils.Tuple;
+
+import java.util.List;
+
+/**
+ * What the solver could deduce from the visible board.
+ *
+ * @param safeCells The covered cells that can't contain a mine, as (x, y) tuples.
+ * @param mines     The covered cells that must contain a mine, as (x, y) tuples.
+ */
+public record SolverResult(List<Tuple<Integer, Integer>> safeCells, List<Tuple<Integer, Integer>> mines) {
+
+    /**
+     * @return true if the solver found at least one cell that can be uncovered without guessing.
+     */
+    public boolean hasSafeCells() {
+        return !safeCells.isEmpty();
+    }
+}
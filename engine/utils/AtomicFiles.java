@@ -0,0 +1,48 @@
+package engine.utils;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Replaces files so that a crash never leaves them half written.
+ *
+ * <p>The content is written to a temporary file next to the target, forced to the disk, then renamed over the
+ * target. A reader sees either the old file or the new one. File systems that can't rename atomically get a plain
+ * rename, which is still never half written on the usual ones.</p>
+ */
+public class AtomicFiles {
+    private AtomicFiles() {
+    }
+
+    /**
+     * Writes a file through a temporary file, replacing it if it exists. Missing directories are created.
+     *
+     * @param file    The file to write.
+     * @param content The bytes between the position and the limit of the buffer.
+     * @throws IOException if the file can't be written, the old one is kept.
+     */
+    public static void write(Path file, ByteBuffer content) throws IOException {
+        Path parent = file.toAbsolutePath().getParent();
+        Files.createDirectories(parent);
+        Path temporary = parent.resolve(file.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (content.hasRemaining()) {
+                channel.write(content);
+            }
+            // The content must be on disk before the rename makes it the file
+            channel.force(false);
+        }
+        try {
+            Files.move(temporary, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+}
@@ -4,6 +4,7 @@ import engine.UIManager;
 
 /**
  * Represents a single cell in a game grid.
+ * The minefield itself is stored in a {@link PackedBoard}, cells are only views handed to the skins.
  */
 public class Cell {
     public CellType type;
@@ -21,6 +22,21 @@ public class Cell {
         this.type = type;
     }
 
+    /**
+     * Constructs a cell view of a packed board cell.
+     *
+     * @param type      The type of the cell.
+     * @param number    The number of adjacent mines, only kept for NUMBER cells.
+     * @param uncovered true if the cell is uncovered.
+     * @param flagged   true if the cell is flagged.
+     */
+    public Cell(CellType type, int number, boolean uncovered, boolean flagged){
+        this.type = type;
+        this.number = type == CellType.NUMBER ? number : 0;
+        this.uncovered = uncovered;
+        this.flagged = flagged;
+    }
+
     /**
      * Sets the number of adjacent mines for NUMBER cells.
      *
@@ -0,0 +1,15 @@
+package engine.utils;
+
+/**
+ * Listens to the cells of a minefield that change, for example to repaint only those.
+ */
+@FunctionalInterface
+public interface CellListener {
+    /**
+     * Called when a cell has been uncovered, flagged or unflagged, or when the number of flags around it changed.
+     *
+     * @param x The x-coordinate of the cell.
+     * @param y The y-coordinate of the cell.
+     */
+    void cellChanged(int x, int y);
+}
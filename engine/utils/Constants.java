@@ -44,7 +44,17 @@ public class Constants {
     public static final String lossMessage = "Oh no! You've uncovered a mine!\nScore: %d\nPress \"Play Again\" to start again or \"Exit\" to exit";
     public static final String creatorText = "Game made by *Matteo Ciocci*";
     public static final StyleSet<StyleSet.Set> blinkStyle = (new StyleSet.Set()).setModifiers(EnumSet.of(SGR.BLINK));
-    public static final String apiUrl = "https://minesweeperapi.cyclic.app/";
+    // The global leaderboard server, the "apiUrl" of the options can point to a self-hosted one
+    public static final String defaultApiUrl = "https://minesweeperapi.cyclic.app/";
+    public static final int apiConnectTimeoutMillis = 5000;
+    public static final int apiRequestTimeoutMillis = 10000;
+    // Failed requests are sent again up to apiRetries times, waiting twice as long after each failure
+    public static final int apiRetries = 2;
+    public static final int apiRetryDelayMillis = 500;
+    // The entries sent at once by the outbox, and the delays between the batches that fail
+    public static final int outboxBatchSize = 10;
+    public static final int outboxRetryDelayMillis = 5000;
+    public static final int outboxMaxRetryDelayMillis = 10 * 60 * 1000;
     public static final String dataCollectionWarning = """
  By playing this game, you agree that your game data, including:
  - username
@@ -65,15 +75,45 @@ How to play:
  - Navigate the grid with the 4 arrow keys.
  - Press Enter to uncover a cell.
  - Press "F" to flag a cell.
+ - Press Space on a number with all its mines flagged to uncover the cells around it.
+ - Press "H" to move to a hinted cell.
+ - Press "U" to undo a move and "R" to redo it.
+ - Press "M" to show or hide the minimap of boards bigger than the screen.
+ - The "Endless" difficulty has no borders, start from the middle and go as far as you can.
  - To win you need to flag all mines correctly
  
 If you uncover a mine you can respawn up to 3 times if you have enough score""";
+    // Cells kept between the cursor and the edges of the screen when a big board scrolls
+    public static final int defaultScrollMargin = 3;
+    public static final int defaultUndoLimit = 100;
+    // The entries of each difficulty shown by the local leaderboard
+    public static final int localLeaderboardSize = 5;
+    // The entries of each difficulty kept from the global leaderboard
+    public static final int globalLeaderboardSize = 1000;
+    // The width and height of the biggest custom board
+    public static final int maxCustomGridSize = 4000;
     public static final String appDataDir = "data/";
     public static final String dataCollectionAcceptedFile = appDataDir+"data_collection.txt";
     public static final String skinFile = appDataDir+"skin.dat";
     public static final String optionsFile = appDataDir+"options.json";
     public static final String themeFile = appDataDir+"theme.dat";
-    public static final String localLeaderboardFile = appDataDir+"local_leaderboard.json";
+    public static final String localLeaderboardFile = appDataDir+"local_leaderboard.log";
+    // The local leaderboard of older versions, moved to the log on start
+    public static final String oldLocalLeaderboardFile = appDataDir+"local_leaderboard.json";
+    // The global leaderboard downloaded last time, shown while the new one is downloaded
+    public static final String globalLeaderboardCacheFile = appDataDir+"global_leaderboard.json";
+    // The entries not sent to the global leaderboard yet
+    public static final String outboxFile = appDataDir+"outbox.log";
+    // The self-hosted leaderboard server: its default port, its entries and how often they're saved
+    public static final int serverPort = 8080;
+    public static final int serverBacklog = 1024;
+    public static final int serverSnapshotSeconds = 30;
+    public static final String serverSnapshotFile = appDataDir+"server/leaderboard.log";
+    public static final String saveFile = appDataDir+"save.dat";
+    public static final String replaysDir = appDataDir+"replays/";
+    // The move logs kept in the replays directory, the oldest ones are deleted after each game
+    public static final int maxReplays = 100;
     public static final String fontsDir = appDataDir+"fonts/";
     public static final String soundsDir = appDataDir+"sounds/";
+    public static final String endlessDir = appDataDir+"endless/";
 }
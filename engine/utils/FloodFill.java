@@ -0,0 +1,143 @@
+package engine.utils;
+
+import java.awt.*;
+import java.util.Arrays;
+
+/**
+ * Iterative flood fill used to uncover empty regions of a {@link PackedBoard}.
+ *
+ * <p>The fill walks the board with an explicit int queue instead of recursion, so big empty regions can't
+ * overflow the stack. The queue is kept between fills and doubles as the list of the cells opened by the last
+ * fill, so uncovering a region doesn't allocate anything per cell.</p>
+ *
+ * <p>Like the original recursive implementation, the fill spreads in the 4 directions from empty cells,
+ * stops on numbers and never opens mines or flagged cells.</p>
+ */
+public class FloodFill {
+    private final PackedBoard board;
+    private int[] queue = new int[64];
+    private int openedCount;
+    private int minX, minY, maxX, maxY;
+
+    /**
+     * Constructs a flood fill working on the given board.
+     *
+     * @param board The board the cells will be uncovered on.
+     */
+    public FloodFill(PackedBoard board) {
+        this.board = board;
+    }
+
+    /**
+     * Uncovers the cell at the given coordinates and, if it's empty, the whole region around it.
+     * The caller must check that the cell is inside the board and not flagged.
+     *
+     * @param x The x-coordinate of the starting cell.
+     * @param y The y-coordinate of the starting cell.
+     * @return The number of cells that were opened, 0 if the starting cell was already uncovered.
+     */
+    public int fill(int x, int y) {
+        reset();
+        return extend(x, y);
+    }
+
+    /**
+     * Forgets the cells opened by the last fill, before a batch of {@link #extend(int, int)} calls.
+     */
+    public void reset() {
+        openedCount = 0;
+        minX = minY = Integer.MAX_VALUE;
+        maxX = maxY = Integer.MIN_VALUE;
+    }
+
+    /**
+     * Fills from another cell, adding the opened cells to the ones of the current fill instead of replacing them.
+     * Several regions opened at once, like the neighbours of a chorded number, end up in one list and one changed region.
+     * The caller must check that the cell is inside the board and not flagged.
+     *
+     * @param x The x-coordinate of the starting cell.
+     * @param y The y-coordinate of the starting cell.
+     * @return The number of cells opened by this call, 0 if the starting cell was already uncovered.
+     */
+    public int extend(int x, int y) {
+        int start = board.index(x, y);
+        if (board.has(start, PackedBoard.UNCOVERED)) {
+            return 0;
+        }
+        int first = openedCount;
+        open(start);
+
+        // Left, right, up and down neighbours; the board padding is always uncovered, so no bounds checks are needed
+        int[] offsets = board.getNeighbourOffsets();
+        int left = offsets[1], right = offsets[6], up = offsets[3], down = offsets[4];
+        // Cells before "head" have already been expanded, the ones after it are waiting
+        for (int head = first; head < openedCount; head++) {
+            int index = queue[head];
+            if (board.has(index, PackedBoard.MINE) || board.getAdjacentMines(index) != 0) {
+                // Only empty cells spread to their neighbours
+                continue;
+            }
+            visit(index + left);
+            visit(index + right);
+            visit(index + up);
+            visit(index + down);
+        }
+        return openedCount - first;
+    }
+
+    /**
+     * Opens a neighbour of an empty cell if it's still covered and safe to open.
+     */
+    private void visit(int index) {
+        if (!board.has(index, PackedBoard.UNCOVERED) && !board.has(index, PackedBoard.MINE)
+                && !board.has(index, PackedBoard.FLAGGED)) {
+            open(index);
+        }
+    }
+
+    /**
+     * Marks the cell as uncovered and appends it to the queue.
+     */
+    private void open(int index) {
+        board.set(index, PackedBoard.UNCOVERED, true);
+        int x = board.xOf(index);
+        int y = board.yOf(index);
+        if (openedCount == queue.length) {
+            queue = Arrays.copyOf(queue, Math.min(queue.length * 2, Math.max(board.size(), 1)));
+        }
+        queue[openedCount++] = index;
+        minX = Math.min(minX, x);
+        minY = Math.min(minY, y);
+        maxX = Math.max(maxX, x);
+        maxY = Math.max(maxY, y);
+    }
+
+    /**
+     * @return The number of cells opened by the last fill, with the ones it was extended by.
+     */
+    public int getOpenedCount() {
+        return openedCount;
+    }
+
+    /**
+     * Returns the board index of a cell opened by the last fill, in the order they were opened.
+     *
+     * @param i The position of the cell, between 0 and {@link #getOpenedCount()} excluded.
+     * @return The board index of the cell.
+     */
+    public int getOpened(int i) {
+        return queue[i];
+    }
+
+    /**
+     * Returns the smallest rectangle, in board coordinates, containing every cell opened by the last fill.
+     *
+     * @return The changed region, or an empty rectangle if nothing was opened.
+     */
+    public Rectangle getChangedRegion() {
+        if (openedCount == 0) {
+            return new Rectangle();
+        }
+        return new Rectangle(minX, minY, maxX - minX + 1, maxY - minY + 1);
+    }
+}
@@ -3,9 +3,12 @@ package engine.utils;
 import com.googlecode.lanterna.TerminalSize;
 import com.googlecode.lanterna.screen.Screen;
 import engine.Minesweeper;
+import engine.solver.HintEngine;
+import engine.solver.NoGuessGenerator;
 
 import java.awt.*;
 import java.util.Objects;
+import java.util.concurrent.ThreadLocalRandom;
 
 public class GameInstance{
     private int respawnTimes;
@@ -17,27 +20,42 @@ public class GameInstance{
     private boolean gameEnded;
     private Minesweeper minesweeper;
     private Rectangle gameBounds;
+    private final Viewport viewport;
     private final MinesweeperDifficulty difficulty;
     private GameStage gameStage;
     private final String username;
     private final Tuple<Integer, Tuple<Integer, Integer>> difficultyInfo;
+    private final long seed;
+    private HintEngine hintEngine;
+    // Searches the board of a no-guess game
+    private final NoGuessGenerator generator = new NoGuessGenerator();
 
     public GameInstance(Screen screen, MinesweeperDifficulty difficulty, Tuple<Integer, Tuple<Integer, Integer>> difficultyInfo, String username) {
-        minesweeper = new Minesweeper(difficultyInfo.second().first(), difficultyInfo.second().second(), difficultyInfo.first());
-        // Create a Rectangle for game bounds, centered on the screen
-        gameBounds = new Rectangle(
-                screen.getTerminalSize().getColumns() / 2 - (minesweeper.getFieldWidth()*2-1) / 2,
-                screen.getTerminalSize().getRows() / 2 - minesweeper.getFieldHeight() / 2,
-                minesweeper.getFieldWidth()*2-1,
-                minesweeper.getFieldHeight()
-        );
-        // Set the cursor in the top left corner
-        cursor = new int[] {
-                gameBounds.x, // cursor x
-                gameBounds.y // cursor y
-        };
+        this(screen, difficulty, difficultyInfo, username, ThreadLocalRandom.current().nextLong());
+    }
 
+    /**
+     * Constructs a game whose board is generated from the given seed.
+     * The same seed and the same first click always build the same board.
+     *
+     * @param screen         The screen the game is shown on.
+     * @param difficulty     The difficulty of the game.
+     * @param difficultyInfo The mines and the grid size of the game.
+     * @param username       The username of the player.
+     * @param seed           The seed used to generate the board.
+     */
+    public GameInstance(Screen screen, MinesweeperDifficulty difficulty, Tuple<Integer, Tuple<Integer, Integer>> difficultyInfo, String username, long seed) {
+        this.seed = seed;
+        minesweeper = new Minesweeper(difficultyInfo.second().first(), difficultyInfo.second().second(), difficultyInfo.first(), seed);
+        // Built before the first move, the hint engine follows every change and never reads the whole board
+        hintEngine = new HintEngine(minesweeper);
+        // Only the part of the board that fits in the screen is shown, centered on the screen
+        viewport = new Viewport(minesweeper.getFieldWidth(), minesweeper.getFieldHeight(),
+                Constants.defaultScrollMargin, screen.getTerminalSize());
+        gameBounds = viewport.getScreenBounds();
+        // Set the cursor in the top left corner
         truePos = new int[] {0, 0};
+        updateCursor();
         score = 0;
 
         running = true;
@@ -50,6 +68,34 @@ public class GameInstance{
         this.difficultyInfo = difficultyInfo;
     }
 
+    /**
+     * Constructs a game from a save, in the state it was saved in.
+     *
+     * @param screen The screen the game is shown on.
+     * @param save   The saved game.
+     */
+    public GameInstance(Screen screen, GameSave save) {
+        this.seed = save.getSeed();
+        minesweeper = save.getMinesweeper();
+        // The saved board is read once, by the first hint
+        hintEngine = new HintEngine(minesweeper);
+        viewport = new Viewport(minesweeper.getFieldWidth(), minesweeper.getFieldHeight(),
+                Constants.defaultScrollMargin, screen.getTerminalSize());
+        truePos = new int[] {0, 0};
+        moveCursor(save.getCursorX(), save.getCursorY());
+        gameBounds = viewport.getScreenBounds();
+        score = save.getScore();
+
+        running = true;
+        playAgain = false;
+        gameEnded = false;
+        respawnTimes = save.getRespawnTimes();
+        gameStage = minesweeper.getGameStage();
+        this.difficulty = save.getDifficulty();
+        this.username = save.getUsername();
+        this.difficultyInfo = save.getDifficultyInfo();
+    }
+
     // Getters
     public int[] getCursor() {
         return cursor;
@@ -106,6 +152,7 @@ public class GameInstance{
 
     public void setMinesweeper(Minesweeper minesweeper) {
         this.minesweeper = minesweeper;
+        hintEngine = new HintEngine(minesweeper);
     }
 
     public Rectangle getGameBounds() {
@@ -143,29 +190,115 @@ public class GameInstance{
      * @param newSize The new size for the game bounds.
      */
     public void recalculateGameBounds(TerminalSize newSize) {
-        // Calculate the new x-coordinate for the top-left corner of the game area
-        int newX = newSize.getColumns() / 2 - (minesweeper.getFieldWidth() * 2 - 1) / 2;
+        // Fit the visible window in the new size, keeping the cursor inside it
+        viewport.resize(newSize);
+        viewport.follow(truePos[0], truePos[1]);
+        updateCursor();
+        gameBounds = viewport.getScreenBounds();
+    }
 
-        // Calculate the new y-coordinate for the top-left corner of the game area
-        int newY = newSize.getRows() / 2 - minesweeper.getFieldHeight() / 2;
+    /**
+     * Moves the cursor to a cell, scrolling the visible window if needed.
+     * Cells outside the board are clamped to its edges.
+     *
+     * @param x The x-coordinate of the cell.
+     * @param y The y-coordinate of the cell.
+     * @return true if the visible window has scrolled, so every visible cell must be drawn again.
+     */
+    public boolean moveCursor(int x, int y) {
+        truePos = new int[] {
+                Math.max(0, Math.min(x, minesweeper.getFieldWidth() - 1)),
+                Math.max(0, Math.min(y, minesweeper.getFieldHeight() - 1))
+        };
+        boolean scrolled = viewport.follow(truePos[0], truePos[1]);
+        updateCursor();
+        return scrolled;
+    }
 
-        // Update the cursor position based on the change in game area position to make sure is not out of the screen
-        cursor = new int[]{
-                newX + truePos[0]*2, // This is the virtual cursor position,
-                // to transform it in character we need to multiply by 2
-                newY + truePos[1] // Here no *2
+    /**
+     * Places the cursor of the screen on the selected cell.
+     */
+    private void updateCursor() {
+        cursor = new int[] {
+                viewport.toScreenX(truePos[0]),
+                viewport.toScreenY(truePos[1])
         };
+    }
 
-        // Create a new Rectangle representing the updated game bounds
-        gameBounds = new Rectangle(
-                newX,
-                newY,
-                minesweeper.getFieldWidth() * 2 - 1,
-                minesweeper.getFieldHeight()
-        );
+    /**
+     * @return The window of the board shown on the screen.
+     */
+    public Viewport getViewport() {
+        return viewport;
     }
 
     public Tuple<Integer, Tuple<Integer, Integer>> getDifficultyInfo() {
         return difficultyInfo;
     }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    /**
+     * Returns the hint engine of the current board. It's built with the board, so every move must be given to
+     * {@link HintEngine#markChanged(Rectangle)}.
+     *
+     * @return The hint engine of the current board.
+     */
+    public HintEngine getHintEngine() {
+        if (hintEngine == null || hintEngine.getMinesweeper() != minesweeper) {
+            hintEngine = new HintEngine(minesweeper);
+        }
+        return hintEngine;
+    }
+
+    /**
+     * @return true if the game is a no-guess game whose board isn't built yet, it's searched on the first click
+     *         with {@link #findBoard(int, int)}.
+     */
+    public boolean needsBoard() {
+        return difficulty == MinesweeperDifficulty.NO_GUESS && !minesweeper.isGenerated();
+    }
+
+    /**
+     * Searches the board of a no-guess game, once it is known where the player starts. The search can take a while
+     * on big boards, so it doesn't touch the game and can be run on another thread, the board found is then put in
+     * the game with {@link #setBoard(int, int, GameSeed)}.
+     *
+     * @param firstX The x-coordinate of the first clicked cell.
+     * @param firstY The y-coordinate of the first clicked cell.
+     * @return The game seed of the board, or null if none was found or the search was cancelled.
+     */
+    public GameSeed findBoard(int firstX, int firstY) {
+        return generator.generate(minesweeper.getFieldWidth(), minesweeper.getFieldHeight(), difficultyInfo.first(),
+                firstX, firstY, seed);
+    }
+
+    /**
+     * Stops a running {@link #findBoard(int, int)}, from any thread.
+     */
+    public void cancelBoardSearch() {
+        generator.cancel();
+    }
+
+    /**
+     * Replaces the board of a no-guess game by the board found for the first click.
+     * The flags placed before the first click and their undo history are kept.
+     *
+     * @param firstX   The x-coordinate of the first clicked cell.
+     * @param firstY   The y-coordinate of the first clicked cell.
+     * @param gameSeed The board found by {@link #findBoard(int, int)}, null for a normal board that at least opens a region.
+     */
+    public void setBoard(int firstX, int firstY, GameSeed gameSeed) {
+        if (gameSeed == null) {
+            gameSeed = new GameSeed(seed, firstX, firstY, true);
+        }
+        Minesweeper generated = Minesweeper.generate(minesweeper.getFieldWidth(), minesweeper.getFieldHeight(),
+                difficultyInfo.first(), gameSeed);
+        generated.copyFlags(minesweeper);
+        minesweeper = generated;
+        // Nothing is uncovered yet, the new engine follows the first click like the old one would have
+        hintEngine = new HintEngine(minesweeper);
+    }
 }
\ No newline at end of file
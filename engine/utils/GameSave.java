@@ -0,0 +1,205 @@
+package engine.utils;
+
+import engine.Minesweeper;
+import engine.replay.MoveLog;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * A game in progress saved to a file, so it can be resumed later.
+ *
+ * <p>The file is a small versioned header followed by the state of the {@link Minesweeper}, where every cell takes
+ * 3 bits: mine, uncovered and flagged. A 2000x2000 board takes 1.5 MB and is written or read in a few milliseconds.
+ * The file is written to a temporary file first and renamed over the old save, so a crash while saving never leaves
+ * a half written save behind. It's read whole into memory, it isn't mapped so it can be deleted once resumed.</p>
+ *
+ * <p>Since version 2 the {@link MoveLog} of the game follows the board, so a resumed game goes on recording its
+ * moves from where it was saved. Saves of version 1 are still read, without a log.</p>
+ */
+public class GameSave {
+    /** The first bytes of every save file, "MSSV". */
+    public static final int MAGIC = 0x4D535356;
+    /** The version of the format, saves of newer versions can't be read. */
+    public static final short VERSION = 2;
+
+    private final MinesweeperDifficulty difficulty;
+    private final Tuple<Integer, Tuple<Integer, Integer>> difficultyInfo;
+    private final String username;
+    private final long seed;
+    private final int score;
+    private final int respawnTimes;
+    private final long elapsedMillis;
+    private final int cursorX;
+    private final int cursorY;
+    private final Minesweeper minesweeper;
+    private final MoveLog moveLog;
+
+    private GameSave(MinesweeperDifficulty difficulty, Tuple<Integer, Tuple<Integer, Integer>> difficultyInfo, String username,
+                     long seed, int score, int respawnTimes, long elapsedMillis, int cursorX, int cursorY, Minesweeper minesweeper,
+                     MoveLog moveLog) {
+        this.difficulty = difficulty;
+        this.difficultyInfo = difficultyInfo;
+        this.username = username;
+        this.seed = seed;
+        this.score = score;
+        this.respawnTimes = respawnTimes;
+        this.elapsedMillis = elapsedMillis;
+        this.cursorX = cursorX;
+        this.cursorY = cursorY;
+        this.minesweeper = minesweeper;
+        this.moveLog = moveLog;
+    }
+
+    /**
+     * Saves a game, replacing the previous save in the file.
+     *
+     * @param gameInstance  The game to save.
+     * @param moveLog       The moves played so far, null if they weren't recorded.
+     * @param elapsedMillis The time played so far.
+     * @param file          The save file.
+     * @throws IOException if the file can't be written, the previous save is kept.
+     */
+    public static void write(GameInstance gameInstance, MoveLog moveLog, long elapsedMillis, Path file) throws IOException {
+        Minesweeper minesweeper = gameInstance.getMinesweeper();
+        byte[] difficulty = gameInstance.getDifficulty().name().getBytes(StandardCharsets.UTF_8);
+        byte[] username = String.valueOf(gameInstance.getUsername()).getBytes(StandardCharsets.UTF_8);
+        int size = Integer.BYTES + Short.BYTES + 2 * Short.BYTES + difficulty.length + username.length
+                + Long.BYTES + 3 * Integer.BYTES + Long.BYTES + 2 * Integer.BYTES + minesweeper.getStateSize() + 1 + (moveLog != null ? moveLog.getStateSize() : 0);
+        ByteBuffer buffer = ByteBuffer.allocate(size);
+        buffer.putInt(MAGIC);
+        buffer.putShort(VERSION);
+        putBytes(buffer, difficulty);
+        putBytes(buffer, username);
+        buffer.putLong(gameInstance.getSeed());
+        buffer.putInt(gameInstance.getDifficultyInfo().first());
+        buffer.putInt(gameInstance.getScore());
+        buffer.putInt(gameInstance.getRespawnTimes());
+        buffer.putLong(elapsedMillis);
+        buffer.putInt(gameInstance.getTruePos()[0]);
+        buffer.putInt(gameInstance.getTruePos()[1]);
+        minesweeper.writeState(buffer);
+        buffer.put((byte) (moveLog != null ? 1 : 0));
+        if (moveLog != null) {
+            moveLog.writeState(buffer);
+        }
+        buffer.flip();
+        AtomicFiles.write(file, buffer);
+    }
+
+    /**
+     * Reads a save written by {@link #write(GameInstance, MoveLog, long, Path)}.
+     *
+     * @param file The save file.
+     * @return The saved game.
+     * @throws IOException if the file can't be read or isn't a valid save.
+     */
+    public static GameSave read(Path file) throws IOException {
+        try {
+            // Read on the heap and not mapped: a mapped file can't be deleted or replaced on Windows until the
+            // mapping is garbage collected, and the save is deleted as soon as it's resumed
+            ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(file));
+            if (buffer.getInt() != MAGIC) {
+                throw new IOException("Not a save file: " + file);
+            }
+            short version = buffer.getShort();
+            if (version < 1 || version > VERSION) {
+                throw new IOException("Unsupported save version " + version + ": " + file);
+            }
+            MinesweeperDifficulty difficulty = MinesweeperDifficulty.valueOf(getString(buffer));
+            String username = getString(buffer);
+            long seed = buffer.getLong();
+            int mines = buffer.getInt();
+            int score = buffer.getInt();
+            int respawnTimes = buffer.getInt();
+            long elapsedMillis = buffer.getLong();
+            int cursorX = buffer.getInt();
+            int cursorY = buffer.getInt();
+            Minesweeper minesweeper = Minesweeper.readState(buffer);
+            MoveLog moveLog = null;
+            if (version >= 2 && buffer.get() != 0) {
+                moveLog = MoveLog.readState(buffer);
+            }
+            if (buffer.hasRemaining()) {
+                throw new IOException("Unexpected data at the end of the save: " + file);
+            }
+            Tuple<Integer, Tuple<Integer, Integer>> difficultyInfo = new Tuple<>(mines,
+                    new Tuple<>(minesweeper.getFieldWidth(), minesweeper.getFieldHeight()));
+            return new GameSave(difficulty, difficultyInfo, username, seed, score, respawnTimes, elapsedMillis,
+                    cursorX, cursorY, minesweeper, moveLog);
+        } catch (BufferUnderflowException | IllegalArgumentException e) {
+            throw new IOException("Corrupted save file: " + file, e);
+        }
+    }
+
+    private static void putBytes(ByteBuffer buffer, byte[] bytes) {
+        buffer.putShort((short) bytes.length);
+        buffer.put(bytes);
+    }
+
+    private static String getString(ByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.getShort() & 0xFFFF];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    public MinesweeperDifficulty getDifficulty() {
+        return difficulty;
+    }
+
+    /**
+     * @return The mines and the grid size of the game, like {@link Utils#getDifficultyInfo(MinesweeperDifficulty)}.
+     */
+    public Tuple<Integer, Tuple<Integer, Integer>> getDifficultyInfo() {
+        return difficultyInfo;
+    }
+
+    public String getUsername() {
+        return username;
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    public int getScore() {
+        return score;
+    }
+
+    public int getRespawnTimes() {
+        return respawnTimes;
+    }
+
+    /**
+     * @return The time played before the game was saved.
+     */
+    public long getElapsedMillis() {
+        return elapsedMillis;
+    }
+
+    public int getCursorX() {
+        return cursorX;
+    }
+
+    public int getCursorY() {
+        return cursorY;
+    }
+
+    /**
+     * @return The restored board.
+     */
+    public Minesweeper getMinesweeper() {
+        return minesweeper;
+    }
+
+    /**
+     * @return The moves played before the game was saved, more can be recorded in it. Null if they weren't recorded.
+     */
+    public MoveLog getMoveLog() {
+        return moveLog;
+    }
+}
@@ -0,0 +1,51 @@
+package engine.utils;
+
+/**
+ * Everything needed to regenerate a board: the seed of the random generator, the first clicked cell
+ * and whether the zone around it was kept free of mines.
+ * Together with the size and the number of mines, the same game seed always builds the same board.
+ *
+ * @param seed        The seed the mines were placed with.
+ * @param firstX      The x-coordinate of the first clicked cell.
+ * @param firstY      The y-coordinate of the first clicked cell.
+ * @param safeOpening true if the 3x3 zone around the first click was kept free of mines.
+ */
+public record GameSeed(long seed, int firstX, int firstY, boolean safeOpening) {
+
+    public GameSeed(long seed, int firstX, int firstY) {
+        this(seed, firstX, firstY, false);
+    }
+
+    /**
+     * Returns the game seed in the "seed:x:y" form used by the leaderboard, with the seed in hexadecimal.
+     * Boards generated with a safe opening get a ":s" suffix.
+     *
+     * @return The game seed as a string.
+     */
+    @Override
+    public String toString() {
+        return String.format("%016x:%d:%d", seed, firstX, firstY) + (safeOpening ? ":s" : "");
+    }
+
+    /**
+     * Parses a game seed written by {@link #toString()}.
+     *
+     * @param text The game seed as a string, can be null.
+     * @return The parsed game seed, or null if the text is null or not a valid game seed.
+     */
+    public static GameSeed parse(String text) {
+        if (text == null) {
+            return null;
+        }
+        String[] parts = text.split(":");
+        if (parts.length != 3 && !(parts.length == 4 && parts[3].equals("s"))) {
+            return null;
+        }
+        try {
+            return new GameSeed(Long.parseUnsignedLong(parts[0], 16), Integer.parseInt(parts[1]), Integer.parseInt(parts[2]),
+                    parts.length == 4);
+        } catch (NumberFormatException ignore) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,204 @@
+package engine.utils;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * A sorted list that finds the rank of a value, or the value at a rank, in O(log n).
+ *
+ * <p>It's a skip list whose links also store how many values they jump over, like the sorted sets of Redis.
+ * Adding, removing, ranking and indexing walk down from the top level, adding up the spans of the links followed,
+ * so none of them looks at more than O(log n) nodes on average. Values the comparator finds equal are kept in the
+ * order they were added; give the comparator a tie breaker to remove or rank a specific one of them.</p>
+ *
+ * @param <T> The type of the values.
+ */
+public class IndexedSkipList<T> {
+    private static final int MAX_LEVEL = 32;
+
+    private static final class Node<T> {
+        private final T value;
+        private final Node<T>[] next;
+        // The number of values between this node and next[i], next[i] included
+        private final int[] span;
+
+        @SuppressWarnings("unchecked")
+        private Node(T value, int level) {
+            this.value = value;
+            this.next = (Node<T>[]) new Node<?>[level];
+            this.span = new int[level];
+        }
+    }
+
+    private final Comparator<? super T> comparator;
+    private final Node<T> head = new Node<>(null, MAX_LEVEL);
+    private final Random random = new Random();
+    private int level = 1;
+    private int size = 0;
+
+    /**
+     * @param comparator The order of the values.
+     */
+    public IndexedSkipList(Comparator<? super T> comparator) {
+        this.comparator = comparator;
+    }
+
+    /**
+     * Adds a value after the values that are smaller or equal.
+     *
+     * @param value The value.
+     */
+    @SuppressWarnings("unchecked")
+    public void add(T value) {
+        Node<T>[] update = (Node<T>[]) new Node<?>[MAX_LEVEL];
+        int[] rank = new int[MAX_LEVEL];
+        Node<T> x = head;
+        for (int i = level - 1; i >= 0; i--) {
+            rank[i] = i == level - 1 ? 0 : rank[i + 1];
+            while (x.next[i] != null && comparator.compare(x.next[i].value, value) <= 0) {
+                rank[i] += x.span[i];
+                x = x.next[i];
+            }
+            update[i] = x;
+        }
+        int nodeLevel = randomLevel();
+        if (nodeLevel > level) {
+            for (int i = level; i < nodeLevel; i++) {
+                rank[i] = 0;
+                update[i] = head;
+                head.span[i] = size;
+            }
+            level = nodeLevel;
+        }
+        Node<T> node = new Node<>(value, nodeLevel);
+        for (int i = 0; i < nodeLevel; i++) {
+            node.next[i] = update[i].next[i];
+            update[i].next[i] = node;
+            node.span[i] = update[i].span[i] - (rank[0] - rank[i]);
+            update[i].span[i] = rank[0] - rank[i] + 1;
+        }
+        // The links above the node now jump over one more value
+        for (int i = nodeLevel; i < level; i++) {
+            update[i].span[i]++;
+        }
+        size++;
+    }
+
+    /**
+     * Removes the first value equal to the given one.
+     *
+     * @param value The value.
+     * @return true if a value was removed.
+     */
+    @SuppressWarnings("unchecked")
+    public boolean remove(T value) {
+        Node<T>[] update = (Node<T>[]) new Node<?>[MAX_LEVEL];
+        Node<T> x = head;
+        for (int i = level - 1; i >= 0; i--) {
+            while (x.next[i] != null && comparator.compare(x.next[i].value, value) < 0) {
+                x = x.next[i];
+            }
+            update[i] = x;
+        }
+        x = x.next[0];
+        if (x == null || comparator.compare(x.value, value) != 0) {
+            return false;
+        }
+        for (int i = 0; i < level; i++) {
+            if (update[i].next[i] == x) {
+                update[i].span[i] += x.span[i] - 1;
+                update[i].next[i] = x.next[i];
+            } else {
+                update[i].span[i]--;
+            }
+        }
+        while (level > 1 && head.next[level - 1] == null) {
+            level--;
+        }
+        size--;
+        return true;
+    }
+
+    /**
+     * @param value The value.
+     * @return The index of the first value equal to the given one, or -1 if there's none.
+     */
+    public int indexOf(T value) {
+        int rank = 0;
+        Node<T> x = head;
+        for (int i = level - 1; i >= 0; i--) {
+            while (x.next[i] != null && comparator.compare(x.next[i].value, value) < 0) {
+                rank += x.span[i];
+                x = x.next[i];
+            }
+        }
+        x = x.next[0];
+        return x != null && comparator.compare(x.value, value) == 0 ? rank : -1;
+    }
+
+    /**
+     * @param index The index, between 0 and {@link #size()} excluded.
+     * @return The value at the index.
+     * @throws IndexOutOfBoundsException if the index is out of the list.
+     */
+    public T get(int index) {
+        return nodeAt(index).value;
+    }
+
+    /**
+     * Returns the values of a page, walking the list from the first one instead of indexing each.
+     *
+     * @param offset The index of the first value.
+     * @param count  The maximum number of values.
+     * @return The values, fewer than count at the end of the list.
+     */
+    public List<T> subList(int offset, int count) {
+        List<T> values = new ArrayList<>(Math.max(0, Math.min(count, size - offset)));
+        if (offset < 0 || offset >= size) {
+            return values;
+        }
+        for (Node<T> x = nodeAt(offset); x != null && values.size() < count; x = x.next[0]) {
+            values.add(x.value);
+        }
+        return values;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    private Node<T> nodeAt(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index " + index + " out of bounds for size " + size);
+        }
+        int traversed = 0;
+        Node<T> x = head;
+        for (int i = level - 1; i >= 0; i--) {
+            while (x.next[i] != null && traversed + x.span[i] <= index + 1) {
+                traversed += x.span[i];
+                x = x.next[i];
+            }
+            if (traversed == index + 1) {
+                return x;
+            }
+        }
+        throw new IllegalStateException("Broken skip list");
+    }
+
+    /**
+     * @return A level where every level above the first is 4 times less likely than the one below.
+     */
+    private int randomLevel() {
+        int nodeLevel = 1;
+        while (nodeLevel < MAX_LEVEL && (random.nextInt() & 3) == 0) {
+            nodeLevel++;
+        }
+        return nodeLevel;
+    }
+}
@@ -0,0 +1,304 @@
+package engine.utils;
+
+import engine.Leaderboard;
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * The client of the global leaderboard API.
+ *
+ * <p>Every request is asynchronous and goes through a single {@link HttpClient}, which keeps the connections to
+ * the API open between requests. Requests time out instead of hanging the game, and the ones that fail because of
+ * the network or of the server are retried a few times, waiting longer after each failure.</p>
+ *
+ * <p>The last downloaded board is kept in a cache file. The leaderboard screen shows it at once, even if it's old,
+ * and replaces it when {@link #refresh()} brings the new one (stale-while-revalidate). A failed download completes
+ * the future exceptionally, it's never mistaken for an empty board.</p>
+ *
+ * <p>Refreshing downloads as little as possible:</p>
+ * <ul>
+ *     <li>The ETag and the Last-Modified date of the last board are sent back, so a server whose board didn't change
+ *     answers "304 Not Modified" without a body.</li>
+ *     <li>The cursor of the last board is sent as the "since" parameter. A server that supports it answers with only
+ *     the entries added after the cursor and {@code "delta": true}, they're merged with the cached board. Servers
+ *     that ignore it send the whole board, which replaces the cached one.</li>
+ *     <li>Bodies can be compressed with gzip.</li>
+ *     <li>Bodies are parsed while they're downloaded by a {@link LeaderboardJsonReader}, only the best
+ *     {@link Constants#globalLeaderboardSize} entries of each difficulty are kept. The first download asks for
+ *     those only with the "limit" parameter.</li>
+ * </ul>
+ */
+public class LeaderboardClient {
+    private static final int HTTP_NOT_MODIFIED = 304;
+
+    private final HttpClient client;
+    private final URI baseUri;
+    private final Path cacheFile;
+    private final int retries;
+    private volatile LeaderboardIndex cached;
+    private volatile boolean cacheLoaded = false;
+    // The entries of the cached board and what's needed to ask for what changed since
+    private List<Leaderboard.User> cachedUsers = new ArrayList<>();
+    private String etag;
+    private String lastModified;
+    private String cursor;
+    // The refresh in progress, shared by everyone asking for one meanwhile
+    private CompletableFuture<LeaderboardIndex> refreshing;
+
+    /**
+     * @param baseUri   The address of the API, the endpoints are resolved against it.
+     * @param cacheFile The file keeping the last downloaded board.
+     */
+    public LeaderboardClient(URI baseUri, Path cacheFile) {
+        this(baseUri, cacheFile, Constants.apiRetries);
+    }
+
+    /**
+     * @param baseUri   The address of the API, the endpoints are resolved against it.
+     * @param cacheFile The file keeping the last downloaded board.
+     * @param retries   The number of times a failed request is sent again.
+     */
+    public LeaderboardClient(URI baseUri, Path cacheFile, int retries) {
+        // Ending with a slash, so "raw" is resolved under the path of the API and not next to it
+        this.baseUri = baseUri.toString().endsWith("/") ? baseUri : URI.create(baseUri + "/");
+        this.cacheFile = cacheFile;
+        this.retries = Math.max(0, retries);
+        this.client = HttpClient.newBuilder()
+                .connectTimeout(Duration.ofMillis(Constants.apiConnectTimeoutMillis))
+                .followRedirects(HttpClient.Redirect.NORMAL)
+                .build();
+    }
+
+    /**
+     * Returns the last downloaded board without waiting for the network. The cache file is read the first time.
+     *
+     * @return The last downloaded board, or null if it was never downloaded.
+     */
+    public LeaderboardIndex getCached() {
+        if (!cacheLoaded) {
+            synchronized (this) {
+                if (!cacheLoaded) {
+                    try {
+                        if (cached == null && Files.exists(cacheFile)) {
+                            try (LeaderboardJsonReader reader = new LeaderboardJsonReader(Files.newInputStream(cacheFile))) {
+                                List<Leaderboard.User> users = new ArrayList<>();
+                                for (Leaderboard.User user = reader.nextUser(); user != null; user = reader.nextUser()) {
+                                    users.add(user);
+                                }
+                                cachedUsers = users;
+                                etag = reader.getString("etag");
+                                lastModified = reader.getString("lastModified");
+                                cursor = reader.getString("cursor");
+                            }
+                            cached = new LeaderboardIndex(cachedUsers);
+                        }
+                    } catch (Exception ignore) {
+                        // A damaged cache is only a missing cache
+                    }
+                    cacheLoaded = true;
+                }
+            }
+        }
+        return cached;
+    }
+
+    /**
+     * Downloads what changed on the board in the background and updates the cache with it.
+     * Asking for a refresh while one is in progress returns the same one.
+     *
+     * @return The downloaded board, or a future completed with the error if it couldn't be downloaded.
+     */
+    public synchronized CompletableFuture<LeaderboardIndex> refresh() {
+        if (refreshing != null && !refreshing.isDone()) {
+            return refreshing;
+        }
+        // The validators and the cursor come with the cache
+        getCached();
+        URI uri = baseUri.resolve(cursor == null ? "raw?limit=" + Constants.globalLeaderboardSize : "raw?since=" + URLEncoder.encode(cursor, StandardCharsets.UTF_8));
+        HttpRequest.Builder builder = HttpRequest.newBuilder(uri)
+                .timeout(Duration.ofMillis(Constants.apiRequestTimeoutMillis))
+                .header("Accept", "application/json")
+                .header("Accept-Encoding", "gzip")
+                .GET();
+        // Without a cached board a 304 would leave nothing to show
+        if (cached != null) {
+            if (etag != null) {
+                builder.header("If-None-Match", etag);
+            }
+            if (lastModified != null) {
+                builder.header("If-Modified-Since", lastModified);
+            }
+        }
+        refreshing = send(builder.build(), HttpResponse.BodyHandlers.ofInputStream(), 0).thenApply(this::update);
+        return refreshing;
+    }
+
+    /**
+     * Replaces the cached board with a downloaded one, or merges the new entries into it.
+     *
+     * <p>The body is read one entry at a time while it's downloaded, straight into the best
+     * {@link Constants#globalLeaderboardSize} entries of each difficulty: the board is never held whole in memory,
+     * whatever its size.</p>
+     */
+    private LeaderboardIndex update(HttpResponse<InputStream> response) {
+        TopUsers top = new TopUsers(Constants.globalLeaderboardSize);
+        boolean delta;
+        String newCursor;
+        try (InputStream body = response.body()) {
+            if (response.statusCode() == HTTP_NOT_MODIFIED) {
+                return cached;
+            }
+            boolean gzip = response.headers().firstValue("Content-Encoding").orElse("").equalsIgnoreCase("gzip");
+            try (LeaderboardJsonReader reader = new LeaderboardJsonReader(gzip ? new GZIPInputStream(body) : body)) {
+                for (Leaderboard.User user = reader.nextUser(); user != null; user = reader.nextUser()) {
+                    top.add(user);
+                }
+                delta = reader.getBoolean("delta");
+                newCursor = reader.getString("cursor");
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        synchronized (this) {
+            if (delta) {
+                // The best of the cached board and of the new entries are the best of the whole board
+                top.addAll(cachedUsers);
+            }
+            // A new list and a new index, the shown ones may still be read by the screen
+            cachedUsers = top.toList();
+            cached = new LeaderboardIndex(cachedUsers);
+            cacheLoaded = true;
+            etag = response.headers().firstValue("ETag").orElse(null);
+            lastModified = response.headers().firstValue("Last-Modified").orElse(null);
+            cursor = newCursor;
+            writeCache();
+            return cached;
+        }
+    }
+
+    /**
+     * Sends an entry to the global leaderboard.
+     *
+     * @param user The entry.
+     * @return A future completed when the server accepted the entry, or with the error if it didn't.
+     */
+    public CompletableFuture<Void> submit(Leaderboard.User user) {
+        HttpRequest request = HttpRequest.newBuilder(baseUri.resolve("submit"))
+                .timeout(Duration.ofMillis(Constants.apiRequestTimeoutMillis))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(toJson(user).toString(), StandardCharsets.UTF_8))
+                .build();
+        return send(request, HttpResponse.BodyHandlers.ofByteArray(), 0).thenAccept(response -> {
+            // The response must be read or else the server won't respond, but it says nothing more
+        });
+    }
+
+    /**
+     * Sends a request, sending it again after a network error or a server error.
+     *
+     * @return The response, a success or "304 Not Modified".
+     */
+    private <T> CompletableFuture<HttpResponse<T>> send(HttpRequest request, HttpResponse.BodyHandler<T> handler, int attempt) {
+        return client.sendAsync(request, handler)
+                .thenApply(response -> {
+                    if (response.statusCode() / 100 != 2 && response.statusCode() != HTTP_NOT_MODIFIED) {
+                        // A streamed body must be closed to free the connection
+                        if (response.body() instanceof Closeable body) {
+                            try {
+                                body.close();
+                            } catch (IOException ignore) {
+                            }
+                        }
+                        throw new CompletionException(new HttpStatusException(response.statusCode(), request.uri()));
+                    }
+                    return response;
+                })
+                .exceptionallyCompose(e -> {
+                    Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+                    // A client error would fail again, only the network and the server can get better
+                    boolean retry = cause instanceof IOException
+                            && !(cause instanceof HttpStatusException status && status.getStatusCode() < 500);
+                    if (!retry || attempt >= retries) {
+                        return CompletableFuture.failedFuture(cause);
+                    }
+                    long delay = Constants.apiRetryDelayMillis << attempt;
+                    return CompletableFuture.supplyAsync(() -> null, CompletableFuture.delayedExecutor(delay, TimeUnit.MILLISECONDS))
+                            .thenCompose(ignore -> send(request, handler, attempt + 1));
+                });
+    }
+
+    /**
+     * Writes the board to the cache file, through a temporary file so a crash never leaves half a board.
+     */
+    private void writeCache() {
+        JSONObject json = new JSONObject();
+        JSONArray users = new JSONArray();
+        for (Leaderboard.User user : cachedUsers) {
+            users.put(toJson(user));
+        }
+        json.put("users", users);
+        json.put("etag", etag);
+        json.put("lastModified", lastModified);
+        json.put("cursor", cursor);
+        String body = json.toString();
+        try {
+            AtomicFiles.write(cacheFile, StandardCharsets.UTF_8.encode(body));
+        } catch (IOException ignore) {
+            // The board is still shown, it will only be missing until the next download
+        }
+    }
+
+    /**
+     * @param user The entry.
+     * @return The entry as sent to the API.
+     */
+    public static JSONObject toJson(Leaderboard.User user) {
+        JSONObject json = new JSONObject();
+        json.put("username", user.username());
+        json.put("score", user.score());
+        json.put("time", user.time());
+        json.put("difficulty", user.difficulty().name());
+        if (user.seed() != null) {
+            json.put("seed", user.seed().toString());
+        }
+        return json;
+    }
+
+    /**
+     * A response whose status isn't a success.
+     */
+    public static class HttpStatusException extends IOException {
+        private static final long serialVersionUID = 1L;
+
+        private final int statusCode;
+
+        public HttpStatusException(int statusCode, URI uri) {
+            super("HTTP " + statusCode + " from " + uri);
+            this.statusCode = statusCode;
+        }
+
+        public int getStatusCode() {
+            return statusCode;
+        }
+    }
+}
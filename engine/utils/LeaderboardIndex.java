@@ -0,0 +1,192 @@
+package engine.utils;
+
+import engine.Leaderboard;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The leaderboard entries sorted once and queried many times.
+ *
+ * <p>Each difficulty has its own {@link IndexedSkipList} of entries, the highest score first and, for the same score,
+ * the shortest time first. The time of an entry is parsed to seconds once when it's added, so "9:59" ranks before
+ * "10:00" instead of being compared as text. The best entry of every player is kept for each difficulty.</p>
+ *
+ * <p>Ranking an entry and reading a page of a difficulty take O(log n), a player's best entry O(1).</p>
+ */
+public class LeaderboardIndex {
+    /**
+     * An indexed entry.
+     *
+     * @param user     The entry.
+     * @param seconds  The time of the entry in seconds, {@link Integer#MAX_VALUE} if it can't be parsed.
+     * @param sequence The number of entries added before it, so equal entries rank in the order they were added.
+     */
+    private record Entry(Leaderboard.User user, int seconds, long sequence) {
+    }
+
+    /**
+     * A player on a difficulty.
+     */
+    private record PlayerKey(String username, MinesweeperDifficulty difficulty) {
+    }
+
+    private static final Comparator<Entry> ORDER = ((Comparator<Entry>) (a, b) -> Integer.compare(b.user().score(), a.user().score()))
+            .thenComparingInt(Entry::seconds)
+            .thenComparingLong(Entry::sequence);
+
+    private final Map<MinesweeperDifficulty, IndexedSkipList<Entry>> difficulties = new EnumMap<>(MinesweeperDifficulty.class);
+    private final Map<PlayerKey, Entry> best = new HashMap<>();
+    // Finds the entry of a user record, to rank it
+    private final Map<Leaderboard.User, Entry> entries = new HashMap<>();
+    private long sequence = 0;
+
+    public LeaderboardIndex() {
+    }
+
+    /**
+     * @param users The entries to index.
+     */
+    public LeaderboardIndex(Collection<Leaderboard.User> users) {
+        for (Leaderboard.User user : users) {
+            add(user);
+        }
+    }
+
+    /**
+     * Adds an entry to its difficulty.
+     *
+     * @param user The entry.
+     */
+    public void add(Leaderboard.User user) {
+        Entry entry = new Entry(user, parseSeconds(user.time()), sequence++);
+        difficulties.computeIfAbsent(user.difficulty(), d -> new IndexedSkipList<>(ORDER)).add(entry);
+        entries.putIfAbsent(user, entry);
+        best.merge(new PlayerKey(user.username(), user.difficulty()), entry,
+                (old, added) -> ORDER.compare(added, old) < 0 ? added : old);
+    }
+
+    /**
+     * @param user An indexed entry.
+     * @return The rank of the entry on its difficulty, from 1, or -1 if it isn't indexed.
+     */
+    public int getRank(Leaderboard.User user) {
+        Entry entry = entries.get(user);
+        if (entry == null) {
+            return -1;
+        }
+        return difficulties.get(user.difficulty()).indexOf(entry) + 1;
+    }
+
+    /**
+     * @param username   The name of the player.
+     * @param difficulty The difficulty.
+     * @return The best entry of the player on the difficulty, or null if they have none.
+     */
+    public Leaderboard.User getBest(String username, MinesweeperDifficulty difficulty) {
+        Entry entry = best.get(new PlayerKey(username, difficulty));
+        return entry == null ? null : entry.user();
+    }
+
+    /**
+     * @param username   The name of the player.
+     * @param difficulty The difficulty.
+     * @return The rank of the best entry of the player on the difficulty, from 1, or -1 if they have none.
+     */
+    public int getPlayerRank(String username, MinesweeperDifficulty difficulty) {
+        Entry entry = best.get(new PlayerKey(username, difficulty));
+        return entry == null ? -1 : difficulties.get(difficulty).indexOf(entry) + 1;
+    }
+
+    /**
+     * Returns a page of the entries of a difficulty, best first.
+     *
+     * @param difficulty The difficulty.
+     * @param offset     The number of better entries to skip.
+     * @param count      The maximum number of entries.
+     * @return The entries, fewer than count on the last page.
+     */
+    public List<Leaderboard.User> getPage(MinesweeperDifficulty difficulty, int offset, int count) {
+        List<Leaderboard.User> users = new ArrayList<>();
+        IndexedSkipList<Entry> list = difficulties.get(difficulty);
+        if (list != null) {
+            for (Entry entry : list.subList(offset, count)) {
+                users.add(entry.user());
+            }
+        }
+        return users;
+    }
+
+    /**
+     * @param difficulty The difficulty.
+     * @return The number of entries of the difficulty.
+     */
+    public int getSize(MinesweeperDifficulty difficulty) {
+        IndexedSkipList<Entry> list = difficulties.get(difficulty);
+        return list == null ? 0 : list.size();
+    }
+
+    /**
+     * @return The difficulties with at least one entry, from the last to the first like the leaderboard lists them.
+     */
+    public List<MinesweeperDifficulty> getDifficulties() {
+        List<MinesweeperDifficulty> list = new ArrayList<>();
+        MinesweeperDifficulty[] values = MinesweeperDifficulty.values();
+        for (int i = values.length - 1; i >= 0; i--) {
+            if (getSize(values[i]) > 0) {
+                list.add(values[i]);
+            }
+        }
+        return list;
+    }
+
+    /**
+     * @return true if there's no entry.
+     */
+    public boolean isEmpty() {
+        return entries.isEmpty();
+    }
+
+    /**
+     * Parses a time of the "mm:ss" form sent to the leaderboard, hours are accepted too.
+     *
+     * @param time The time.
+     * @return The time in seconds, or {@link Integer#MAX_VALUE} if it can't be parsed, so it ranks last.
+     */
+    public static int parseSeconds(String time) {
+        if (time == null || time.isEmpty()) {
+            return Integer.MAX_VALUE;
+        }
+        long seconds = 0;
+        long part = 0;
+        boolean digits = false;
+        for (int i = 0; i < time.length(); i++) {
+            char c = time.charAt(i);
+            if (c >= '0' && c <= '9') {
+                part = part * 10 + (c - '0');
+                digits = true;
+                if (part > Integer.MAX_VALUE) {
+                    return Integer.MAX_VALUE;
+                }
+            } else if (c == ':' && digits) {
+                seconds = (seconds + part) * 60;
+                if (seconds > Integer.MAX_VALUE) {
+                    return Integer.MAX_VALUE;
+                }
+                part = 0;
+                digits = false;
+            } else {
+                return Integer.MAX_VALUE;
+            }
+        }
+        if (!digits) {
+            return Integer.MAX_VALUE;
+        }
+        return (int) Math.min(seconds + part, Integer.MAX_VALUE);
+    }
+}
@@ -0,0 +1,386 @@
+package engine.utils;
+
+import engine.Leaderboard;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Reads a leaderboard in the {"users": [...]} form of the API one entry at a time.
+ *
+ * <p>It's a pull parser: {@link #nextUser()} reads the JSON only until the end of the next entry, without building
+ * a tree of the document or a list of the entries, so reading a leaderboard of any size takes the memory of one
+ * entry. The other fields of the top level object are kept by {@link #getField(String)} if they hold a string,
+ * a number or a boolean, nested objects and arrays are skipped.</p>
+ *
+ * <p>Entries without a username, a score, a time or a known difficulty are skipped, a leaderboard with a new
+ * difficulty can still be read. A document that isn't valid JSON throws an {@link IOException}.</p>
+ */
+public class LeaderboardJsonReader implements Closeable {
+    private static final int START = 0;
+    private static final int FIELDS = 1;
+    private static final int USERS = 2;
+    private static final int END = 3;
+
+    private final Reader reader;
+    private final char[] buffer = new char[8192];
+    private int position = 0;
+    private int limit = 0;
+    // The number of chars before the buffer, to tell where an error is
+    private long offset = 0;
+    private int state = START;
+    private boolean first = true;
+    private final Map<String, Object> fields = new HashMap<>();
+    private final StringBuilder text = new StringBuilder();
+
+    /**
+     * @param reader The JSON document.
+     */
+    public LeaderboardJsonReader(Reader reader) {
+        this.reader = reader;
+    }
+
+    /**
+     * @param input The JSON document, in UTF-8.
+     */
+    public LeaderboardJsonReader(InputStream input) {
+        this(new InputStreamReader(input, StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Reads the next entry of the "users" array.
+     *
+     * @return The entry, or null once the whole document has been read.
+     * @throws IOException if the document can't be read or isn't valid JSON.
+     */
+    public Leaderboard.User nextUser() throws IOException {
+        while (true) {
+            switch (state) {
+                case START -> {
+                    expect('{');
+                    state = FIELDS;
+                    first = true;
+                }
+                case FIELDS -> {
+                    if (peek() == '}') {
+                        position++;
+                        state = END;
+                        continue;
+                    }
+                    if (!first) {
+                        expect(',');
+                    }
+                    first = false;
+                    String key = readString();
+                    expect(':');
+                    if (key.equals("users")) {
+                        expect('[');
+                        state = USERS;
+                        first = true;
+                    } else {
+                        fields.put(key, readScalar());
+                    }
+                }
+                case USERS -> {
+                    if (peek() == ']') {
+                        position++;
+                        state = FIELDS;
+                        // The array was a field, the next one follows a comma
+                        first = false;
+                        continue;
+                    }
+                    if (!first) {
+                        expect(',');
+                    }
+                    first = false;
+                    Leaderboard.User user = readUser();
+                    if (user != null) {
+                        return user;
+                    }
+                }
+                default -> {
+                    return null;
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns a field of the top level object, read so far. Fields after the "users" array are only known once
+     * {@link #nextUser()} returned null.
+     *
+     * @param name The name of the field.
+     * @return The string, number or boolean of the field, or null if it wasn't read or holds something else.
+     */
+    public Object getField(String name) {
+        return fields.get(name);
+    }
+
+    /**
+     * @param name The name of the field.
+     * @return The string of the field, or null if it wasn't read or isn't a string.
+     */
+    public String getString(String name) {
+        return fields.get(name) instanceof String string ? string : null;
+    }
+
+    /**
+     * @param name The name of the field.
+     * @return true if the field was read and holds true.
+     */
+    public boolean getBoolean(String name) {
+        return Boolean.TRUE.equals(fields.get(name));
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+
+    /**
+     * Reads an entry, skipping the fields it doesn't need.
+     *
+     * @return The entry, or null if it's missing a field or has an unknown difficulty.
+     */
+    private Leaderboard.User readUser() throws IOException {
+        if (peek() != '{') {
+            readScalar();
+            return null;
+        }
+        position++;
+        Object username = null;
+        Object score = null;
+        Object time = null;
+        Object difficulty = null;
+        Object seed = null;
+        boolean firstField = true;
+        while (peek() != '}') {
+            if (!firstField) {
+                expect(',');
+            }
+            firstField = false;
+            String key = readString();
+            expect(':');
+            switch (key) {
+                case "username" -> username = readScalar();
+                case "score" -> score = readScalar();
+                case "time" -> time = readScalar();
+                case "difficulty" -> difficulty = readScalar();
+                case "seed" -> seed = readScalar();
+                default -> skipValue();
+            }
+        }
+        position++;
+        if (!(username instanceof String) || !(time instanceof String) || !(difficulty instanceof String)) {
+            return null;
+        }
+        int points;
+        if (score instanceof Number number) {
+            points = number.intValue();
+        } else if (score instanceof String string) {
+            try {
+                points = Integer.parseInt(string);
+            } catch (NumberFormatException ignore) {
+                return null;
+            }
+        } else {
+            return null;
+        }
+        MinesweeperDifficulty level;
+        try {
+            level = MinesweeperDifficulty.valueOf(((String) difficulty).toUpperCase());
+        } catch (IllegalArgumentException ignore) {
+            return null;
+        }
+        // Older entries don't have a seed
+        GameSeed gameSeed = seed instanceof String string ? GameSeed.parse(string) : null;
+        return new Leaderboard.User((String) username, points, (String) time, level, gameSeed);
+    }
+
+    /**
+     * Reads a string, a number, a boolean or null. Objects and arrays are skipped.
+     *
+     * @return The value, a Long or a Double for numbers, or null for null, objects and arrays.
+     */
+    private Object readScalar() throws IOException {
+        int c = peek();
+        switch (c) {
+            case '"' -> {
+                return readString();
+            }
+            case '{', '[' -> {
+                skipValue();
+                return null;
+            }
+            case 't' -> {
+                expectWord("true");
+                return Boolean.TRUE;
+            }
+            case 'f' -> {
+                expectWord("false");
+                return Boolean.FALSE;
+            }
+            case 'n' -> {
+                expectWord("null");
+                return null;
+            }
+            default -> {
+                return readNumber();
+            }
+        }
+    }
+
+    private Number readNumber() throws IOException {
+        text.setLength(0);
+        boolean integer = true;
+        while (true) {
+            if (position == limit && !fill()) {
+                break;
+            }
+            char c = buffer[position];
+            if (c >= '0' && c <= '9' || c == '-') {
+                text.append(c);
+            } else if (c == '.' || c == 'e' || c == 'E' || c == '+') {
+                text.append(c);
+                integer = false;
+            } else {
+                break;
+            }
+            position++;
+        }
+        if (text.isEmpty()) {
+            throw error("Unexpected character");
+        }
+        try {
+            return integer ? (Number) Long.parseLong(text, 0, text.length(), 10) : (Number) Double.parseDouble(text.toString());
+        } catch (NumberFormatException e) {
+            throw error("Invalid number " + text);
+        }
+    }
+
+    private String readString() throws IOException {
+        expect('"');
+        text.setLength(0);
+        while (true) {
+            if (position == limit && !fill()) {
+                throw error("Unterminated string");
+            }
+            // Copy the plain chars of the buffer at once
+            int start = position;
+            while (position < limit && buffer[position] != '"' && buffer[position] != '\\') {
+                position++;
+            }
+            text.append(buffer, start, position - start);
+            if (position == limit) {
+                continue;
+            }
+            char c = buffer[position++];
+            if (c == '"') {
+                return text.toString();
+            }
+            char escaped = next();
+            switch (escaped) {
+                case '"', '\\', '/' -> text.append(escaped);
+                case 'b' -> text.append('\b');
+                case 'f' -> text.append('\f');
+                case 'n' -> text.append('\n');
+                case 'r' -> text.append('\r');
+                case 't' -> text.append('\t');
+                case 'u' -> {
+                    int code = 0;
+                    for (int i = 0; i < 4; i++) {
+                        int digit = Character.digit(next(), 16);
+                        if (digit < 0) {
+                            throw error("Invalid unicode escape");
+                        }
+                        code = code * 16 + digit;
+                    }
+                    text.append((char) code);
+                }
+                default -> throw error("Invalid escape");
+            }
+        }
+    }
+
+    /**
+     * Skips a value of any type, nested objects and arrays included.
+     */
+    private void skipValue() throws IOException {
+        int c = peek();
+        if (c != '{' && c != '[') {
+            readScalar();
+            return;
+        }
+        int depth = 0;
+        do {
+            c = peek();
+            if (c == '"') {
+                readString();
+                continue;
+            }
+            position++;
+            if (c == '{' || c == '[') {
+                depth++;
+            } else if (c == '}' || c == ']') {
+                depth--;
+            } else if (c < 0) {
+                throw error("Unexpected end of document");
+            }
+        } while (depth > 0);
+    }
+
+    private void expect(char expected) throws IOException {
+        if (peek() != expected) {
+            throw error("Expected '" + expected + "'");
+        }
+        position++;
+    }
+
+    private void expectWord(String word) throws IOException {
+        for (int i = 0; i < word.length(); i++) {
+            if (next() != word.charAt(i)) {
+                throw error("Expected " + word);
+            }
+        }
+    }
+
+    /**
+     * @return The next char that isn't a space, without reading it, or -1 at the end of the document.
+     */
+    private int peek() throws IOException {
+        while (true) {
+            if (position == limit && !fill()) {
+                return -1;
+            }
+            char c = buffer[position];
+            if (c != ' ' && c != '\n' && c != '\r' && c != '\t') {
+                return c;
+            }
+            position++;
+        }
+    }
+
+    private char next() throws IOException {
+        if (position == limit && !fill()) {
+            throw error("Unexpected end of document");
+        }
+        return buffer[position++];
+    }
+
+    private boolean fill() throws IOException {
+        offset += limit;
+        position = 0;
+        limit = Math.max(0, reader.read(buffer));
+        return limit > 0;
+    }
+
+    private IOException error(String message) {
+        return new IOException(message + " at char " + (offset + position));
+    }
+}
@@ -0,0 +1,244 @@
+package engine.utils;
+
+import engine.Leaderboard;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.zip.CRC32;
+
+/**
+ * An append-only file of leaderboard entries.
+ *
+ * <p>The file is a small header followed by records of {@link #RECORD_SIZE} bytes, one per entry, each ending with
+ * the CRC32 of its content. Adding an entry writes one record after the last one, the rest of the file is never
+ * rewritten, so a crash while adding an entry can only lose that entry. When the file is opened, a record cut short
+ * by a crash is dropped and a record whose checksum doesn't match is skipped, the others are still read.</p>
+ *
+ * <p>Skipped records stay in the file until it's compacted: {@link #compact()} writes the valid records to a
+ * temporary file and renames it over the log, with {@link AtomicFiles}.</p>
+ */
+public class LeaderboardLog {
+    /** The first bytes of every leaderboard log, "MSLB". */
+    public static final int MAGIC = 0x4D534C42;
+    /** The version of the format, logs of other versions can't be read. */
+    public static final short VERSION = 1;
+    /** The size of a record, in bytes. */
+    public static final int RECORD_SIZE = 80;
+    private static final int HEADER_SIZE = Integer.BYTES + 2 * Short.BYTES;
+    private static final int USERNAME_BYTES = 32;
+    private static final int TIME_BYTES = 16;
+    private static final int HAS_SEED = 1;
+    private static final int SAFE_OPENING = 2;
+
+    private final Path file;
+    // The number of records in the file, skipped ones included
+    private long records = 0;
+    private long skipped = 0;
+
+    /**
+     * @param file The log file, created on the first entry if it doesn't exist.
+     */
+    public LeaderboardLog(Path file) {
+        this.file = file;
+    }
+
+    /**
+     * Reads every valid entry of the log, in the order they were added.
+     * A record cut short at the end of the file is dropped, the next entry is written over it.
+     *
+     * @param consumer Receives the entries.
+     * @throws IOException if the file can't be read or isn't a leaderboard log.
+     */
+    public void read(Consumer<Leaderboard.User> consumer) throws IOException {
+        records = 0;
+        skipped = 0;
+        if (!Files.exists(file)) {
+            return;
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(file));
+        if (buffer.remaining() < HEADER_SIZE || buffer.getInt() != MAGIC) {
+            throw new IOException("Not a leaderboard log: " + file);
+        }
+        short version = buffer.getShort();
+        short recordSize = buffer.getShort();
+        if (version != VERSION || recordSize != RECORD_SIZE) {
+            throw new IOException("Unsupported leaderboard log version " + version + ": " + file);
+        }
+        CRC32 crc = new CRC32();
+        while (buffer.remaining() >= RECORD_SIZE) {
+            int start = buffer.position();
+            records++;
+            crc.reset();
+            crc.update(buffer.array(), start, RECORD_SIZE - Integer.BYTES);
+            if ((int) crc.getValue() != buffer.getInt(start + RECORD_SIZE - Integer.BYTES)) {
+                skipped++;
+                buffer.position(start + RECORD_SIZE);
+                continue;
+            }
+            Leaderboard.User user = decode(buffer);
+            buffer.position(start + RECORD_SIZE);
+            if (user == null) {
+                skipped++;
+            } else {
+                consumer.accept(user);
+            }
+        }
+    }
+
+    /**
+     * Adds an entry at the end of the log and waits for it to be on disk.
+     *
+     * @param user The entry.
+     * @throws IOException if the entry can't be written, the previous entries are kept.
+     */
+    public void append(Leaderboard.User user) throws IOException {
+        ByteBuffer record = ByteBuffer.allocate(RECORD_SIZE);
+        encode(user, record);
+        record.flip();
+        Files.createDirectories(file.toAbsolutePath().getParent());
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+            if (channel.size() < HEADER_SIZE) {
+                channel.truncate(0);
+                channel.write(header(), 0);
+                skipped = 0;
+            }
+            // Written right after the last complete record, over whatever a crash left behind
+            records = (channel.size() - HEADER_SIZE) / RECORD_SIZE;
+            long position = HEADER_SIZE + records * RECORD_SIZE;
+            channel.truncate(position);
+            while (record.hasRemaining()) {
+                channel.write(record, position + record.position());
+            }
+            channel.force(false);
+        }
+        records++;
+    }
+
+    /**
+     * Rewrites the log with its valid entries only.
+     *
+     * @param users The entries to keep, in the order they were added.
+     * @throws IOException if the log can't be written, the old one is kept.
+     */
+    public void compact(List<Leaderboard.User> users) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_SIZE + users.size() * RECORD_SIZE);
+        buffer.put(header());
+        for (Leaderboard.User user : users) {
+            encode(user, buffer);
+        }
+        buffer.flip();
+        AtomicFiles.write(file, buffer);
+        records = users.size();
+        skipped = 0;
+    }
+
+    /**
+     * Reads the log and rewrites it without its skipped records.
+     *
+     * @throws IOException if the log can't be read or written.
+     */
+    public void compact() throws IOException {
+        List<Leaderboard.User> users = new ArrayList<>();
+        read(users::add);
+        compact(users);
+    }
+
+    /**
+     * @return The number of records skipped by the last read, because their checksum didn't match.
+     */
+    public long getSkippedRecords() {
+        return skipped;
+    }
+
+    /**
+     * @return The number of records in the file, skipped ones included.
+     */
+    public long getRecordCount() {
+        return records;
+    }
+
+    public Path getFile() {
+        return file;
+    }
+
+    private static ByteBuffer header() {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        header.putInt(MAGIC);
+        header.putShort(VERSION);
+        header.putShort((short) RECORD_SIZE);
+        header.flip();
+        return header;
+    }
+
+    /**
+     * Writes a record: difficulty code, flags, score, game seed, username, time, padding and checksum.
+     */
+    private static void encode(Leaderboard.User user, ByteBuffer buffer) {
+        int start = buffer.position();
+        GameSeed seed = user.seed();
+        // The stable code and not the ordinal, reordering the difficulties must not change the saved entries
+        buffer.put((byte) user.difficulty().getCode());
+        buffer.put((byte) ((seed != null ? HAS_SEED : 0) | (seed != null && seed.safeOpening() ? SAFE_OPENING : 0)));
+        buffer.putInt(user.score());
+        buffer.putLong(seed != null ? seed.seed() : 0);
+        buffer.putInt(seed != null ? seed.firstX() : 0);
+        buffer.putInt(seed != null ? seed.firstY() : 0);
+        putString(buffer, String.valueOf(user.username()), USERNAME_BYTES);
+        putString(buffer, String.valueOf(user.time()), TIME_BYTES);
+        buffer.position(start + RECORD_SIZE - Integer.BYTES);
+        CRC32 crc = new CRC32();
+        crc.update(buffer.array(), buffer.arrayOffset() + start, RECORD_SIZE - Integer.BYTES);
+        buffer.putInt((int) crc.getValue());
+    }
+
+    /**
+     * @return The entry of the record, or null if its difficulty is unknown.
+     */
+    private static Leaderboard.User decode(ByteBuffer buffer) {
+        int difficulty = buffer.get();
+        int flags = buffer.get();
+        int score = buffer.getInt();
+        long seed = buffer.getLong();
+        int firstX = buffer.getInt();
+        int firstY = buffer.getInt();
+        String username = getString(buffer, USERNAME_BYTES);
+        String time = getString(buffer, TIME_BYTES);
+        MinesweeperDifficulty level = MinesweeperDifficulty.fromCode(difficulty);
+        if (level == null) {
+            return null;
+        }
+        GameSeed gameSeed = (flags & HAS_SEED) != 0 ? new GameSeed(seed, firstX, firstY, (flags & SAFE_OPENING) != 0) : null;
+        return new Leaderboard.User(username, score, time, level, gameSeed);
+    }
+
+    /**
+     * Writes a length byte and the text in a field of a fixed size, cut to fit without splitting a character.
+     */
+    private static void putString(ByteBuffer buffer, String text, int size) {
+        byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+        int length = Math.min(bytes.length, size);
+        // Don't end in the middle of a multibyte character
+        while (length < bytes.length && length > 0 && (bytes[length] & 0xC0) == 0x80) {
+            length--;
+        }
+        buffer.put((byte) length);
+        buffer.put(bytes, 0, length);
+        buffer.position(buffer.position() + size - length);
+    }
+
+    private static String getString(ByteBuffer buffer, int size) {
+        int start = buffer.position();
+        int length = Math.min(buffer.get() & 0xFF, size);
+        String text = new String(buffer.array(), buffer.arrayOffset() + start + 1, length, StandardCharsets.UTF_8);
+        buffer.position(start + 1 + size);
+        return text;
+    }
+}
@@ -0,0 +1,167 @@
+package engine.utils;
+
+import engine.Leaderboard;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The entries waiting to be sent to the global leaderboard.
+ *
+ * <p>An entry is written to a journal, a {@link LeaderboardLog}, before anything is sent, and removed from it only
+ * once the server accepted it. Entries that couldn't be sent, because the network is down or the game was closed,
+ * are sent the next time the game starts: every entry reaches the server at least once. Adding an entry that's
+ * already waiting does nothing, so a game is never queued twice.</p>
+ *
+ * <p>A single background thread sends the entries, up to {@link Constants#outboxBatchSize} at a time over the
+ * connections of the {@link LeaderboardClient}, then rewrites the journal once for the whole batch. When a batch
+ * fails, the next one waits twice as long as the previous one, up to {@link Constants#outboxMaxRetryDelayMillis}.</p>
+ */
+public class LeaderboardOutbox {
+    private final LeaderboardClient client;
+    private final LeaderboardLog journal;
+    private final List<Leaderboard.User> pending = new ArrayList<>();
+    private final ScheduledExecutorService flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "Leaderboard outbox");
+        // Waiting entries stay in the journal, they don't have to keep the game open
+        thread.setDaemon(true);
+        return thread;
+    });
+    private ScheduledFuture<?> scheduledFlush;
+    private int failures = 0;
+
+    /**
+     * Reads the entries left in the journal and starts sending them.
+     *
+     * @param client      The client sending the entries.
+     * @param journalFile The journal of the waiting entries.
+     */
+    public LeaderboardOutbox(LeaderboardClient client, Path journalFile) {
+        this.client = client;
+        this.journal = new LeaderboardLog(journalFile);
+        try {
+            journal.read(user -> {
+                if (!pending.contains(user)) {
+                    pending.add(user);
+                }
+            });
+        } catch (IOException ignore) {
+            // An unreadable journal is replaced by the next entry
+        }
+        if (!pending.isEmpty()) {
+            scheduleFlush(0);
+        }
+    }
+
+    /**
+     * Writes an entry to the journal and sends it in the background.
+     *
+     * @param user The entry.
+     * @throws IOException if the entry can't be written to the journal, it's still sent while the game is open.
+     */
+    public synchronized void submit(Leaderboard.User user) throws IOException {
+        if (pending.contains(user)) {
+            return;
+        }
+        pending.add(user);
+        try {
+            journal.append(user);
+        } finally {
+            // An entry waiting for the retry delay is sent with the new one
+            failures = 0;
+            scheduleFlush(0);
+        }
+    }
+
+    /**
+     * @return The entries the server hasn't accepted yet.
+     */
+    public synchronized List<Leaderboard.User> getPending() {
+        return new ArrayList<>(pending);
+    }
+
+    /**
+     * Stops sending entries, the waiting ones stay in the journal.
+     */
+    public void close() {
+        flusher.shutdownNow();
+    }
+
+    private synchronized void scheduleFlush(long delay) {
+        if (flusher.isShutdown()) {
+            return;
+        }
+        if (scheduledFlush != null && !scheduledFlush.isDone()) {
+            // Bring a later flush forward, an earlier one will do
+            if (scheduledFlush.getDelay(TimeUnit.MILLISECONDS) <= delay || !scheduledFlush.cancel(false)) {
+                return;
+            }
+        }
+        scheduledFlush = flusher.schedule(this::flush, delay, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Sends a batch of entries and removes the accepted ones from the journal, on the background thread.
+     */
+    private void flush() {
+        List<Leaderboard.User> batch;
+        synchronized (this) {
+            // This flush is running, a new one can be scheduled
+            scheduledFlush = null;
+            batch = new ArrayList<>(pending.subList(0, Math.min(pending.size(), Constants.outboxBatchSize)));
+        }
+        if (batch.isEmpty()) {
+            return;
+        }
+        // Sent together, the client shares its connections between them
+        List<CompletableFuture<Boolean>> sent = new ArrayList<>(batch.size());
+        for (Leaderboard.User user : batch) {
+            sent.add(client.submit(user).handle((ignore, e) -> e == null || isRejected(e)));
+        }
+        List<Leaderboard.User> done = new ArrayList<>(batch.size());
+        for (int i = 0; i < batch.size(); i++) {
+            if (sent.get(i).join()) {
+                done.add(batch.get(i));
+            }
+        }
+        synchronized (this) {
+            pending.removeAll(done);
+            if (!done.isEmpty()) {
+                try {
+                    journal.compact(pending);
+                } catch (IOException ignore) {
+                    // The accepted entries will be sent again, the server gets them at least once
+                }
+            }
+            if (pending.isEmpty()) {
+                failures = 0;
+            } else if (done.size() == batch.size()) {
+                failures = 0;
+                scheduleFlush(0);
+            } else {
+                long delay = Math.min((long) Constants.outboxRetryDelayMillis << Math.min(failures, 20),
+                        Constants.outboxMaxRetryDelayMillis);
+                failures++;
+                scheduleFlush(delay);
+            }
+        }
+    }
+
+    /**
+     * @return true if the server refused the entry, it would refuse it again and it's dropped.
+     */
+    private static boolean isRejected(Throwable e) {
+        Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+        // Timeouts and rate limits are worth another try
+        return cause instanceof LeaderboardClient.HttpStatusException status && status.getStatusCode() / 100 == 4
+                && status.getStatusCode() != 408 && status.getStatusCode() != 429;
+    }
+}
@@ -7,72 +7,180 @@ import org.json.JSONObject;
 
 import java.io.IOException;
 import java.nio.file.Files;
+import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.nio.file.StandardOpenOption;
+import java.nio.file.StandardCopyOption;
 import java.util.ArrayList;
 import java.util.List;
 
+/**
+ * The leaderboard of the games won on this computer.
+ *
+ * <p>Every entry is appended to a {@link LeaderboardLog}, so the whole history is kept and adding an entry never
+ * rewrites the file. The best {@link Constants#localLeaderboardSize} entries of each difficulty are kept in memory
+ * by {@link TopUsers}, so an entry is ranked in O(log K) instead of sorting every entry. The history is read once,
+ * when the leaderboard is created, and kept in memory with its index for the leaderboard screen.</p>
+ *
+ * <p>The log is compacted from memory as soon as it doesn't match it: when records were skipped because their
+ * checksum didn't match, or when an entry couldn't be appended. The next entry then rewrites the whole log
+ * instead of being appended.</p>
+ */
 public class LocalLeaderboardAPI {
-    private JSONObject data;
+    private final LeaderboardLog log;
+    private final TopUsers best = new TopUsers(Constants.localLeaderboardSize);
+    // Every entry, in the order they were added
+    private final List<Leaderboard.User> history = new ArrayList<>();
+    // The index of the history, built again when it's asked for after an entry is added
+    private LeaderboardIndex index;
+    // The log has damaged records or misses an entry of the history
+    private boolean needsCompaction = false;
 
     public LocalLeaderboardAPI(){
-        // Init data json by reading to the file
+        this(Paths.get(Constants.localLeaderboardFile));
+    }
+
+    /**
+     * @param file The log of the entries.
+     */
+    public LocalLeaderboardAPI(Path file) {
+        this(file, Paths.get(Constants.oldLocalLeaderboardFile));
+    }
+
+    /**
+     * @param file    The log of the entries.
+     * @param oldFile The JSON leaderboard of older versions, moved to the log if it exists.
+     */
+    public LocalLeaderboardAPI(Path file, Path oldFile) {
+        log = new LeaderboardLog(file);
+        // Init the best entries by reading the log
         loadData();
+        importJson(oldFile);
     }
 
-    public void saveChanges() throws IOException {
-        Files.write(Paths.get(Constants.localLeaderboardFile), data.toString().getBytes(),
-                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.CREATE);
+    /**
+     * Rewrites the log from the entries in memory, if it has damaged records or misses an entry.
+     *
+     * @throws IOException if the log can't be written, the old one is kept.
+     */
+    public synchronized void saveChanges() throws IOException {
+        if (needsCompaction) {
+            log.compact(history);
+            needsCompaction = false;
+        }
     }
 
     private void loadData(){
         try {
-            String content = new String(Files.readAllBytes(Paths.get(Constants.localLeaderboardFile)));
-            data = new JSONObject(content);
-            // Check if "users" is an array
-            if (!(data.has("users") && data.get("users") instanceof JSONArray))
-            {
-                // "Users" is not an array or does not exist.
-                // Throws an exception and gets handled by the block below
-                throw new JSONException("Value 'users' is not an array.");
-            }
-        } catch (IOException | JSONException e) {
-            data = new JSONObject();
-            // Set users to empty json if data loading fails
-            data.put("users", new JSONArray());
+            log.read(user -> {
+                history.add(user);
+                best.add(user);
+            });
+        } catch (IOException e) {
+            Utils.Debug(Utils.exceptionToString(e));
+            // Keep the unreadable file aside instead of writing over it
+            moveAside(log.getFile());
+            history.clear();
+            best.clear();
+            return;
+        }
+        // Compacting on load keeps the damaged records from piling up
+        needsCompaction = log.getSkippedRecords() > 0;
+        try {
+            saveChanges();
+        } catch (IOException e) {
+            // Tried again with the next entry
+            Utils.Debug(Utils.exceptionToString(e));
         }
     }
 
-    public void addUser(Leaderboard.User user) {
-        // Create an empty JSONArray or get the existing one
-        JSONArray usersArray;
-        if (data.has("users") && data.get("users") instanceof JSONArray) {
-            usersArray = data.getJSONArray("users");
-        } else {
-            usersArray = new JSONArray();
-            data.put("users", usersArray);
+    /**
+     * Moves the entries of the JSON leaderboard of older versions to the log, all at once: the log is compacted with
+     * the old and the imported entries before the JSON file is deleted, so a failure never imports an entry twice.
+     * A file that can't be parsed is kept aside and not imported again.
+     */
+    private void importJson(Path file) {
+        if (!Files.exists(file)) {
+            return;
+        }
+        List<Leaderboard.User> users;
+        try {
+            users = jsonArrayToUserList(new JSONObject(Files.readString(file)).getJSONArray("users"));
+        } catch (IOException e) {
+            Utils.Debug(Utils.exceptionToString(e));
+            return;
+        } catch (JSONException | IllegalArgumentException e) {
+            moveAside(file);
+            Utils.Debug(Utils.exceptionToString(e));
+            return;
         }
+        List<Leaderboard.User> merged = new ArrayList<>(history);
+        merged.addAll(users);
+        try {
+            log.compact(merged);
+            Files.delete(file);
+        } catch (IOException e) {
+            Utils.Debug(Utils.exceptionToString(e));
+            return;
+        }
+        history.addAll(users);
+        users.forEach(best::add);
+        needsCompaction = false;
+    }
 
-        // Create a JSONObject representing a user
-        JSONObject jsonUser = new JSONObject();
-        jsonUser.put("username", user.username());
-        jsonUser.put("score", user.score());
-        jsonUser.put("time", user.time());
-        jsonUser.put("difficulty", user.difficulty().toString());
-
-        // Add the new user to the "users" array
-        usersArray.put(jsonUser);
-        // Keep the list small, keep only the best results
-        List<Leaderboard.User> userList = jsonArrayToUserList();
-        userList = Utils.sortUsers(userList);
-        // Remove all items after the fifth
-        userList = userList.subList(0, 5);
-        // Convert back to json
-        data.put("users", UserListToJsonArray(userList));
+    /**
+     * Renames a file that can't be read to "name.corrupt", instead of writing over it or reading it again.
+     */
+    private static void moveAside(Path file) {
+        try {
+            Files.move(file, file.resolveSibling(file.getFileName() + ".corrupt"), StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException ignore) {}
+    }
+
+    public synchronized void addUser(Leaderboard.User user) {
+        best.add(user);
+        history.add(user);
+        index = null;
         try{
-            saveChanges();
+            if (needsCompaction) {
+                saveChanges();
+            } else {
+                log.append(user);
+            }
+        }
+        catch (IOException e){
+            // The entry is only in memory, the next one rewrites the log with it
+            needsCompaction = true;
+            Utils.Debug(Utils.exceptionToString(e));
+        }
+    }
+
+    /**
+     * @return The best entries of every difficulty, unsorted.
+     */
+    public synchronized List<Leaderboard.User> getBestUsers() {
+        return best.toList();
+    }
+
+    /**
+     * Returns every entry ever added, in the order they were added.
+     *
+     * @return A copy of the entries.
+     */
+    public synchronized List<Leaderboard.User> getHistory() {
+        return new ArrayList<>(history);
+    }
+
+    /**
+     * Returns the index of every entry ever added. It's built from memory the first time it's asked for after an
+     * entry is added, the log isn't read again.
+     *
+     * @return The index, never changed once returned.
+     */
+    public synchronized LeaderboardIndex getIndex() {
+        if (index == null) {
+            index = new LeaderboardIndex(history);
         }
-        catch (IOException ignore){}
+        return index;
     }
 
     public static JSONArray UserListToJsonArray(List<Leaderboard.User> list) {
@@ -84,6 +192,9 @@ public class LocalLeaderboardAPI {
             userObject.put("score", user.score());
             userObject.put("time", user.time());
             userObject.put("difficulty", user.difficulty().name());
+            if (user.seed() != null) {
+                userObject.put("seed", user.seed().toString());
+            }
 
             jsonArray.put(userObject);
         }
@@ -91,11 +202,9 @@ public class LocalLeaderboardAPI {
         return jsonArray;
     }
 
-    public List<Leaderboard.User> jsonArrayToUserList() {
+    public static List<Leaderboard.User> jsonArrayToUserList(JSONArray usersArray) {
         List<Leaderboard.User> userList = new ArrayList<>();
 
-        JSONArray usersArray = data.getJSONArray("users");
-
         for (int i = 0; i < usersArray.length(); i++) {
             JSONObject userObject = usersArray.getJSONObject(i);
 
@@ -103,13 +212,16 @@ public class LocalLeaderboardAPI {
             int score = userObject.getInt("score");
             String time = userObject.getString("time");
             MinesweeperDifficulty difficulty = MinesweeperDifficulty.valueOf((String) userObject.get("difficulty"));
-            userList.add(new Leaderboard.User(username, score, time, difficulty));
+            GameSeed seed = GameSeed.parse(userObject.optString("seed", null));
+            userList.add(new Leaderboard.User(username, score, time, difficulty, seed));
         }
 
         return userList;
     }
     public String getRaw(){
-        // Return all user's data as raw json
+        // Return the best users as raw json
+        JSONObject data = new JSONObject();
+        data.put("users", UserListToJsonArray(getBestUsers()));
         return data.toString();
     }
 }
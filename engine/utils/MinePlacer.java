@@ -0,0 +1,167 @@
+package engine.utils;
+
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+import java.util.random.RandomGenerator;
+
+/**
+ * Places mines uniformly at random on a {@link PackedBoard}.
+ *
+ * <p>Mines are drawn with a partial Fisher-Yates shuffle over the cell positions, so placing {@code n} mines
+ * always takes {@code n} random draws, however full the board is. The shuffled positions are kept in a small
+ * hash map instead of an array of every cell, so time and memory only depend on the number of mines.
+ * When more than half of the free cells get a mine, the safe cells are drawn instead and every other cell is mined.</p>
+ *
+ * <p>The first clicked cell never gets a mine. With the safe opening enabled, its 8 neighbours don't either,
+ * so the first click always opens a region.</p>
+ */
+public class MinePlacer {
+    private final RandomGenerator random;
+    private final boolean safeOpening;
+
+    /**
+     * Constructs a mine placer.
+     *
+     * @param random      The random generator used to pick the cells, seed it to get reproducible boards.
+     * @param safeOpening true to keep the 3x3 zone around the first click free of mines.
+     */
+    public MinePlacer(RandomGenerator random, boolean safeOpening) {
+        this.random = random;
+        this.safeOpening = safeOpening;
+    }
+
+    /**
+     * Places the mines on the board, avoiding the first clicked cell.
+     *
+     * <p>If there are fewer free cells than mines, every free cell gets a mine.
+     * If the safe opening zone doesn't leave enough free cells, only the clicked cell is kept safe.</p>
+     *
+     * @param board  The board to place the mines on, it must not contain mines yet.
+     * @param mines  The number of mines to place.
+     * @param firstX The x-coordinate of the first clicked cell.
+     * @param firstY The y-coordinate of the first clicked cell.
+     * @param onMine Called with the board index of every cell that must get a mine.
+     * @return The number of mines that were placed.
+     */
+    public int place(PackedBoard board, int mines, int firstX, int firstY, IntConsumer onMine) {
+        int[] excluded = getExcludedPositions(board, firstX, firstY, safeOpening);
+        if (board.size() - excluded.length < mines) {
+            excluded = getExcludedPositions(board, firstX, firstY, false);
+        }
+        int candidates = board.size() - excluded.length;
+        mines = Math.max(0, Math.min(mines, candidates));
+
+        // On dense boards draw the cells that stay safe, there are fewer of them
+        boolean drawSafeCells = mines > candidates / 2;
+        int draws = drawSafeCells ? candidates - mines : mines;
+
+        // Virtual array of the candidate positions, only the swapped entries are stored
+        IntMap swapped = new IntMap(draws);
+        int[] picked = new int[draws];
+        for (int i = 0; i < draws; i++) {
+            int j = i + random.nextInt(candidates - i);
+            picked[i] = swapped.getOrDefault(j, j);
+            swapped.put(j, swapped.getOrDefault(i, i));
+        }
+
+        if (drawSafeCells) {
+            // Mine every candidate that wasn't drawn
+            Arrays.sort(picked);
+            int next = 0;
+            for (int candidate = 0; candidate < candidates; candidate++) {
+                if (next < picked.length && picked[next] == candidate) {
+                    next++;
+                } else {
+                    placeMine(board, toBoardPosition(candidate, excluded), onMine);
+                }
+            }
+        } else {
+            for (int candidate : picked) {
+                placeMine(board, toBoardPosition(candidate, excluded), onMine);
+            }
+        }
+        return mines;
+    }
+
+    /**
+     * Converts a position (x * height + y) to a board index and hands it to the callback.
+     */
+    private static void placeMine(PackedBoard board, int position, IntConsumer onMine) {
+        onMine.accept(board.index(position / board.getHeight(), position % board.getHeight()));
+    }
+
+    /**
+     * Returns the sorted positions (x * height + y) that must not get a mine.
+     */
+    private static int[] getExcludedPositions(PackedBoard board, int firstX, int firstY, boolean safeOpening) {
+        if (!safeOpening) {
+            return new int[] {firstX * board.getHeight() + firstY};
+        }
+        int[] positions = new int[9];
+        int count = 0;
+        // Iterating by x then y keeps the positions sorted
+        for (int x = firstX - 1; x <= firstX + 1; x++) {
+            for (int y = firstY - 1; y <= firstY + 1; y++) {
+                if (board.isInside(x, y)) {
+                    positions[count++] = x * board.getHeight() + y;
+                }
+            }
+        }
+        return Arrays.copyOf(positions, count);
+    }
+
+    /**
+     * Converts the index of a candidate cell to its position on the board, skipping the excluded positions.
+     */
+    private static int toBoardPosition(int candidate, int[] excluded) {
+        int position = candidate;
+        for (int e : excluded) {
+            if (e <= position) {
+                position++;
+            }
+        }
+        return position;
+    }
+
+    /**
+     * Minimal open addressing map from non-negative ints to ints, avoiding boxing on the hot path.
+     */
+    private static class IntMap {
+        private final int[] keys;
+        private final int[] values;
+        private final int mask;
+
+        IntMap(int expectedSize) {
+            int capacity = Integer.highestOneBit(Math.max(expectedSize, 1) * 2 - 1) << 1;
+            keys = new int[capacity];
+            values = new int[capacity];
+            mask = capacity - 1;
+            Arrays.fill(keys, -1);
+        }
+
+        int getOrDefault(int key, int defaultValue) {
+            for (int slot = mix(key) & mask; ; slot = (slot + 1) & mask) {
+                if (keys[slot] == key) {
+                    return values[slot];
+                }
+                if (keys[slot] == -1) {
+                    return defaultValue;
+                }
+            }
+        }
+
+        void put(int key, int value) {
+            int slot = mix(key) & mask;
+            while (keys[slot] != -1 && keys[slot] != key) {
+                slot = (slot + 1) & mask;
+            }
+            keys[slot] = key;
+            values[slot] = value;
+        }
+
+        private static int mix(int key) {
+            int h = key * 0x9E3779B9;
+            return h ^ (h >>> 16);
+        }
+    }
+}
@@ -1,8 +1,48 @@
 package engine.utils;
 
 public enum MinesweeperDifficulty {
-    EASY,
-    MEDIUM,
-    HARD,
-    CUSTOM
+    EASY(0),
+    MEDIUM(1),
+    HARD(2),
+    NO_GUESS(3),
+    ENDLESS(4),
+    CUSTOM(5);
+
+    private final int code;
+
+    /**
+     * @param code The number saved in files for the difficulty. It never changes, even if the difficulties are
+     *             reordered, and a new difficulty takes a new number.
+     */
+    MinesweeperDifficulty(int code) {
+        this.code = code;
+    }
+
+    /**
+     * @return The number saved in files for the difficulty.
+     */
+    public int getCode() {
+        return code;
+    }
+
+    /**
+     * @return true for the difficulties the released clients know. They can't read a global leaderboard holding any
+     *         other one, so only these are sent to the default server.
+     */
+    public boolean isLegacy() {
+        return this == EASY || this == MEDIUM || this == HARD;
+    }
+
+    /**
+     * @param code A number returned by {@link #getCode()}.
+     * @return The difficulty with that number, or null if there's none.
+     */
+    public static MinesweeperDifficulty fromCode(int code) {
+        for (MinesweeperDifficulty difficulty : values()) {
+            if (difficulty.code == code) {
+                return difficulty;
+            }
+        }
+        return null;
+    }
 }
@@ -0,0 +1,281 @@
+package engine.utils;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Compact storage for a Minesweeper field.
+ *
+ * <p>Every cell is packed in a single byte of a flat array instead of being a separate {@link Cell} object.
+ * The lower 4 bits hold the number of adjacent mines (0-8), the upper bits hold the mine, uncovered
+ * and flagged state. Cells are stored column by column, the same order the old {@code Cell[x][y]} matrix used.</p>
+ *
+ * <p>The array is padded with a border of one cell on every side. Border cells are marked as uncovered and never
+ * hold mines, so neighbours can be visited with a fixed index offset without checking the bounds.
+ * A second array of the same layout keeps, for every cell, how many of its neighbours are flagged or are
+ * uncovered mines; it's updated incrementally when a flag is toggled or a mine is uncovered.</p>
+ */
+public class PackedBoard {
+    public static final int NUMBER_MASK = 0x0F;
+    public static final int MINE = 0x10;
+    public static final int UNCOVERED = 0x20;
+    public static final int FLAGGED = 0x40;
+
+    private final int width;
+    private final int height;
+    private final int stride;
+    private final byte[] cells;
+    private final byte[] flaggedNeighbours;
+    private final int[] neighbourOffsets;
+
+    /**
+     * Constructs an empty board with every cell covered, not flagged and without mines.
+     *
+     * @param width  The width of the board.
+     * @param height The height of the board.
+     */
+    public PackedBoard(int width, int height) {
+        this.width = width;
+        this.height = height;
+        this.stride = height + 2;
+        this.cells = new byte[(width + 2) * stride];
+        this.flaggedNeighbours = new byte[cells.length];
+        this.neighbourOffsets = new int[] {
+                -stride - 1, -stride, -stride + 1,
+                -1, 1,
+                stride - 1, stride, stride + 1
+        };
+        // Mark the padding as uncovered so nothing ever tries to open it
+        for (int x = 0; x < width + 2; x++) {
+            cells[x * stride] = UNCOVERED;
+            cells[x * stride + stride - 1] = UNCOVERED;
+        }
+        for (int y = 0; y < stride; y++) {
+            cells[y] = UNCOVERED;
+            cells[(width + 1) * stride + y] = UNCOVERED;
+        }
+    }
+
+    /**
+     * @return The width of the board.
+     */
+    public int getWidth() {
+        return width;
+    }
+
+    /**
+     * @return The height of the board.
+     */
+    public int getHeight() {
+        return height;
+    }
+
+    /**
+     * @return The number of playable cells in the board.
+     */
+    public int size() {
+        return width * height;
+    }
+
+    /**
+     * @return The length of the backing array, padding included. Every index is smaller than this.
+     */
+    public int capacity() {
+        return cells.length;
+    }
+
+    /**
+     * Returns the index offsets of the 8 neighbours of a cell.
+     * Adding them to the index of a playable cell always gives a valid index, at worst a padding cell.
+     *
+     * @return The 8 neighbour offsets, the array must not be modified.
+     */
+    public int[] getNeighbourOffsets() {
+        return neighbourOffsets;
+    }
+
+    /**
+     * Checks if the given coordinates are inside the board.
+     *
+     * @param x The x-coordinate.
+     * @param y The y-coordinate.
+     * @return {@code true} if the coordinates are inside the board, {@code false} otherwise.
+     */
+    public boolean isInside(int x, int y) {
+        return x >= 0 && y >= 0 && x < width && y < height;
+    }
+
+    /**
+     * Converts coordinates to the index of the cell in the flat array.
+     * The coordinates are not checked, use {@link #isInside(int, int)} first.
+     *
+     * @param x The x-coordinate.
+     * @param y The y-coordinate.
+     * @return The index of the cell.
+     */
+    public int index(int x, int y) {
+        return (x + 1) * stride + y + 1;
+    }
+
+    /**
+     * @param index The index of the cell.
+     * @return The x-coordinate of the cell.
+     */
+    public int xOf(int index) {
+        return index / stride - 1;
+    }
+
+    /**
+     * @param index The index of the cell.
+     * @return The y-coordinate of the cell.
+     */
+    public int yOf(int index) {
+        return index % stride - 1;
+    }
+
+    /**
+     * Checks if a state bit is set on the cell.
+     *
+     * @param index The index of the cell.
+     * @param bit   One of {@link #MINE}, {@link #UNCOVERED} or {@link #FLAGGED}.
+     * @return {@code true} if the bit is set.
+     */
+    public boolean has(int index, int bit) {
+        return (cells[index] & bit) != 0;
+    }
+
+    /**
+     * Sets or clears a state bit on the cell.
+     *
+     * @param index The index of the cell.
+     * @param bit   One of {@link #MINE}, {@link #UNCOVERED} or {@link #FLAGGED}.
+     * @param value {@code true} to set the bit, {@code false} to clear it.
+     */
+    public void set(int index, int bit, boolean value) {
+        if (value) {
+            cells[index] |= (byte) bit;
+        } else {
+            cells[index] &= (byte) ~bit;
+        }
+    }
+
+    /**
+     * @param index The index of the cell.
+     * @return The number of mines adjacent to the cell.
+     */
+    public int getAdjacentMines(int index) {
+        return cells[index] & NUMBER_MASK;
+    }
+
+    /**
+     * Computes the number of adjacent mines of every cell in a single pass:
+     * each mine adds one to its 8 neighbours.
+     */
+    public void computeAdjacentMines() {
+        for (int i = 0; i < cells.length; i++) {
+            cells[i] &= (byte) ~NUMBER_MASK;
+        }
+        for (int i = 0; i < cells.length; i++) {
+            if ((cells[i] & MINE) != 0) {
+                for (int offset : neighbourOffsets) {
+                    cells[i + offset]++;
+                }
+            }
+        }
+    }
+
+    /**
+     * @param index The index of the cell.
+     * @return The number of neighbours of the cell that are flagged or are uncovered mines.
+     */
+    public int getFlaggedNeighbours(int index) {
+        return flaggedNeighbours[index];
+    }
+
+    /**
+     * Adds a value to the flagged-neighbour counter of the 8 neighbours of a cell.
+     * Called when the cell gets flagged or unflagged, or when it's a mine and gets uncovered.
+     *
+     * @param index The index of the cell that changed.
+     * @param delta 1 if the cell now counts as flagged, -1 if it doesn't anymore.
+     */
+    public void addToFlaggedNeighbours(int index, int delta) {
+        for (int offset : neighbourOffsets) {
+            flaggedNeighbours[index + offset] += (byte) delta;
+        }
+    }
+
+    /**
+     * Writes one state bit of every playable cell, 8 cells per byte in the order of the array, padding excluded.
+     *
+     * @param bit    One of {@link #MINE}, {@link #UNCOVERED} or {@link #FLAGGED}.
+     * @param buffer The buffer to write {@link #bitsetBytes()} bytes to.
+     */
+    public void writeBits(int bit, ByteBuffer buffer) {
+        // Packed in an array first, a bulk put is much faster than a put per byte
+        byte[] packed = new byte[bitsetBytes()];
+        int shift = Integer.numberOfTrailingZeros(bit);
+        int bits = 0;
+        int count = 0;
+        int out = 0;
+        for (int x = 0; x < width; x++) {
+            int start = (x + 1) * stride + 1;
+            for (int index = start; index < start + height; index++) {
+                bits |= ((cells[index] >>> shift) & 1) << count;
+                if (++count == 8) {
+                    packed[out++] = (byte) bits;
+                    bits = 0;
+                    count = 0;
+                }
+            }
+        }
+        if (count > 0) {
+            packed[out] = (byte) bits;
+        }
+        buffer.put(packed);
+    }
+
+    /**
+     * Reads one state bit of every playable cell, written by {@link #writeBits(int, ByteBuffer)}.
+     * The numbers and the flagged neighbours aren't updated.
+     *
+     * @param bit    One of {@link #MINE}, {@link #UNCOVERED} or {@link #FLAGGED}.
+     * @param buffer The buffer to read {@link #bitsetBytes()} bytes from.
+     */
+    public void readBits(int bit, ByteBuffer buffer) {
+        byte[] packed = new byte[bitsetBytes()];
+        buffer.get(packed);
+        int bits = 0;
+        int count = 8;
+        int in = 0;
+        for (int x = 0; x < width; x++) {
+            int start = (x + 1) * stride + 1;
+            for (int index = start; index < start + height; index++) {
+                if (count == 8) {
+                    bits = packed[in++];
+                    count = 0;
+                }
+                cells[index] = (byte) ((cells[index] & ~bit) | (((bits >>> count++) & 1) * bit));
+            }
+        }
+    }
+
+    /**
+     * @return The number of bytes {@link #writeBits(int, ByteBuffer)} writes.
+     */
+    public int bitsetBytes() {
+        return (int) (((long) width * height + 7) / 8);
+    }
+
+    /**
+     * Returns the type of the cell as the skins see it, ignoring if it's uncovered or not.
+     *
+     * @param index The index of the cell.
+     * @return {@link CellType#MINE}, {@link CellType#NUMBER} or {@link CellType#EMPTY}.
+     */
+    public CellType getType(int index) {
+        if (has(index, MINE)) {
+            return CellType.MINE;
+        }
+        return getAdjacentMines(index) != 0 ? CellType.NUMBER : CellType.EMPTY;
+    }
+}
@@ -0,0 +1,102 @@
+package engine.utils;
+
+import engine.Leaderboard;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+/**
+ * The best entries of each difficulty, at most a fixed number of them.
+ *
+ * <p>Each difficulty has a heap of its best entries whose head is the worst of them, so a new entry is compared with
+ * the head only, and replaces it in O(log K). Entries are ranked like {@link LeaderboardIndex} ranks them: highest
+ * score first, then shortest time, the time being parsed once when the entry is added. An entry as good as the
+ * worst kept one doesn't replace it, the first one added stays.</p>
+ */
+public class TopUsers {
+    /**
+     * A kept entry, with its time in seconds.
+     */
+    private record Ranked(Leaderboard.User user, int seconds) {
+    }
+
+    // The worst entry first: lowest score, then longest time
+    private static final Comparator<Ranked> WORST_FIRST = Comparator.comparingInt((Ranked r) -> r.user().score())
+            .thenComparing(Ranked::seconds, Comparator.reverseOrder());
+
+    private final int limit;
+    private final Map<MinesweeperDifficulty, PriorityQueue<Ranked>> best = new EnumMap<>(MinesweeperDifficulty.class);
+
+    /**
+     * @param limit The number of entries kept for each difficulty.
+     */
+    public TopUsers(int limit) {
+        this.limit = Math.max(0, limit);
+    }
+
+    /**
+     * Keeps the entry if it's one of the best of its difficulty.
+     *
+     * @param user The entry.
+     * @return true if the entry was kept.
+     */
+    public boolean add(Leaderboard.User user) {
+        if (limit == 0) {
+            return false;
+        }
+        PriorityQueue<Ranked> queue = best.computeIfAbsent(user.difficulty(),
+                d -> new PriorityQueue<>(Math.min(limit, 1024) + 1, WORST_FIRST));
+        Ranked ranked = new Ranked(user, LeaderboardIndex.parseSeconds(user.time()));
+        if (queue.size() < limit) {
+            queue.add(ranked);
+            return true;
+        }
+        if (WORST_FIRST.compare(ranked, queue.peek()) > 0) {
+            queue.poll();
+            queue.add(ranked);
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * @param users The entries.
+     */
+    public void addAll(Iterable<Leaderboard.User> users) {
+        for (Leaderboard.User user : users) {
+            add(user);
+        }
+    }
+
+    /**
+     * @return The kept entries of every difficulty, unsorted.
+     */
+    public List<Leaderboard.User> toList() {
+        List<Leaderboard.User> users = new ArrayList<>(size());
+        for (PriorityQueue<Ranked> queue : best.values()) {
+            for (Ranked ranked : queue) {
+                users.add(ranked.user());
+            }
+        }
+        return users;
+    }
+
+    /**
+     * @return The number of kept entries, all difficulties together.
+     */
+    public int size() {
+        int size = 0;
+        for (PriorityQueue<Ranked> queue : best.values()) {
+            size += queue.size();
+        }
+        return size;
+    }
+
+    public void clear() {
+        best.clear();
+    }
+}
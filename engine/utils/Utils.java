@@ -4,15 +4,11 @@ import com.googlecode.lanterna.SGR;
 import com.googlecode.lanterna.TextCharacter;
 import com.googlecode.lanterna.TextColor;
 import com.googlecode.lanterna.graphics.TextGraphics;
-import engine.Leaderboard;
 
 import javax.swing.*;
 import java.awt.*;
 import java.util.ArrayList;
-import java.util.Comparator;
-import java.util.List;
 import java.util.concurrent.TimeUnit;
-import java.util.stream.Collectors;
 
 public class Utils {
     /**
@@ -134,10 +130,10 @@ public class Utils {
             case MEDIUM -> {
                 return new Tuple<>(14, new Tuple<>(12, 12));
             }
-            case HARD -> {
+            case HARD, NO_GUESS -> {
                 return new Tuple<>(52, new Tuple<>(18, 18));
             }
-            case CUSTOM -> {
+            case CUSTOM, ENDLESS -> {
                 return new Tuple<>(null, new Tuple<>(null, null));
             }
         }
@@ -178,28 +174,6 @@ public class Utils {
         textGraphics.setForegroundColor(foreBefore);
     }
 
-    /**
-     * Sorts a list of Users based on difficulty, score, and time.
-     * Sorting order:
-     * 1. Difficulties are sorted from "Hard" to "Easy."
-     * 2. Scores are sorted in descending order (from highest to lowest).
-     * 3. Times are sorted in ascending order (from lowest to highest).
-     *
-     * @param users The list of Leaderboard.Users to be sorted.
-     * @return A new list containing the sorted Leaderboard.Users.
-     */
-    public static java.util.List<Leaderboard.User> sortUsers(List<Leaderboard.User> users){
-        return users.stream()
-                .sorted(
-                        // Difficulties are stored from Easy to Hard.
-                        // To sort them from "Hard" to "Easy" multiply by -1 them so "Easy" becomes bigger than "Hard"
-                        Comparator.comparingInt(
-                                        (Leaderboard.User u) -> u.difficulty().ordinal()*-1
-                                )
-                                .thenComparingInt(u -> u.score()*-1) // Descending score order
-                                .thenComparing(Leaderboard.User::time)).collect(Collectors.toList()); // Ascending time order
-    }
-
     public static TextColor ColorToTextColor(Color color){
         return new TextColor.RGB(color.getRed(), color.getGreen(), color.getBlue());
     }
@@ -0,0 +1,203 @@
+package engine.utils;
+
+import com.googlecode.lanterna.TerminalSize;
+
+import java.awt.*;
+
+/**
+ * The window of the minefield that fits in the terminal, for boards bigger than the screen.
+ *
+ * <p>Only the cells inside the window are looked up and drawn, so drawing a frame costs the same on a 9x9 board
+ * and on a 1000x1000 one. The window scrolls to follow the cursor, keeping a margin of cells between the cursor
+ * and its edges when the board is big enough. Cells are drawn every two columns, separated by a space.</p>
+ */
+public class Viewport {
+    /** Columns taken by the sidebar and the border, which the window leaves free. */
+    public static final int RESERVED_COLUMNS = 22;
+    /** Rows taken by the title, the status lines and the border, which the window leaves free. */
+    public static final int RESERVED_ROWS = 5;
+    /** The smallest window the game can be played in, in cells. */
+    public static final int MIN_VISIBLE_CELLS = 9;
+
+    private final int fieldWidth;
+    private final int fieldHeight;
+    // false for boards without borders, where the window can go anywhere
+    private final boolean bounded;
+    private int margin;
+    // First visible cell
+    private int left = 0;
+    private int top = 0;
+    // Number of visible cells
+    private int columns;
+    private int rows;
+    // Where the first visible cell is drawn
+    private int screenX;
+    private int screenY;
+
+    /**
+     * @param fieldWidth  The width of the minefield.
+     * @param fieldHeight The height of the minefield.
+     * @param margin      The cells kept between the cursor and the edges of the window.
+     * @param size        The size of the terminal.
+     */
+    public Viewport(int fieldWidth, int fieldHeight, int margin, TerminalSize size) {
+        this(fieldWidth, fieldHeight, true, margin, size);
+    }
+
+    private Viewport(int fieldWidth, int fieldHeight, boolean bounded, int margin, TerminalSize size) {
+        this.fieldWidth = fieldWidth;
+        this.fieldHeight = fieldHeight;
+        this.bounded = bounded;
+        this.margin = Math.max(0, margin);
+        resize(size);
+    }
+
+    /**
+     * Creates a window on a board without borders, whose cells can have any coordinates, negative ones included.
+     *
+     * @param margin The cells kept between the cursor and the edges of the window.
+     * @param size   The size of the terminal.
+     * @return The new window, with the cell (0, 0) in its top left corner.
+     */
+    public static Viewport unbounded(int margin, TerminalSize size) {
+        return new Viewport(Integer.MAX_VALUE, Integer.MAX_VALUE, false, margin, size);
+    }
+
+    /**
+     * Gets the smallest terminal a board can be played in.
+     *
+     * @param fieldWidth  The width of the minefield.
+     * @param fieldHeight The height of the minefield.
+     * @return The minimum size of the terminal.
+     */
+    public static TerminalSize getRequiredSize(int fieldWidth, int fieldHeight) {
+        return new TerminalSize(
+                Math.min(fieldWidth, MIN_VISIBLE_CELLS) * 2 + RESERVED_COLUMNS,
+                Math.min(fieldHeight, MIN_VISIBLE_CELLS) + RESERVED_ROWS
+        );
+    }
+
+    /**
+     * Fits the window in a terminal of the given size, centered like a board that fits entirely.
+     * The window keeps its position on the board as much as possible.
+     *
+     * @param size The size of the terminal.
+     */
+    public void resize(TerminalSize size) {
+        // Cells take two columns but the last one has no space after it
+        columns = Math.max(1, Math.min(fieldWidth, (size.getColumns() - RESERVED_COLUMNS + 1) / 2));
+        rows = Math.max(1, Math.min(fieldHeight, size.getRows() - RESERVED_ROWS));
+        screenX = size.getColumns() / 2 - (columns * 2 - 1) / 2;
+        screenY = size.getRows() / 2 - rows / 2;
+        scrollTo(left, top);
+    }
+
+    /**
+     * Scrolls the window the least needed to keep the margin around a cell.
+     *
+     * @param x The x-coordinate of the cell.
+     * @param y The y-coordinate of the cell.
+     * @return true if the window has scrolled.
+     */
+    public boolean follow(int x, int y) {
+        // A margin larger than half the window would make it scroll on every move
+        int marginX = Math.min(margin, (columns - 1) / 2);
+        int marginY = Math.min(margin, (rows - 1) / 2);
+        int newLeft = left;
+        int newTop = top;
+        if (x - marginX < newLeft) {
+            newLeft = x - marginX;
+        } else if (x + marginX >= newLeft + columns) {
+            newLeft = x + marginX - columns + 1;
+        }
+        if (y - marginY < newTop) {
+            newTop = y - marginY;
+        } else if (y + marginY >= newTop + rows) {
+            newTop = y + marginY - rows + 1;
+        }
+        return scrollTo(newLeft, newTop);
+    }
+
+    /**
+     * Scrolls the window so a cell is in its middle, as far as the edges of the board allow.
+     *
+     * @param x The x-coordinate of the cell.
+     * @param y The y-coordinate of the cell.
+     * @return true if the window has scrolled.
+     */
+    public boolean centerOn(int x, int y) {
+        return scrollTo(x - columns / 2, y - rows / 2);
+    }
+
+    /**
+     * Moves the first visible cell, keeping the window inside the board.
+     *
+     * @param newLeft The x-coordinate of the first visible cell.
+     * @param newTop  The y-coordinate of the first visible cell.
+     * @return true if the window has moved.
+     */
+    private boolean scrollTo(int newLeft, int newTop) {
+        if (bounded) {
+            newLeft = Math.max(0, Math.min(newLeft, fieldWidth - columns));
+            newTop = Math.max(0, Math.min(newTop, fieldHeight - rows));
+        }
+        boolean scrolled = newLeft != left || newTop != top;
+        left = newLeft;
+        top = newTop;
+        return scrolled;
+    }
+
+    /**
+     * @param x The x-coordinate of the cell.
+     * @param y The y-coordinate of the cell.
+     * @return true if the cell is inside the window.
+     */
+    public boolean isVisible(int x, int y) {
+        return x >= left && y >= top && x < left + columns && y < top + rows;
+    }
+
+    /**
+     * @param x The x-coordinate of a cell.
+     * @return The column of the screen the cell is drawn in.
+     */
+    public int toScreenX(int x) {
+        return screenX + (x - left) * 2;
+    }
+
+    /**
+     * @param y The y-coordinate of a cell.
+     * @return The row of the screen the cell is drawn in.
+     */
+    public int toScreenY(int y) {
+        return screenY + (y - top);
+    }
+
+    /**
+     * @return The area of the screen the window is drawn in.
+     */
+    public Rectangle getScreenBounds() {
+        return new Rectangle(screenX, screenY, columns * 2 - 1, rows);
+    }
+
+    /**
+     * @return The visible cells, in board coordinates.
+     */
+    public Rectangle getVisibleCells() {
+        return new Rectangle(left, top, columns, rows);
+    }
+
+    /**
+     * @return true if the whole board fits in the window.
+     */
+    public boolean showsWholeBoard() {
+        return columns == fieldWidth && rows == fieldHeight;
+    }
+
+    public int getMargin() {
+        return margin;
+    }
+
+    public void setMargin(int margin) {
+        this.margin = Math.max(0, margin);
+    }
+}